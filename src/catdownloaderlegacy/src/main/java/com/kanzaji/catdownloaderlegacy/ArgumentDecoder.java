@@ -28,6 +28,7 @@ import com.kanzaji.catdownloaderlegacy.data.Settings;
 import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
 
 import com.kanzaji.catdownloaderlegacy.utils.FileUtils;
+import com.kanzaji.catdownloaderlegacy.utils.RandomUtils;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.FileNotFoundException;
@@ -52,10 +53,24 @@ public class ArgumentDecoder {
     private String SettingsPath = "";
     private String LogPath = "";
     private String CachePath = "";
+    private String BatchFile = "";
     private String Mode = "automatic";
     private int ThreadCount = 16;
     private int DownloadAttempts = 5;
+    private int SegmentedDownloadThreshold = 64;
+    private int DownloadSegments = 4;
+    private int SyncTimeout = 0;
+    private int FileTimeout = 0;
+    private int PlanBandwidth = 100;
+    private int ServerPort = 0;
     private int LogStockSize = 10;
+    private int ScrubFraction = 5;
+    private int ScrubEveryRuns = 0;
+    private String VerificationTier = "fast";
+    private String StorageProfile = "auto";
+    private String DigestProvider = "";
+    private String ModrinthAPI = "https://api.modrinth.com/v2";
+    private int VerificationThreads = 0;
     private boolean UpdaterActive = true;
     private boolean CacheActive = true;
     private boolean LoggerActive = true;
@@ -67,6 +82,13 @@ public class ArgumentDecoder {
     private boolean DefaultSettingsFromTemplate = true;
     private boolean Experimental = false;
     private boolean BypassNetworkCheck = false;
+    private boolean MirrorRacing = false;
+    private boolean HostFairness = false;
+    private boolean DryRun = false;
+    private boolean Watch = false;
+    private boolean FingerprintChecksum = false;
+    private boolean Metrics = false;
+    private boolean ResolveMetadata = false;
 
     /**
      * Used to get a reference to {@link ArgumentDecoder} instance.
@@ -101,11 +123,21 @@ public class ArgumentDecoder {
                 case "settingspath" -> this.SettingsPath = validatePath(value, "-SettingsPath");
                 case "logspath" -> this.LogPath = validatePath(value, "-LogsPath", true);
                 case "cachepath" -> this.CachePath = validatePath(value, "-CachePath", true);
+                case "batch" -> this.BatchFile = validatePath(value, "-Batch");
 
                 // Int Arguments
                 case "threadcount" -> this.ThreadCount = getIntValue(value, "-ThreadCount", 1, 128);
                 case "downloadattempts" -> this.DownloadAttempts = getIntValue(value, "-DownloadAttempts", 1, 255);
+                case "segmenteddownloadthreshold" -> this.SegmentedDownloadThreshold = getIntValue(value, "-SegmentedDownloadThreshold", 1, Integer.MAX_VALUE);
+                case "downloadsegments" -> this.DownloadSegments = getIntValue(value, "-DownloadSegments", 1, 32);
+                case "synctimeout" -> this.SyncTimeout = getIntValue(value, "-SyncTimeout", 0, Integer.MAX_VALUE);
+                case "filetimeout" -> this.FileTimeout = getIntValue(value, "-FileTimeout", 0, Integer.MAX_VALUE);
+                case "planbandwidth" -> this.PlanBandwidth = getIntValue(value, "-PlanBandwidth", 1, Integer.MAX_VALUE);
+                case "server" -> this.ServerPort = getIntValue(value, "-Server", 0, 65535);
                 case "logstocksize" -> this.LogStockSize = getIntValue(value, "-LogStockSize", 0, Integer.MAX_VALUE);
+                case "scrubfraction" -> this.ScrubFraction = getIntValue(value, "-ScrubFraction", 0, 100);
+                case "verificationthreads" -> this.VerificationThreads = getIntValue(value, "-VerificationThreads", 0, 128);
+                case "scrubeveryruns" -> this.ScrubEveryRuns = getIntValue(value, "-ScrubEveryRuns", 0, Integer.MAX_VALUE);
 
                 // Boolean Arguments
                 case "sizeverification" -> this.FileSizeVerification = getBooleanValue(value);
@@ -119,6 +151,13 @@ public class ArgumentDecoder {
                 case "defaultsettings" -> this.DefaultSettingsFromTemplate = getBooleanValue(value);
                 case "experimental" -> this.Experimental = getBooleanValue(value);
                 case "bypassnetworkcheck" -> this.BypassNetworkCheck = true;
+                case "dryrun" -> this.DryRun = true;
+                case "watch" -> this.Watch = true;
+                case "mirrorracing" -> this.MirrorRacing = getBooleanValue(value);
+                case "hostfairness" -> this.HostFairness = getBooleanValue(value);
+                case "fingerprintchecksum" -> this.FingerprintChecksum = getBooleanValue(value);
+                case "metrics" -> this.Metrics = getBooleanValue(value);
+                case "resolvemetadata" -> this.ResolveMetadata = getBooleanValue(value);
 
                 // Custom
                 case "mode" -> {
@@ -131,6 +170,30 @@ public class ArgumentDecoder {
                     }
                     this.Mode = value;
                 }
+                case "verificationtier" -> {
+                    value = value.toLowerCase(Locale.ROOT);
+                    if (!Objects.equals(value, "fast") && !Objects.equals(value, "full")) {
+                        logger.print("Wrong verification tier selected! Available tiers: Fast // Full", 3);
+                        throw new IllegalArgumentException("Incorrect Verification Tier detected (" + value + ")!");
+                    }
+                    this.VerificationTier = value;
+                }
+                case "digestprovider" -> this.DigestProvider = value;
+                case "modrinthapi" -> {
+                    if (!value.startsWith("http://") && !value.startsWith("https://")) {
+                        logger.print("Modrinth API has to be an http:// or https:// URL!", 3);
+                        throw new IllegalArgumentException("Incorrect Modrinth API URL detected (" + value + ")!");
+                    }
+                    this.ModrinthAPI = (value.endsWith("/"))? value.substring(0, value.length() - 1): value;
+                }
+                case "storageprofile" -> {
+                    value = value.toLowerCase(Locale.ROOT);
+                    if (!Arrays.asList("auto", "ssd", "hdd", "network").contains(value)) {
+                        logger.print("Wrong storage profile selected! Available profiles: Auto // SSD // HDD // Network", 3);
+                        throw new IllegalArgumentException("Incorrect Storage Profile detected (" + value + ")!");
+                    }
+                    this.StorageProfile = value;
+                }
 
                 default -> {
                 }
@@ -237,8 +300,13 @@ public class ArgumentDecoder {
         logger.log(message);
         logger.log("> Working directory: " + this.WorkingDirectory);
         logger.log("- Full Path: " + Path.of(this.WorkingDirectory).toAbsolutePath());
+        logger.log("> Batch file: " + ((this.isBatchMode())? Path.of(this.BatchFile).toAbsolutePath(): "none"));
+        logger.log("> HTTP API port: " + ((this.ServerPort > 0)? this.ServerPort: "disabled"));
         logger.log("> Program Mode: " + ((Objects.nonNull(this.Mode))? this.Mode: "Automatic Mode Determination"));
         logger.log("> Network Check Bypass: " + this.BypassNetworkCheck);
+        logger.log("> Dry Run: " + this.DryRun);
+        logger.log("> Watch mode: " + this.Watch);
+        if (this.DryRun) logger.log("- Bandwidth for the estimations: " + this.PlanBandwidth + "Mbit/s");
         logger.log("> Updater enabled: " + this.UpdaterActive);
         logger.log("> Settings enabled: " + this.Settings);
         logger.log("> Default Settings from the template: " + this.DefaultSettingsFromTemplate);
@@ -250,13 +318,31 @@ public class ArgumentDecoder {
         logger.log("> Compressing of logs active: " + this.CompressStockPiledLogs);
         logger.log("> Logs Path: " + this.LogPath);
         logger.log("- Full Path: " + Path.of(this.LogPath).toAbsolutePath());
+        logger.log("> Metrics file in the logs' directory: " + this.Metrics);
         logger.log("> Caches enabled: " + this.CacheActive);
         logger.log("> Caches Path: " + this.CachePath);
         logger.log("- Full Path: " + Path.of(this.CachePath).toAbsolutePath());
         logger.log("> Thread count for downloads: " + this.ThreadCount);
         logger.log("> Download attempts for re-downloads: " + this.DownloadAttempts);
+        logger.log("> Mirror racing for large files: " + this.MirrorRacing);
+        logger.log("> Segmented download threshold: " + this.SegmentedDownloadThreshold + "MB");
+        logger.log("> Segments per download: " + this.DownloadSegments);
+        logger.log("> Host fairness in scheduling: " + this.HostFairness);
+        logger.log("> Time limit for the synchronization: " + ((this.SyncTimeout > 0)? this.SyncTimeout + "min": "none"));
+        logger.log("> Time limit for a single file: " + ((this.FileTimeout > 0)? this.FileTimeout + "s": "none"));
+        logger.log("> Metadata resolution by the hashes: " + this.ResolveMetadata);
+        if (this.ResolveMetadata) logger.log("- Modrinth API: " + this.ModrinthAPI);
         logger.log("> Hash Verification: " + this.HashVerification);
+        logger.log("> Digest provider: " + ((this.DigestProvider.isEmpty())? "default": this.DigestProvider));
         logger.log("> File Size Verification: " + this.FileSizeVerification);
+        logger.log("> Storage profile: " + this.StorageProfile);
+        logger.log("> Verification threads: " + ((this.VerificationThreads > 0)? this.VerificationThreads: "from the storage profile"));
+        logger.log("> Verification tier: " + this.VerificationTier);
+        if (this.isFastVerification()) {
+            logger.log("- Deep scrub per run: " + this.ScrubFraction + "% of the files");
+            logger.log("- CRC32C checksum in the fingerprints: " + this.FingerprintChecksum);
+            logger.log("- Full deep scrub: " + ((this.ScrubEveryRuns > 0)? "every " + RandomUtils.intGrammar(this.ScrubEveryRuns, " run", " runs", true): "disabled"));
+        }
         logger.log("---------------------------------------------------------------------");
     }
 
@@ -283,37 +369,22 @@ public class ArgumentDecoder {
         if (Print) { printConfiguration("Program Configuration from Settings:");}
     }
 
-    /**
-     * Used to set the app mode in ARD after Automatic Detection.
-     * <h3>Currently available modes: </h3>
-     * <ul>
-     *     <li>cf-pack</li>
-     *     <li>cf-instance</li>
-     *     <li>modrinth</li>
-     * </ul>
-     * @param mode String with app mode.
-     * @throws IllegalArgumentException when illegal mode is passed as argument.
-     */
-    public void setCurrentMode(String mode) throws IllegalArgumentException {
-        Objects.requireNonNull(mode);
-        mode = mode.toLowerCase(Locale.ROOT);
-        if (!validateMode(mode) || Objects.equals(mode, "automatic")) throw new IllegalArgumentException("Tried to set invalid or automatic mode (" + mode + ")");
-        this.Mode = mode;
-    }
-
     // Just a spam of Get methods. Nothing spectacular to see here.
     public String[] getAvailableModes() {return modes;}
     public String getCurrentMode() {return this.Mode;}
-    public boolean isPackMode() {return Objects.equals(this.Mode, "cf-pack");}
-    public boolean isInstanceMode() {return Objects.equals(this.Mode, "cf-instance");}
-    public boolean isModrinthMode() {return Objects.equals(this.Mode, "modrinth");}
     public boolean isAutomaticModeDetectionActive() {return Objects.equals(this.Mode, "automatic");}
     public String getWorkingDir() {return this.WorkingDirectory;}
     public String getSettingsPath() {return this.SettingsPath;}
     public String getLogPath() {return this.LogPath;}
     public String getCachePath() {return this.CachePath;};
+    public String getBatchFile() {return this.BatchFile;}
+    public boolean isBatchMode() {return !Objects.equals(this.BatchFile, "");}
     public int getDownloadAttempts() {return this.DownloadAttempts;}
     public int getThreads() {return this.ThreadCount;}
+    public int getSegmentedDownloadThreshold() {return this.SegmentedDownloadThreshold;}
+    public int getDownloadSegments() {return this.DownloadSegments;}
+    public int getSyncTimeout() {return this.SyncTimeout;}
+    public int getFileTimeout() {return this.FileTimeout;}
     public int getLogStockSize() {return this.LogStockSize;}
     public boolean areSettingsEnabled() {return this.Settings;}
     public boolean shouldDefaultSettings() {return this.DefaultSettingsFromTemplate;}
@@ -323,7 +394,24 @@ public class ArgumentDecoder {
     public boolean shouldCompressLogs() {return this.CompressStockPiledLogs;}
     public boolean isFileSizeVerActive() {return this.FileSizeVerification;}
     public boolean isHashVerActive() {return this.HashVerification;}
+    public boolean isFastVerification() {return Objects.equals(this.VerificationTier, "fast");}
+    public boolean isFingerprintChecksumActive() {return this.FingerprintChecksum;}
+    public String getDigestProvider() {return this.DigestProvider;}
+    public boolean isMetricsEnabled() {return this.Metrics;}
+    public boolean shouldResolveMetadata() {return this.ResolveMetadata;}
+    public String getModrinthAPI() {return this.ModrinthAPI;}
+    public String getStorageProfile() {return this.StorageProfile;}
+    public int getVerificationThreads() {return this.VerificationThreads;}
+    public int getScrubFraction() {return this.ScrubFraction;}
+    public int getScrubEveryRuns() {return this.ScrubEveryRuns;}
     public boolean isExperimental() {return this.Experimental;}
     public boolean isBypassNetworkCheckActive() {return this.BypassNetworkCheck;}
+    public boolean isDryRun() {return this.DryRun;}
+    public boolean isWatchMode() {return this.Watch;}
+    public int getPlanBandwidth() {return this.PlanBandwidth;}
+    public int getServerPort() {return this.ServerPort;}
+    public boolean isServerMode() {return this.ServerPort > 0;}
+    public boolean isMirrorRacingActive() {return this.MirrorRacing;}
+    public boolean isHostFairnessActive() {return this.HostFairness;}
     public boolean isCacheEnabled() {return this.CacheActive;}
 }
@@ -26,19 +26,35 @@ package com.kanzaji.catdownloaderlegacy;
 
 import com.kanzaji.catdownloaderlegacy.data.CDLInstance;
 import com.kanzaji.catdownloaderlegacy.data.CFManifest;
+import com.kanzaji.catdownloaderlegacy.data.InstanceDiff;
 import com.kanzaji.catdownloaderlegacy.data.MRIndex;
+import com.kanzaji.catdownloaderlegacy.data.SyncPlan;
 import com.kanzaji.catdownloaderlegacy.exceptions.FormatVersionMismatchException;
-import com.kanzaji.catdownloaderlegacy.guis.GUIUtils;
+import com.kanzaji.catdownloaderlegacy.exceptions.SyncAbortedException;
 import com.kanzaji.catdownloaderlegacy.data.CFMinecraftInstance;
 import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
 import com.kanzaji.catdownloaderlegacy.utils.*;
 
 import com.google.gson.Gson;
 
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 
 /**
@@ -48,7 +64,7 @@ import java.util.stream.Stream;
 public final class CatDownloader {
     // Launch fresh instances of required utilities.
     private static final LoggerCustom logger = new LoggerCustom("Main");
-    private static final Gson gson = new Gson();
+    private static final Gson gson = JsonUtils.getCompactGson();
     static final ArgumentDecoder ARD = ArgumentDecoder.getInstance();
 
     // Global variables
@@ -72,16 +88,6 @@ public final class CatDownloader {
      */
     public static String[] ARGUMENTS = null;
 
-    // Locally used variables
-    /**
-     * Path to the manifest file used by the app.
-     */
-    public static Path manifestFile;
-    /**
-     * Used to hold data for the SyncManager and manifest parsing.
-     */
-    private static final CDLInstance CDLInstanceData = CDLInstance.create();
-
     /**
      * Main method of the app.
      * @param args String[] arguments for the app.
@@ -94,19 +100,28 @@ public final class CatDownloader {
             Services.init();
             Services.postInit();
 
-            determineAppMode();
-
-            verifyAndPrepareWorkspace();
-            System.out.println("---------------------------------------------------------------------");
-
-            fetchAndVerifyManifestFile();
-
-            new SyncManager(CDLInstanceData).runSync();
+            if (ARD.isServerMode()) {
+                SyncServer.run();
+                logger.print("Entire Process took " + (float) (System.currentTimeMillis() - StartingTime) / 1000F + "s");
+                RandomUtils.closeTheApp(0);
+            }
 
-            createCacheFile();
+            if (ARD.isBatchMode()) {
+                int exitCode = runBatch();
+                Updater.checkForUpdates();
+                logger.print("Entire Process took " + (float) (System.currentTimeMillis() - StartingTime) / 1000F + "s");
+                RandomUtils.closeTheApp(exitCode);
+            }
 
+            SyncContext context = SyncContext.create(WORKPATH);
+            int exitCode = syncInstance(context, null, null);
+            Updater.checkForUpdates();
+            if (ARD.isWatchMode() && !ARD.isDryRun()) {
+                SyncWatcher.run(context);
+                exitCode = 0;
+            }
             logger.print("Entire Process took " + (float) (System.currentTimeMillis() - StartingTime) / 1000F + "s");
-            RandomUtils.closeTheApp(0);
+            RandomUtils.closeTheApp(exitCode);
         } catch (Exception | Error e) {
             System.out.println("---------------------------------------------------------------------");
             System.out.println("CatDownloader crashed! More details are in the log file at \"" + logger.getLogPath() + "\".");
@@ -116,10 +131,173 @@ public final class CatDownloader {
     }
 
     /**
-     * Used to determine what mode the app should run in. Handles automatic mode detection.
+     * Used to synchronize a single instance.
+     * @param context {@link SyncContext} of the instance to synchronize.
+     * @param verificationExecutor ExecutorService shared between the instances for the verification tasks, or null to create one for the instance.
+     * @param downloadExecutor ExecutorService shared between the instances for the download tasks, or null to create one for the instance.
+     * @return Exit code of the synchronization. In the Dry Run mode, 3 when the instance is out of sync.
+     * @throws Exception when synchronization fails with an exception.
+     */
+    static int syncInstance(@NotNull SyncContext context, @Nullable ExecutorService verificationExecutor, @Nullable ExecutorService downloadExecutor) throws Exception {
+        context.publish("started", null, null, context.workPath.toAbsolutePath().toString());
+        int exitCode = 1;
+        long startTime = System.nanoTime();
+        try {
+            exitCode = runInstance(context, verificationExecutor, downloadExecutor);
+            return exitCode;
+        } finally {
+            Metrics.SYNCS.inc(String.valueOf(exitCode));
+            Metrics.SYNC_DURATION.observeNanos(System.nanoTime() - startTime);
+            if (ARD.isMetricsEnabled()) Metrics.write(Path.of(ARD.getLogPath()));
+            context.publish("finished", null, exitCode, null);
+        }
+    }
+
+    /**
+     * Used internally by {@link CatDownloader#syncInstance(SyncContext, ExecutorService, ExecutorService)} to run the synchronization of the instance.
+     */
+    private static int runInstance(@NotNull SyncContext context, @Nullable ExecutorService verificationExecutor, @Nullable ExecutorService downloadExecutor) throws Exception {
+        try {
+            prepareInstance(context);
+            Services.awaitNetworkCheck();
+
+            SyncLifecycle.begin();
+            SyncManager syncManager = (Objects.isNull(verificationExecutor) || Objects.isNull(downloadExecutor))?
+                new SyncManager(context):
+                new SyncManager(context, verificationExecutor, downloadExecutor);
+
+            if (ARD.isDryRun()) {
+                SyncPlan plan = syncManager.runPlan(context.overrideFiles);
+                context.plan = plan;
+                savePlanFile(context, plan);
+                // Exit code 3 allows scripts to detect that the instance is out of sync.
+                return (plan.hasChanges())? 3: 0;
+            }
+            syncManager.runSync();
+
+            createCacheFile(context);
+            return 0;
+        } catch (SyncAbortedException e) {
+            logger.log("Synchronization of the instance in \"" + context.workPath.toAbsolutePath() + "\" has been aborted: " + e.getMessage());
+            return e.getExitCode();
+        } catch (CancellationException | TimeoutException e) {
+            System.out.println("---------------------------------------------------------------------");
+            logger.print("Synchronization has been stopped! (" + ((e instanceof TimeoutException)? e.getMessage(): SyncLifecycle.getCancelReason()) + ")", 2);
+            // Hashes of the files verified before the cancellation are saved, so the next run can skip re-calculating them.
+            createCacheFile(context);
+            logger.print("Progress has been saved. Next run will resume the synchronization.");
+            return (e instanceof TimeoutException)? 1: 130;
+        }
+    }
+
+    /**
+     * Used to determine the mode of the instance, prepare its working directory and load the data from the Manifest file.
+     * @param context {@link SyncContext} of the instance.
+     * @throws IOException when IO Exception occurs.
+     * @throws SyncAbortedException when the instance can't be synchronized.
+     */
+    static void prepareInstance(@NotNull SyncContext context) throws IOException {
+        determineAppMode(context);
+
+        verifyAndPrepareWorkspace(context);
+        System.out.println("---------------------------------------------------------------------");
+
+        fetchAndVerifyManifestFile(context);
+    }
+
+    /**
+     * Used to synchronize all instances from the Batch file, one after another.
+     * Executors, metadata cache and content store are shared between the instances,
+     * so files present in multiple instances are downloaded only once, and connections to the hosts are reused.
+     * Instance exceeding the time limit for the synchronization doesn't stop the batch, remaining instances are skipped only after the shutdown request.
+     * @return Exit code for the app. Highest exit code of the failed instances, 3 when any instance is out of sync in the Dry Run mode, 0 otherwise.
+     * @throws IOException when Batch file can't be read.
+     */
+    private static int runBatch() throws IOException {
+        List<Path> instances = new LinkedList<>();
+        for (String line: Files.readAllLines(Path.of(ARD.getBatchFile()))) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            instances.add(Path.of(line));
+        }
+
+        logger.print("Batch mode is active! Synchronizing " + RandomUtils.intGrammar(instances.size(), " instance.", " instances.", true));
+        if (instances.isEmpty()) return 0;
+
+        ExecutorService verificationExecutor = SyncLifecycle.register(Executors.newFixedThreadPool(ARD.getThreads()));
+        ExecutorService downloadExecutor = SyncLifecycle.register(Executors.newFixedThreadPool(ARD.getThreads()));
+        Map<Path, Integer> results = new LinkedHashMap<>();
+
+        try {
+            for (Path instance: instances) {
+                // Time limit applies to each instance separately, only the shutdown request stops the entire batch.
+                if (!SyncLifecycle.reset()) break;
+                if (verificationExecutor.isShutdown() || downloadExecutor.isShutdown()) {
+                    // Executors are shut down by the cancellation of the previous instance.
+                    verificationExecutor.shutdownNow();
+                    downloadExecutor.shutdownNow();
+                    verificationExecutor = SyncLifecycle.register(Executors.newFixedThreadPool(ARD.getThreads()));
+                    downloadExecutor = SyncLifecycle.register(Executors.newFixedThreadPool(ARD.getThreads()));
+                }
+                System.out.println("---------------------------------------------------------------------");
+                logger.print("Synchronizing instance \"" + instance.toAbsolutePath() + "\"...");
+
+                int exitCode;
+                if (!Files.isDirectory(instance)) {
+                    logger.print("Working directory \"" + instance.toAbsolutePath() + "\" doesn't exist!", 3);
+                    exitCode = 1;
+                } else {
+                    try {
+                        exitCode = syncInstance(SyncContext.createForBatch(instance), verificationExecutor, downloadExecutor);
+                    } catch (Exception e) {
+                        logger.logStackTrace("Exception thrown while synchronizing instance \"" + instance.toAbsolutePath() + "\"!", e);
+                        System.out.println("Synchronization of the instance failed! More details are in the log file at \"" + logger.getLogPath() + "\".");
+                        exitCode = 1;
+                    }
+                }
+                results.put(instance, exitCode);
+            }
+        } finally {
+            verificationExecutor.shutdownNow();
+            downloadExecutor.shutdownNow();
+        }
+
+        System.out.println("---------------------------------------------------------------------");
+        logger.print("Batch summary:");
+        int failedCode = 0;
+        boolean outOfSync = false;
+        for (Path instance: instances) {
+            Integer result = results.get(instance);
+            String status;
+            if (Objects.isNull(result)) {
+                status = "skipped";
+            } else if (result == 0) {
+                status = "synchronized";
+            } else if (result == 3) {
+                status = "out of sync";
+            } else {
+                status = "failed (exit code " + result + ")";
+            }
+            logger.print("> " + instance.toAbsolutePath() + " -> " + status);
+            if (Objects.isNull(result)) continue;
+            if (result == 3) {
+                outOfSync = true;
+            } else {
+                failedCode = Math.max(failedCode, result);
+            }
+        }
+        if (results.size() < instances.size()) return 130;
+        if (failedCode != 0) return failedCode;
+        return (outOfSync)? 3: 0;
+    }
+
+    /**
+     * Used to determine what mode the instance should be synchronized in. Handles automatic mode detection.
+     * @param context {@link SyncContext} of the instance.
      * @throws RuntimeException when unsupported mode is returned from the ARD.
+     * @throws SyncAbortedException when manifest file for the instance can't be found.
      */
-    private static void determineAppMode() {
+    private static void determineAppMode(@NotNull SyncContext context) {
         if (ARD.isAutomaticModeDetectionActive()) {
             logger.log("Trying to automatically determine required mode for the app...");
             Map<String, String> supportedFiles = new HashMap<>();
@@ -129,12 +307,12 @@ public final class CatDownloader {
             supportedFiles.put("minecraftinstance.json", "cf-instance");
             supportedFiles.put("manifest.json", "cf-pack");
             supportedFiles.put("#r.mrpack", "modrinth");
-            try (Stream<Path> WorkPathDir = Files.list(WORKPATH)) {
+            try (Stream<Path> WorkPathDir = Files.list(context.workPath)) {
                 WorkPathDir.forEach((File) -> {
                     if (Files.isDirectory(File)) return;
                     String fileName = File.getFileName().toString();
                     supportedFiles.forEach((supportedFile, mode) -> {
-                        if (!ARD.isAutomaticModeDetectionActive()) return;
+                        if (Objects.nonNull(context.mode)) return;
                         if (supportedFile.startsWith("#r")?
                                 fileName.contains(supportedFile.substring(2)):
                                 fileName.equals(supportedFile)
@@ -142,39 +320,40 @@ public final class CatDownloader {
                             logger.log("Found compatible manifest file in the working directory!");
                             logger.log("Manifest file => " + File.toAbsolutePath());
                             logger.log("App will be running in \"" + mode + "\" mode.");
-                            manifestFile = File;
-                            ARD.setCurrentMode(mode);
+                            context.manifestFile = File;
+                            context.mode = mode;
                         }
                     });
                 });
             } catch (Exception e) {
                 logger.logStackTrace("Failed to automatically determine the mode with an exception. Defaulting to CF Instance mode.", e);
-                manifestFile = Path.of(WORKPATH.toAbsolutePath().toString(), "minecraftinstance.json");
-                ARD.setCurrentMode("cf-instance");
+                context.manifestFile = Path.of(context.workPath.toAbsolutePath().toString(), "minecraftinstance.json");
+                context.mode = "cf-instance";
             }
 
-            if (ARD.isAutomaticModeDetectionActive() || Files.notExists(manifestFile)) {
+            if (Objects.isNull(context.mode) || Files.notExists(context.manifestFile)) {
                 logger.print("Couldn't find any compatible manifest file in the working directory.", 1);
-                RandomUtils.closeTheApp(0);
+                throw new SyncAbortedException(0, "No compatible manifest file.");
             }
 
         } else {
-            switch (ARD.getCurrentMode()) {
-                case "modrinth" -> manifestFile = Path.of(WORKPATH.toAbsolutePath().toString(), "modrinth.index.json");
-                case "cf-instance" -> manifestFile = Path.of(WORKPATH.toAbsolutePath().toString(), "minecraftinstance.json");
+            context.mode = ARD.getCurrentMode();
+            switch (context.mode) {
+                case "modrinth" -> context.manifestFile = Path.of(context.workPath.toAbsolutePath().toString(), "modrinth.index.json");
+                case "cf-instance" -> context.manifestFile = Path.of(context.workPath.toAbsolutePath().toString(), "minecraftinstance.json");
                 case "cf-pack" -> {
                     System.out.println("CurseForge site format support is experimental! Use at your own responsibility.");
-                    manifestFile = Path.of(WORKPATH.toAbsolutePath().toString(), "manifest.json");
+                    context.manifestFile = Path.of(context.workPath.toAbsolutePath().toString(), "manifest.json");
                 }
-                default -> throw new RuntimeException("Unknown mode passed mode validation step! This shouldn't happen. Mode -> " + ARD.getCurrentMode());
+                default -> throw new RuntimeException("Unknown mode passed mode validation step! This shouldn't happen. Mode -> " + context.mode);
             }
 
-             if (Files.notExists(manifestFile)) {
+             if (Files.notExists(context.manifestFile)) {
                 logger.print("Couldn't find the manifest file for a chosen mode in the working directory!", 1);
-                RandomUtils.closeTheApp(0);
+                throw new SyncAbortedException(0, "No manifest file for the chosen mode.");
             }
         }
-        System.out.println("App is running in \"" + ARD.getCurrentMode() + "\" mode.");
+        System.out.println("App is running in \"" + context.mode + "\" mode.");
     }
 
     /**
@@ -187,15 +366,22 @@ public final class CatDownloader {
      *     <li>If above step is true, repeats first two steps for CDLTemp directory, and unzips the .mrpack file.</li>
      *     <li>Changes manifest file to point to the Temp directory</li>
      * </ul>
+     * @param context {@link SyncContext} of the instance.
      * @throws IOException when IO Exception occurs.
+     * @throws SyncAbortedException when "mods" folder is a file.
      */
-    private static void verifyAndPrepareWorkspace() throws IOException {
-        Path ModsFolder = Path.of(WORKPATH.toAbsolutePath().toString(), "mods");
+    private static void verifyAndPrepareWorkspace(@NotNull SyncContext context) throws IOException {
+        Path ModsFolder = Path.of(context.workPath.toAbsolutePath().toString(), "mods");
 
         if(Files.exists(ModsFolder) && !Files.isDirectory(ModsFolder)) {
             System.out.println("---------------------------------------------------------------------");
             logger.print("Folder \"mods\" exists, but it is a file!", 3);
-            RandomUtils.closeTheApp(1);
+            throw new SyncAbortedException(1, "Folder \"mods\" is a file.");
+        }
+
+        if (ARD.isDryRun()) {
+            logger.log("Dry Run mode is active! Working directory will not be modified.");
+            return;
         }
 
         if(Files.notExists(ModsFolder)) {
@@ -206,36 +392,86 @@ public final class CatDownloader {
             logger.log("Found \"mods\" folder in working directory. Path: " + ModsFolder.toAbsolutePath());
         }
 
-        if (ARD.isModrinthMode() && manifestFile.getFileName().toString().endsWith(".mrpack")) {
+        if (context.isModrinthMode() && context.manifestFile.getFileName().toString().endsWith(".mrpack")) {
             logger.log("Manifest file is a Modrinth zip file! Uncompressing...");
-            Path CDLTemp = Path.of(WORKPATH.toString(), "CDLTemp");
-            FileUtils.delete(CDLTemp);
-            FileUtils.unzip(manifestFile, CDLTemp);
-            manifestFile = Path.of(CDLTemp.toAbsolutePath().toString(), "modrinth.index.json");
+            FileUtils.delete(context.cdlTemp, true);
+            FileUtils.unzip(context.manifestFile, context.cdlTemp);
+            context.manifestFile = Path.of(context.cdlTemp.toAbsolutePath().toString(), "modrinth.index.json");
+        }
+    }
+
+    /**
+     * Used to parse the Manifest file. The file is streamed to the parser, without reading its entire content into memory first.
+     * When the Manifest file is a .mrpack archive (only in the Dry Run mode), index is read directly from the archive, and paths of the overrides are collected.
+     * @param context {@link SyncContext} of the instance.
+     * @param type Class of the Manifest file format.
+     * @return Parsed Manifest file.
+     * @throws IOException when IO Exception occurs.
+     */
+    private static <T> T parseManifestFile(@NotNull SyncContext context, Class<T> type) throws IOException {
+        Path manifestFile = context.manifestFile;
+        if (!manifestFile.getFileName().toString().endsWith(".mrpack")) {
+            try (Reader manifestData = Files.newBufferedReader(manifestFile)) {
+                return gson.fromJson(manifestData, type);
+            }
         }
+
+        try (ZipFile mrpack = new ZipFile(manifestFile.toFile())) {
+            ZipEntry index = mrpack.getEntry("modrinth.index.json");
+            if (Objects.isNull(index)) throw new NoSuchFileException("No modrinth.index.json in the \"" + manifestFile + "\"!");
+
+            mrpack.stream()
+                .filter((entry) -> !entry.isDirectory() && entry.getName().startsWith("overrides/"))
+                .forEach((entry) -> context.overrideFiles.add(entry.getName().substring("overrides/".length())));
+
+            try (Reader indexData = new BufferedReader(new InputStreamReader(mrpack.getInputStream(index), StandardCharsets.UTF_8))) {
+                return gson.fromJson(indexData, type);
+            }
+        }
+    }
+
+    /**
+     * Used to save the Synchronization Plan to the log directory.
+     * @param context {@link SyncContext} of the instance.
+     * @param plan {@link SyncPlan} to save.
+     * @throws IOException when IO Exception occurs.
+     */
+    private static void savePlanFile(@NotNull SyncContext context, @NotNull SyncPlan plan) throws IOException {
+        Path planPath = context.planFile;
+        FileUtils.createRequiredPathToAFile(planPath);
+        Files.writeString(planPath, plan.toString());
+        logger.print("Synchronization plan has been saved to \"" + planPath.toAbsolutePath() + "\".");
     }
 
     /**
      * This method is responsible for fetching and verifying the Manifest file.
+     * @param context {@link SyncContext} of the instance.
+     * @throws SyncAbortedException when Manifest file can't be parsed, the pack fails the security check, or the instance doesn't have any mods.
      */
-    private static void fetchAndVerifyManifestFile() {
+    private static void fetchAndVerifyManifestFile(@NotNull SyncContext context) {
+        CDLInstance CDLInstanceData = context.instance;
         logger.log("Fetching data from the manifest file and translating it to CDLInstance Format...");
         try {
-            switch (ARD.getCurrentMode()) {
-                case "modrinth" -> CDLInstanceData.importModrinthPack(gson.fromJson(Files.readString(manifestFile), MRIndex.class));
-                case "cf-instance" -> CDLInstanceData.importCFInstance(gson.fromJson(Files.readString(manifestFile), CFMinecraftInstance.class));
-                case "cf-pack" -> CDLInstanceData.importCFPack(gson.fromJson(Files.readString(manifestFile), CFManifest.class), false);
-                default -> throw new RuntimeException("Unknown mode passed mode validation step! This shouldn't happen. Mode -> " + ARD.getCurrentMode());
+            switch (context.mode) {
+                // Manifest objects are not referenced after the import, only the CDLInstance is kept.
+                case "modrinth" -> CDLInstanceData.importModrinthPack(parseManifestFile(context, MRIndex.class));
+                case "cf-instance" -> CDLInstanceData.importCFInstance(parseManifestFile(context, CFMinecraftInstance.class));
+                case "cf-pack" -> CDLInstanceData.importCFPack(parseManifestFile(context, CFManifest.class), false);
+                default -> throw new RuntimeException("Unknown mode passed mode validation step! This shouldn't happen. Mode -> " + context.mode);
             }
+        } catch (SyncAbortedException e) {
+            throw e;
         } catch (Exception e) {
             System.out.println("Failed to parse data from the manifest.");
             logger.logStackTrace("Failed to parse or interpret Manifest File.", e);
-            RandomUtils.closeTheApp(1);
+            throw new SyncAbortedException(1, "Failed to parse the manifest file.");
         }
 
         logger.log("Data fetched successfully.");
 
-        parseCachedInstanceFile();
+        parseCachedInstanceFile(context);
+        // Hashes carried from the cache are resolved as well, so mods of CF instances can get Modrinth as a mirror after the first run.
+        if (ARD.shouldResolveMetadata()) ModrinthResolver.resolve(CDLInstanceData);
 
         logger.print("Installing modpack " +
             CDLInstanceData.modpackData.name +
@@ -279,18 +515,20 @@ public final class CatDownloader {
         if (CDLInstanceData.files.length < 1) {
             System.out.println("---------------------------------------------------------------------");
             logger.print("It appears that this instance doesn't have any mods!");
-            RandomUtils.closeTheApp(0);
+            throw new SyncAbortedException(0, "No mods in the instance.");
         }
 
     }
 
     /**
      * Used to parse Cached Instance File and fill missing hash values for the main CDLInstanceData.
+     * @param context {@link SyncContext} of the instance.
      * @apiNote This method is CDL exclusive! Instance files are going to be used properly in the launcher version.
      */
-    private static void parseCachedInstanceFile() {
-        if (!ARD.isCacheEnabled() || ARD.isPackMode()) {
-            if (ARD.isPackMode()) {
+    private static void parseCachedInstanceFile(@NotNull SyncContext context) {
+        CDLInstance CDLInstanceData = context.instance;
+        if (!ARD.isCacheEnabled() || context.isPackMode()) {
+            if (context.isPackMode()) {
                 logger.warn("Caches are not-available in the CF-Pack mode! Looking for cached versions of the CDLInstance will be skipped.");
             } else {
                 logger.warn("Caches are disabled! Looking for cached version of the CDLInstance will be skipped.");
@@ -300,58 +538,34 @@ public final class CatDownloader {
 
         logger.log("Looking for cached version of the CDLInstance...");
         try {
-            Path cachedPath = Path.of(ARD.getCachePath(), "CDL-Instance-cache.json");
+            Path cachedPath = context.cacheFile;
             if (Files.exists(cachedPath)) {
                 CDLInstance cachedCDLInstance = CDLInstance.parseJson(cachedPath);
 
-                if (!CDLInstanceData.equals(cachedCDLInstance, true)) {
-                    FileUtils.delete(cachedPath);
-                    if (CDLInstanceData.cdlFormatVersion.equals(cachedCDLInstance.cdlFormatVersion)) {
-                        throw new IllegalArgumentException("Cached CDLInstance json isn't for the pack currently being installed, or the details for the pack has changed. Cache file will be regenerated at the end of the sync process.");
-                    } else {
-                        throw new FormatVersionMismatchException("Cached CDLInstance json is different version than currently supported! Cache file will be regenerated at the end of the sync process.");
-                    }
+                if (!CDLInstanceData.cdlFormatVersion.equals(cachedCDLInstance.cdlFormatVersion)) {
+                    if (!ARD.isDryRun()) FileUtils.delete(cachedPath);
+                    throw new FormatVersionMismatchException("Cached CDLInstance json is different version than currently supported! Cache file will be regenerated at the end of the sync process.");
                 }
 
-                int length = cachedCDLInstance.files.length;
-
-                // Dropping any mods that aren't present in the current Instance data.
-                cachedCDLInstance.files = Arrays.stream(cachedCDLInstance.files).filter(
-                    (cachedFile) -> Arrays.stream(CDLInstanceData.files).anyMatch(
-                        (file) ->
-                            Objects.equals(cachedFile.fileLength, file.fileLength) &&
-                            Objects.equals(cachedFile.fileName, file.fileName) &&
-                            ((Objects.isNull(file.path))? Objects.equals(cachedFile.path, "mods/" + file.fileName): Objects.equals(cachedFile.path, file.path)) &&
-                            Objects.equals(cachedFile.downloadURL, file.downloadURL)
-                        )
-                ).toList().toArray(new CDLInstance.ModFile[]{});
-
-                int removedCount = length - cachedCDLInstance.files.length;
-
-                logger.log("Removed " + RandomUtils.intGrammar(removedCount,  " mod", " mods", true) + " from the cached instance file due to them missing from the main data set.");
-                logger.log("Updating information for " + cachedCDLInstance.files.length + " out of " + RandomUtils.intGrammar(CDLInstanceData.files.length,  " mod.", " mods.", true));
-
                 // Another try block because if something goes wrong here, it is not safe to continue execution.
                 try {
-                    for (CDLInstance.ModFile file : CDLInstanceData.files) {
-                        for (CDLInstance.ModFile cachedFile: cachedCDLInstance.files) {
-                            if (
-                                Objects.nonNull(cachedFile) &&
-                                Objects.equals(file.fileLength, cachedFile.fileLength) &&
-                                Objects.equals(file.fileName, cachedFile.fileName) &&
-                                ((Objects.isNull(file.path))? Objects.equals(cachedFile.path, "mods/" + file.fileName): Objects.equals(cachedFile.path, file.path)) &&
-                                Objects.equals(file.downloadURL, cachedFile.downloadURL)
-                            ) {
-                                file.hashes = cachedFile.hashes;
-                                break;
-                            }
-                        }
+                    InstanceDiff diff = CDLInstanceData.diff(cachedCDLInstance);
+                    if (diff.hasMetadataChanges()) {
+                        logger.log("Details of the pack have changed since the cache file was generated:");
+                        diff.metadataChanges.forEach((change) -> logger.log("- " + change));
                     }
+                    logger.log("Files compared to the cached instance file: " + diff + ".");
+
+                    int carried = diff.carryForwardHashes();
+                    Metrics.CACHE_REQUESTS.add(diff.unchanged.size(), "instance", "hit");
+                    Metrics.CACHE_REQUESTS.add(diff.added.size() + diff.changed.size(), "instance", "miss");
+                    logger.log("Updated hash information for " + carried + " out of " + RandomUtils.intGrammar(CDLInstanceData.files.length,  " mod.", " mods.", true));
                 } catch (Exception e) {
                     throw new IllegalStateException("Exception thrown while updating hash information of the main data set. Execution can't continue.", e);
                 }
             } else {
                 logger.log("Couldn't find cached version of the CDLInstance. Verification will be performed from the source.");
+                Metrics.CACHE_REQUESTS.add(CDLInstanceData.files.length, "instance", "miss");
             }
         } catch (IllegalStateException e) {
             throw e;
@@ -363,10 +577,12 @@ public final class CatDownloader {
     /**
      * Used to create Cache file based on the information that was acquired by the app at the runtime.
      * Increases the speed of the instance verification process.
+     * @param context {@link SyncContext} of the instance.
      */
-    private static void createCacheFile() {
-        if (!ARD.isCacheEnabled() || ARD.isPackMode()) {
-            if (ARD.isPackMode()) {
+    static void createCacheFile(@NotNull SyncContext context) {
+        if (ARD.isDryRun()) return;
+        if (!ARD.isCacheEnabled() || context.isPackMode()) {
+            if (context.isPackMode()) {
                 logger.warn("Caches are not-available in the CF-Pack mode! Cache file is not going to be generated in this session.");
             } else {
                 logger.warn("Caches are disabled! Cache file is not going to be generated in this session.");
@@ -375,7 +591,7 @@ public final class CatDownloader {
         }
 
         try {
-            Path cachedPath = Path.of(ARD.getCachePath(), "CDL-Instance-cache.json");
+            Path cachedPath = context.cacheFile;
             if (Files.notExists(cachedPath)) {
                 logger.log("Cache file not found! Creating required path for the Cache file...");
                 FileUtils.createRequiredPathToAFile(cachedPath);
@@ -383,12 +599,12 @@ public final class CatDownloader {
             }
 
             logger.log("Saving cache data...");
-            Files.writeString(cachedPath, CDLInstanceData.toString(), StandardOpenOption.TRUNCATE_EXISTING);
+            context.instance.writeTo(cachedPath);
             logger.log("Cache data has been saved.");
         } catch (Exception e) {
             logger.logStackTrace("Exception thrown while saving Cache data!", e);
             try {
-                Files.deleteIfExists(Path.of(ARD.getCachePath(), "CDL-Instance-cache.json"));
+                Files.deleteIfExists(context.cacheFile);
             } catch (Exception e2) {
                 logger.logStackTrace("Exception thrown while deleting cache file after main exception! Was the original exception IO Error? Is the path write-protected?", e);
             }
@@ -397,6 +613,12 @@ public final class CatDownloader {
 
     private static class Services {
         private static final LoggerCustom logger = new LoggerCustom("Main.Services");
+        /**
+         * Timeout (in milliseconds) of the network connection check.
+         */
+        private static final int NETWORK_CHECK_TIMEOUT = 5000;
+        private static CompletableFuture<Boolean> networkCheck = null;
+        private static long networkCheckStart = 0;
 
         /**
          * This method is used to initialize requires services, utilities and global "utility" variables.
@@ -418,7 +640,6 @@ public final class CatDownloader {
                 logger.logStackTrace("Failed to get Java directory!", e);
             }
 
-            GUIUtils.setLookAndFeel();
             // All arguments should be decoded in the ARD.
             // However, this method Overrides arguments, so it is required to run before ARD decoding.
             if (Arrays.stream(ARGUMENTS).toList().contains("-PostUpdateRoutine")) Updater.updateCleanup();
@@ -444,29 +665,47 @@ public final class CatDownloader {
         public static void postInit() throws IOException {
             logger.postInit();
 
+            // Both checks run in the background, while the Manifest file is parsed.
+            // Result of the network check is awaited by awaitNetworkCheck(), before the synchronization starts.
             logger.log("Checking network connection...");
             if (ARD.isBypassNetworkCheckActive()) {
                 logger.warn("Network Bypass active! Be aware, Un-intended behaviour due to missing network connection is possible!");
             } else {
-                long StartingTime = System.currentTimeMillis();
-                if (NetworkingUtils.checkConnection("https://github.com/")) {
-                    float CurrentTime = (float) (System.currentTimeMillis() - StartingTime) / 1000F;
-                    logger.log("Network connection checked! Time to verify network: " + CurrentTime + " seconds.");
-                    if (CurrentTime > 2) {
-                        logger.print("It appears you have slow network connection! This might or might not cause issues with Verification or Download steps. Use with caution.", 1);
-                    }
-                } else {
-                    logger.critical("No network connection! This app can not run properly without access to the internet.");
-                    System.out.println("It appears you are running this app without access to the internet. This app requires internet connection to function properly.");
-                    System.out.println("If you have network connection, and the Check host is unavailable (github.com), run the app with -BypassNetworkCheck argument!");
-                    RandomUtils.closeTheApp(2);
-                }
+                networkCheckStart = System.currentTimeMillis();
+                networkCheck = CompletableFuture.supplyAsync(() -> NetworkingUtils.checkConnection("https://github.com/", NETWORK_CHECK_TIMEOUT));
             }
 
-            Updater.checkForUpdates();
+            if (ARD.isDryRun()) {
+                logger.log("Dry Run mode is active! Check for updates will be skipped.");
+            } else {
+                Updater.startUpdateCheck();
+            }
 
             // Redirects the entire output of any Logger to a console!
             if (!ARD.isLoggerActive()) logger.exit();
         }
+
+        /**
+         * This method is used to wait for the result of the network check started in {@link Services#postInit()}.
+         * Closes the app when there is no network connection.
+         */
+        public static synchronized void awaitNetworkCheck() {
+            if (Objects.isNull(networkCheck)) return;
+            boolean connected = networkCheck.join();
+            networkCheck = null;
+
+            if (connected) {
+                float CurrentTime = (float) (System.currentTimeMillis() - networkCheckStart) / 1000F;
+                logger.log("Network connection checked! Time to verify network: " + CurrentTime + " seconds.");
+                if (CurrentTime > 2) {
+                    logger.print("It appears you have slow network connection! This might or might not cause issues with Verification or Download steps. Use with caution.", 1);
+                }
+            } else {
+                logger.critical("No network connection! This app can not run properly without access to the internet.");
+                System.out.println("It appears you are running this app without access to the internet. This app requires internet connection to function properly.");
+                System.out.println("If you have network connection, and the Check host is unavailable (github.com), run the app with -BypassNetworkCheck argument!");
+                RandomUtils.closeTheApp(2);
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,180 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy;
+
+import com.kanzaji.catdownloaderlegacy.data.CDLInstance;
+import com.kanzaji.catdownloaderlegacy.data.SyncEvent;
+import com.kanzaji.catdownloaderlegacy.data.SyncPlan;
+import com.kanzaji.catdownloaderlegacy.data.SyncStatistics;
+import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * This class holds the state of the synchronization of a single instance.
+ * Allows to synchronize multiple instances in a single run of the app, see Batch mode.
+ */
+public class SyncContext {
+    private static final LoggerCustom logger = new LoggerCustom("Sync Context");
+    private static final ArgumentDecoder ARD = ArgumentDecoder.getInstance();
+    private final List<Consumer<SyncEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Path to the working directory of the instance.
+     */
+    public final Path workPath;
+    /**
+     * Path to the temporary directory used for unpacking of the .mrpack files.
+     */
+    public final Path cdlTemp;
+    /**
+     * Path to the Cache file of the instance.
+     */
+    public final Path cacheFile;
+    /**
+     * Path to the Fingerprint Index of the instance, next to the Cache file.
+     */
+    public final Path fingerprintFile;
+    /**
+     * Path to the file the Synchronization Plan is saved to in the Dry Run mode.
+     */
+    public final Path planFile;
+    /**
+     * Data of the instance, used by the SyncManager.
+     */
+    public final CDLInstance instance = CDLInstance.create();
+    /**
+     * Paths of the files in the overrides of the .mrpack file, relative to the overrides' folder. Used only in the Dry Run mode, as the archive is not unpacked.
+     */
+    public final Set<String> overrideFiles = new HashSet<>();
+    /**
+     * Path to the manifest file of the instance.
+     */
+    public Path manifestFile;
+    /**
+     * Mode the instance is synchronized in.
+     */
+    public String mode;
+    /**
+     * Statistics of the synchronization, available after the synchronization has finished.
+     */
+    public SyncStatistics statistics;
+    /**
+     * Synchronization Plan of the instance, available after the Dry Run has finished.
+     */
+    public SyncPlan plan;
+
+    /**
+     * Constructor of the SyncContext.
+     * @param workPath Path to the working directory of the instance.
+     * @param cacheFile Path to the Cache file of the instance.
+     * @param planFile Path to the Synchronization Plan file of the instance.
+     */
+    public SyncContext(@NotNull Path workPath, @NotNull Path cacheFile, @NotNull Path planFile) {
+        this.workPath = Objects.requireNonNull(workPath);
+        this.cacheFile = Objects.requireNonNull(cacheFile);
+        this.fingerprintFile = cacheFile.resolveSibling(cacheFile.getFileName().toString().replaceFirst("\\.json$", "") + "-fingerprints.json");
+        this.planFile = Objects.requireNonNull(planFile);
+        this.cdlTemp = Path.of(workPath.toString(), "CDLTemp");
+        this.instance.setWorkPath(workPath);
+    }
+
+    /**
+     * Used to create SyncContext for the instance synchronized alone.
+     * @param workPath Path to the working directory of the instance.
+     * @return SyncContext for the instance.
+     */
+    public static @NotNull SyncContext create(@NotNull Path workPath) {
+        return new SyncContext(
+            workPath,
+            Path.of(ARD.getCachePath(), "CDL-Instance-cache.json"),
+            Path.of(ARD.getLogPath(), "CDL-Sync-Plan.json")
+        );
+    }
+
+    /**
+     * Used to create SyncContext for the instance in the Batch mode.
+     * Multiple instances share the Cache and Logs directories, so names of the files contain a digest of the absolute working directory.
+     * @param workPath Path to the working directory of the instance.
+     * @return SyncContext for the instance.
+     */
+    public static @NotNull SyncContext createForBatch(@NotNull Path workPath) {
+        String digest;
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(workPath.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8));
+            digest = String.format("%064x", new BigInteger(1, hash)).substring(0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            digest = Integer.toHexString(workPath.toAbsolutePath().normalize().hashCode());
+        }
+        return new SyncContext(
+            workPath,
+            Path.of(ARD.getCachePath(), "CDL-Instance-cache-" + digest + ".json"),
+            Path.of(ARD.getLogPath(), "CDL-Sync-Plan-" + digest + ".json")
+        );
+    }
+
+    /**
+     * Used to add a listener for the progress events of the synchronization.
+     * @param listener Consumer of the {@link SyncEvent}s. Called from the threads doing the synchronization, so it should return quickly.
+     */
+    public void addListener(@NotNull Consumer<SyncEvent> listener) {
+        this.listeners.add(Objects.requireNonNull(listener));
+    }
+
+    /**
+     * Used to publish a progress event of the synchronization to all listeners.
+     * @param type Type of the event.
+     * @param file Path of the file the event is about, or null.
+     * @param result Result of the operation, or null.
+     * @param message Additional message, or null.
+     */
+    public void publish(@NotNull String type, String file, Integer result, String message) {
+        if (this.listeners.isEmpty()) return;
+        SyncEvent event = new SyncEvent(type, file, result, message);
+        for (Consumer<SyncEvent> listener: this.listeners) {
+            try {
+                listener.accept(event);
+            } catch (Exception e) {
+                logger.logStackTrace("Exception thrown while publishing an event of the synchronization!", e);
+            }
+        }
+    }
+
+    public boolean isPackMode() {return Objects.equals(this.mode, "cf-pack");}
+    public boolean isInstanceMode() {return Objects.equals(this.mode, "cf-instance");}
+    public boolean isModrinthMode() {return Objects.equals(this.mode, "modrinth");}
+}
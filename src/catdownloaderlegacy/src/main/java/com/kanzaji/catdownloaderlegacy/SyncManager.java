@@ -26,22 +26,34 @@ package com.kanzaji.catdownloaderlegacy;
 
 import com.kanzaji.catdownloaderlegacy.data.CDLInstance;
 import com.kanzaji.catdownloaderlegacy.data.CFManifest;
+import com.kanzaji.catdownloaderlegacy.data.FingerprintIndex;
+import com.kanzaji.catdownloaderlegacy.data.SyncPlan;
+import com.kanzaji.catdownloaderlegacy.data.SyncStatistics;
 import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+import com.kanzaji.catdownloaderlegacy.utils.Digest;
 import com.kanzaji.catdownloaderlegacy.utils.FileUtils;
+import com.kanzaji.catdownloaderlegacy.utils.MemoryStatistics;
+import com.kanzaji.catdownloaderlegacy.utils.Metrics;
+import com.kanzaji.catdownloaderlegacy.utils.MirrorStatistics;
+import com.kanzaji.catdownloaderlegacy.utils.NetworkingUtils;
 import com.kanzaji.catdownloaderlegacy.utils.RandomUtils;
 import com.kanzaji.catdownloaderlegacy.utils.SettingsManager;
+import com.kanzaji.catdownloaderlegacy.utils.StorageProfile;
+import com.kanzaji.catdownloaderlegacy.utils.SyncLifecycle;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
+import java.net.URI;
 import java.nio.file.Path;
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.stream.Stream;
 
-import static com.kanzaji.catdownloaderlegacy.CatDownloader.WORKPATH;
 
 /**
  * SyncManager is a class used to manage synchronization of the mods.
@@ -49,8 +61,10 @@ import static com.kanzaji.catdownloaderlegacy.CatDownloader.WORKPATH;
 public class SyncManager {
     private static final LoggerCustom logger = new LoggerCustom("Sync Manager");
     private static final ArgumentDecoder ARD = ArgumentDecoder.getInstance();
-    private static Path CDLTemp;
+    private final SyncContext context;
     private final CDLInstance CDLInstanceData;
+    private final Path CDLTemp;
+    private final boolean sharedExecutors;
     private ExecutorService downloadExecutor;
     private ExecutorService verificationExecutor;
     private final HashSet<Integer> missing = new HashSet<>();
@@ -61,61 +75,187 @@ public class SyncManager {
     private final HashSet<String> failedRemovals = new HashSet<>();
     private final HashSet<Integer> IgnoredVerification = new HashSet<>();
     private final HashSet<Integer> IgnoredRemoval = new HashSet<>();
+    private Set<String> overrideFiles = null;
+    private Set<Integer> selection = null;
+    private FingerprintIndex fingerprints = null;
+    private Set<String> scrubbed = Set.of();
+    private int verified = 0;
+    private int downloaded = 0;
 
     /**
-     * Constructor of SyncManager Object.
-     * @param CDLInstanceData CDLInstance with data about the instance.
+     * Constructor of SyncManager Object. Executors are created for each synchronization, and shut down after it.
+     * @param context SyncContext with data about the instance.
      */
-    public SyncManager(CDLInstance CDLInstanceData) {
-        this.CDLInstanceData = CDLInstanceData;
+    public SyncManager(@NotNull SyncContext context) {
+        this.context = Objects.requireNonNull(context);
+        this.CDLInstanceData = context.instance;
+        this.CDLTemp = context.cdlTemp;
+        this.sharedExecutors = false;
+    }
+
+    /**
+     * Constructor of SyncManager Object, with executors shared between multiple instances.
+     * @param context SyncContext with data about the instance.
+     * @param verificationExecutor ExecutorService to use for the verification tasks. Not shut down by the SyncManager.
+     * @param downloadExecutor ExecutorService to use for the download tasks. Not shut down by the SyncManager.
+     */
+    public SyncManager(@NotNull SyncContext context, @NotNull ExecutorService verificationExecutor, @NotNull ExecutorService downloadExecutor) {
+        this.context = Objects.requireNonNull(context);
+        this.CDLInstanceData = context.instance;
+        this.CDLTemp = context.cdlTemp;
+        this.sharedExecutors = true;
+        this.verificationExecutor = Objects.requireNonNull(verificationExecutor);
+        this.downloadExecutor = Objects.requireNonNull(downloadExecutor);
     }
 
     /**
      * This method is used to run Synchronization routines for specified instance in the Constructor of this Object.
      * @throws InterruptedException when any of the executors are interrupted.
-     * @throws TimeoutException when any of the executors take more than 24 hours to complete.
+     * @throws TimeoutException when the synchronization takes longer than the configured time limit.
+     * @throws CancellationException when the synchronization is cancelled.
      * @throws IOException when IO Exception occurs.
      */
     public void runSync() throws InterruptedException, TimeoutException, IOException {
-        Objects.requireNonNull(CDLInstanceData, "CDLInstanceData is null!");
+        runSync(null);
+    }
 
-        verificationExecutor = Executors.newFixedThreadPool(ARD.getThreads());
-        downloadExecutor = Executors.newFixedThreadPool(ARD.getThreads());
-        CDLTemp = Path.of(WORKPATH.toString(), "CDLTemp");
+    /**
+     * This method is used to run Synchronization routines for specified instance in the Constructor of this Object, verifying and downloading only selected files.
+     * Lookup for the removed mods is done for the entire instance.
+     * @param selection {@link Set} with indexes of the files to synchronize, or null to synchronize all files.
+     * @throws InterruptedException when any of the executors are interrupted.
+     * @throws TimeoutException when the synchronization takes longer than the configured time limit.
+     * @throws CancellationException when the synchronization is cancelled.
+     * @throws IOException when IO Exception occurs.
+     */
+    public void runSync(@Nullable Set<Integer> selection) throws InterruptedException, TimeoutException, IOException {
+        Objects.requireNonNull(CDLInstanceData, "CDLInstanceData is null!");
+        this.selection = selection;
+        createExecutors();
 
-        logger.log("Running GC to clear out memory before running synchronization process...");
-        RandomUtils.runGCL();
+        MemoryStatistics.reset();
+        Digest.reset();
         logger.print("Starting synchronization process!");
         System.out.println("---------------------------------------------------------------------");
 
-        verifyInstalledMods();
-        printVerificationResults();
-        RandomUtils.runGCL();
-
-        removeRemovedMods();
-
-        downloadRequiredMods();
-        RandomUtils.runGCL();
+        try {
+            verifyInstalledMods();
+            printVerificationResults();
+
+            removeRemovedMods();
+
+            downloadRequiredMods();
+            saveFingerprints();
+        } catch (CancellationException | TimeoutException e) {
+            cleanupCancelled();
+            throw e;
+        } finally {
+            shutdownExecutors();
+        }
 
         printStatistics();
+        context.statistics = collectStatistics();
 
         cleanup();
 
         System.out.println("Synchronization of the profile finished!");
     }
 
+    /**
+     * This method is used to compute the Synchronization Plan for specified instance in the Constructor of this Object, without making any changes to the working directory.
+     * Runs verification of the installed mods and the lookup for removed mods, and reports what the synchronization would do.
+     * @param overrideFiles {@link Set} with paths of the files present in the overrides of the modpack, relative to the overrides' folder.
+     * @return {@link SyncPlan} with the results.
+     * @throws InterruptedException when the executor is interrupted.
+     * @throws TimeoutException when the verification takes longer than the configured time limit.
+     * @throws CancellationException when the synchronization is cancelled.
+     * @throws IOException when IO Exception occurs.
+     */
+    public SyncPlan runPlan(@NotNull Set<String> overrideFiles) throws InterruptedException, TimeoutException, IOException {
+        Objects.requireNonNull(CDLInstanceData, "CDLInstanceData is null!");
+        Objects.requireNonNull(overrideFiles);
+        createExecutors();
+        this.overrideFiles = overrideFiles;
+
+        logger.print("Starting synchronization plan! No changes will be made to the working directory.");
+        System.out.println("---------------------------------------------------------------------");
+
+        List<Path> removedMods;
+        try {
+            verifyInstalledMods();
+            printVerificationResults();
+            removedMods = findRemovedMods();
+        } finally {
+            shutdownExecutors();
+        }
+
+        SyncPlan plan = new SyncPlan();
+        plan.instanceName = CDLInstanceData.instanceName;
+        plan.modpackVersion = CDLInstanceData.modpackData.version;
+        plan.workingDirectory = context.workPath.toAbsolutePath().toString();
+        plan.generated = Instant.now().toString();
+
+        for (int index = 0; index < CDLInstanceData.files.length; index++) {
+            CDLInstance.ModFile mod = CDLInstanceData.files[index];
+            if (missing.contains(index) || corrupted.contains(index)) {
+                plan.download.add(new SyncPlan.PlannedFile(mod.path, mod.downloadURL, mod.fileLength, (missing.contains(index))? "missing": "corrupted"));
+                plan.estimatedBytes += mod.fileLength;
+            } else if (IgnoredVerification.contains(index)) {
+                plan.ignored.add(mod.path);
+            } else if (failedVerifications.contains(index) || failedDownloads.contains(index)) {
+                plan.failed.add(Objects.requireNonNullElse(mod.path, mod.fileName));
+            } else {
+                plan.ok.add(mod.path);
+            }
+        }
+        removedMods.forEach((File) -> plan.remove.add("mods/" + File.getFileName()));
+        plan.estimatedSeconds = (long) Math.ceil(plan.estimatedBytes * 8D / (ARD.getPlanBandwidth() * 1_000_000D));
+
+        logger.print("> " + RandomUtils.intGrammar(plan.download.size(), " file", " files", true) + " would be downloaded (" + String.format(Locale.ROOT, "%.2f", plan.estimatedBytes / (1024D * 1024D)) + "MB, ~" + plan.estimatedSeconds + "s).");
+        logger.print("> " + RandomUtils.intGrammar(plan.remove.size(), " mod", " mods", true) + " would be removed.");
+        System.out.println("---------------------------------------------------------------------");
+        return plan;
+    }
+
+    /**
+     * This method is used internally by {@link SyncManager} to create executors for the synchronization, when they are not shared.
+     */
+    private void createExecutors() {
+        if (sharedExecutors) return;
+        verificationExecutor = SyncLifecycle.register(Executors.newFixedThreadPool(ARD.getThreads()));
+        downloadExecutor = SyncLifecycle.register(Executors.newFixedThreadPool(ARD.getThreads()));
+    }
+
+    /**
+     * This method is used internally by {@link SyncManager} to shut down executors created for the synchronization.
+     * When the synchronization was cancelled, waits a while for in-flight tasks to stop.
+     * @throws InterruptedException when current thread is interrupted while waiting.
+     */
+    private void shutdownExecutors() throws InterruptedException {
+        if (sharedExecutors) return;
+        verificationExecutor.shutdown();
+        downloadExecutor.shutdown();
+        if (SyncLifecycle.isCancelled()) {
+            verificationExecutor.awaitTermination(SyncLifecycle.SHUTDOWN_GRACE_PERIOD, TimeUnit.SECONDS);
+            downloadExecutor.awaitTermination(SyncLifecycle.SHUTDOWN_GRACE_PERIOD, TimeUnit.SECONDS);
+        }
+    }
+
     /**
      * This method is used internally by {@link SyncManager} to query verification and lookup tasks for mods in the specified Instance. Respects Blacklist from the Settings File.
      * @throws InterruptedException when Executor is interrupted.
-     * @throws TimeoutException if the Executor doesn't finish before 24-hours pass.
+     * @throws TimeoutException if the Executor doesn't finish before the time limit for the synchronization.
      */
     private void verifyInstalledMods() throws InterruptedException, TimeoutException {
-        List<Future<Integer[]>> verificationResults = new LinkedList<>();
+        CompletionService<Integer[]> verificationResults = new ExecutorCompletionService<>(verificationExecutor);
+        Set<Future<Integer[]>> pending = new HashSet<>();
+        List<Integer> verifications = new ArrayList<>();
         System.out.println("Looking for already installed mods...");
         logger.log("Requesting of lookups for installed mods and their verification started.");
 
         for (int index = 0; index < CDLInstanceData.files.length; index++) {
-            if (ARD.isPackMode()) CDLInstanceData.gatherCFModInformation(index);
+            if (Objects.nonNull(selection) && !selection.contains(index)) continue;
+            if (context.isPackMode()) CDLInstanceData.gatherCFModInformation(index);
             CDLInstance.ModFile mod = CDLInstanceData.files[index];
 
             if (Objects.equals(mod.fileName, "CF-PACK_MOD")) {
@@ -129,65 +269,144 @@ public class SyncManager {
                 continue;
             }
 
-            logger.log("Lookup and verification of file " + mod.fileName + " has been requested.");
-            verificationResults.add(verificationExecutor.submit(CDLInstanceData.getVerificationTask(index)));
+            verifications.add(index);
+        }
+
+        loadFingerprints(verifications);
+        context.publish("verification", null, verifications.size(), null);
+
+        // Amount of the verification tasks running at once is limited separately from the size of the executor, as it depends on the storage.
+        String profile = StorageProfile.detect(context.workPath);
+        int limit = StorageProfile.getVerificationThreads(profile);
+        Iterator<Integer> queue = ((Objects.equals(profile, "hdd"))? scheduleByLocation(verifications): scheduleBySize(verifications)).iterator();
+        logger.log("Storage profile of the working directory: " + profile + ". Up to " + RandomUtils.intGrammar(limit, " file is", " files are", true) + " verified at once.");
+        for (int i = 0; i < limit && queue.hasNext(); i++) {
+            pending.add(submitVerification(verificationResults, queue.next()));
         }
 
-        RandomUtils.waitForExecutor(verificationExecutor, 1, TimeUnit.DAYS, "Verification takes over a day!");
-        decodeVerificationResults(verificationResults);
+        // Results are decoded as soon as the tasks finish, instead of keeping all of them until the last one is done.
+        SyncLifecycle.awaitCompletion(verificationResults, pending, (Future) -> {
+            decodeVerificationResult(Future);
+            // Executors are already shut down once the sync is cancelled, so no further work can be queued.
+            if (queue.hasNext() && !SyncLifecycle.isCancelled()) pending.add(submitVerification(verificationResults, queue.next()));
+        }, "Verification takes longer than the time limit for the synchronization!");
     }
 
     /**
-     * This method is used internally by {@link SyncManager} to decode results from the verification tasks.
-     * @param verificationResults A list with Future objects from the executor.
-     * @throws NullPointerException when verificationResults are null.
+     * This method is used internally by {@link SyncManager} to submit verification task of the file under specified index.
+     * @param verificationResults {@link CompletionService} to submit the task to.
+     * @param index Index of the file.
+     * @return {@link Future} of the submitted task.
+     * @throws CancellationException when the executor has been shut down by a cancelled synchronization.
      */
-    @SuppressWarnings("ForLoopReplaceableByForEach")
-    private void decodeVerificationResults(@NotNull List<Future<Integer[]>> verificationResults) {
-        Objects.requireNonNull(verificationResults);
-        // LinkedList<>#forEach() and enhanced for use Iterators.
-        // For some reason, I got issues with random NullPointerExceptions while using them in the old SyncManager.
-        for (int i = 0; i < verificationResults.size(); i++) {
-            Future<Integer[]> Future = verificationResults.get(i);
-            try {
-                Integer[] results = Future.get();
-                CDLInstance.ModFile mod = CDLInstanceData.files[results[0]];
-                Objects.requireNonNull(results, "Null value got while gathering verification results!");
-                if (!Objects.equals(results.length, 2)) {
-                    throw new IllegalStateException("Results from the verification are not in correct schema! => " + Arrays.toString(results));
+    private @NotNull Future<Integer[]> submitVerification(@NotNull CompletionService<Integer[]> verificationResults, int index) {
+        logger.log("Lookup and verification of file " + CDLInstanceData.files[index].fileName + " has been requested.");
+        boolean deep = Objects.isNull(fingerprints) || scrubbed.contains(CDLInstanceData.files[index].getRelativePath());
+        try {
+            return verificationResults.submit(observed("verified", index, CDLInstanceData.getVerificationTask(index, fingerprints, deep)));
+        } catch (RejectedExecutionException e) {
+            throw new CancellationException(SyncLifecycle.getCancelReason());
+        }
+    }
+
+    /**
+     * This method is used internally by {@link SyncManager} to load the Fingerprint Index and select files for the deep scrub, when the fast verification tier is active.
+     * Fingerprints are not used when Hash Verification or caches are disabled.
+     * @param verifications {@link List} with indexes of the files to verify.
+     */
+    private void loadFingerprints(@NotNull List<Integer> verifications) {
+        if (!ARD.isFastVerification() || !ARD.isHashVerActive() || !ARD.isCacheEnabled()) return;
+        fingerprints = FingerprintIndex.load(context.fingerprintFile, ARD.isFingerprintChecksumActive());
+        List<String> paths = verifications.stream().map((index) -> CDLInstanceData.files[index].getRelativePath()).toList();
+        scrubbed = fingerprints.selectForScrub(paths, ARD.getScrubFraction(), ARD.getScrubEveryRuns());
+        logger.log("Fast verification is active. " + RandomUtils.intGrammar(scrubbed.size(), " file was", " files were", true) + " selected for the deep scrub.");
+    }
+
+    /**
+     * This method is used internally by {@link SyncManager} to save the Fingerprint Index after the synchronization.
+     * Fingerprints of the files no longer in the instance are removed, unless only selected files were synchronized.
+     */
+    private void saveFingerprints() {
+        if (Objects.isNull(fingerprints)) return;
+        if (Objects.isNull(selection)) fingerprints.retain(Arrays.stream(CDLInstanceData.files).map(CDLInstance.ModFile::getRelativePath).toList());
+        try {
+            fingerprints.save(context.fingerprintFile);
+        } catch (IOException e) {
+            logger.logStackTrace("Failed saving Fingerprint Index! All files will be verified with hashes in the next run.", e);
+        }
+    }
+
+    /**
+     * This method is used internally by {@link SyncManager} to record fingerprint of the downloaded file.
+     * Downloaded files are verified with a hash, there is no need to hash them again in the next run.
+     * @param index Index of the file.
+     */
+    private void recordFingerprint(int index) {
+        if (Objects.isNull(fingerprints)) return;
+        CDLInstance.ModFile mod = CDLInstanceData.files[index];
+        try {
+            fingerprints.record(mod, Path.of(context.workPath.toString(), mod.path));
+        } catch (Exception e) {
+            logger.logStackTrace("Failed recording fingerprint of \"" + mod.path + "\"! File will be verified with a hash in the next run.", e);
+        }
+    }
+
+    /**
+     * This method is used internally by {@link SyncManager} to decode the result of a verification task.
+     * @param Future Finished Future object from the executor.
+     * @throws NullPointerException when Future is null.
+     */
+    private void decodeVerificationResult(@NotNull Future<Integer[]> Future) {
+        Objects.requireNonNull(Future);
+        try {
+            Integer[] results = Future.get();
+            CDLInstance.ModFile mod = CDLInstanceData.files[results[0]];
+            Objects.requireNonNull(results, "Null value got while gathering verification results!");
+            if (!Objects.equals(results.length, 2)) {
+                throw new IllegalStateException("Results from the verification are not in correct schema! => " + Arrays.toString(results));
+            }
+            switch (results[1]) {
+                case 0 -> {
+                    logger.log("File \"" + mod.path + "\" has been verified successfully.");
+                    verified++;
                 }
-                switch (results[1]) {
-                    case 0 -> logger.log("File \"" + mod.path + "\" has been verified successfully.");
-                    case 1 -> {
-                        logger.log("File \"" + mod.path + "\" not found!");
-                        missing.add(results[0]);
-                    }
-                    case -1 -> {
-                        logger.warn("File \"" + mod.path + "\" is corrupted!");
-                        corrupted.add(results[0]);
-                    }
-                    default -> throw new IllegalStateException("Invalid value in the verification results! => " + Arrays.toString(results));
+                case 1 -> {
+                    logger.log("File \"" + mod.path + "\" not found!");
+                    missing.add(results[0]);
                 }
-            } catch (Exception e) {
-                if (Objects.equals(e.getClass(),ExecutionException.class)) {
-                    Throwable e2 = e.getCause();
-                    logger.logStackTrace("Exception found in the verification results!", e2.getCause());
-                    failedVerifications.add(Integer.parseInt(e2.getMessage()));
-                } else {
-                    throw new RuntimeException("Exception thrown while gathering results from the verification!", e);
+                case -1 -> {
+                    logger.warn("File \"" + mod.path + "\" is corrupted!");
+                    corrupted.add(results[0]);
                 }
+                default -> throw new IllegalStateException("Invalid value in the verification results! => " + Arrays.toString(results));
+            }
+        } catch (Exception e) {
+            if (Objects.equals(e.getClass(),ExecutionException.class)) {
+                Throwable e2 = e.getCause();
+                logger.logStackTrace("Exception found in the verification results!", e2.getCause());
+                failedVerifications.add(Integer.parseInt(e2.getMessage()));
+            } else {
+                throw new RuntimeException("Exception thrown while gathering results from the verification!", e);
             }
         }
     }
 
+    /**
+     * This method is used internally by {@link SyncManager} to get amount of the files being synchronized.
+     * @return Amount of the selected files, or of all files in the instance.
+     */
+    private int fileCount() {
+        return (Objects.isNull(selection))? CDLInstanceData.files.length: selection.size();
+    }
+
     /**
      * This method is used internally by {@link SyncManager} to print results of the verification and mod lookup.
      */
     private void printVerificationResults() {
-        if (CDLInstanceData.files.length - missing.size() > 0) {
+        if (fileCount() - missing.size() > 0) {
             logger.print(
-                (CDLInstanceData.files.length - missing.size() - failedDownloads.size()) + " out of " +
-                RandomUtils.intGrammar(CDLInstanceData.files.length - failedDownloads.size(), " mod", " mods", true) +
+                (fileCount() - missing.size() - failedDownloads.size()) + " out of " +
+                RandomUtils.intGrammar(fileCount() - failedDownloads.size(), " mod", " mods", true) +
                 " have been found on the hard drive!"
             );
 
@@ -196,7 +415,7 @@ public class SyncManager {
             }
 
             logger.print(
-                "> " + RandomUtils.intGrammar(CDLInstanceData.files.length - missing.size() - corrupted.size() - failedDownloads.size(), " mod", " mods", true) +
+                "> " + RandomUtils.intGrammar(fileCount() - missing.size() - corrupted.size() - failedDownloads.size(), " mod", " mods", true) +
                 " have been verified successfully."
             );
 
@@ -214,63 +433,176 @@ public class SyncManager {
     /**
      * This method is used internally by {@link SyncManager} to download any mods that are missing from the local installation of the instance passed to the constructor.
      * @throws InterruptedException when Executor is interrupted.
-     * @throws TimeoutException if the Executor doesn't finish before 24-hours pass.
+     * @throws TimeoutException if the Executor doesn't finish before the time limit for the synchronization.
      */
     private void downloadRequiredMods() throws InterruptedException, TimeoutException {
         HashSet<Integer> downloads = new HashSet<>(missing);
         downloads.addAll(corrupted);
-        HashSet<Callable<Integer[]>> downloadTasks = new HashSet<>();
+        CompletionService<Integer[]> downloadResults = new ExecutorCompletionService<>(downloadExecutor);
+        Set<Future<Integer[]>> pending = new HashSet<>();
         if (downloads.size() < 1) {
             return;
         }
 
         logger.print("Download process has been started!");
+        context.publish("download", null, downloads.size(), null);
 
-        downloads.forEach((index) -> {
+        for (int index: scheduleBySize(downloads)) {
             CDLInstance.ModFile mod = CDLInstanceData.files[index];
             logger.log("Downloading of " + mod.fileName + " has been requested.");
-            downloadTasks.add(CDLInstanceData.getDownloadTask(index));
-        });
-
-        List<Future<Integer[]>> downloadResults = new LinkedList<>(downloadExecutor.invokeAll(downloadTasks));
-        RandomUtils.waitForExecutor(downloadExecutor, 1, TimeUnit.DAYS, "Downloads take over a day!");
+            pending.add(downloadResults.submit(observed("downloaded", index, CDLInstanceData.getDownloadTask(index))));
+        }
+        recordQueueDepth("download", downloadExecutor);
 
-        decodeDownloadResults(downloadResults);
+        int initFailedDownloadsSize = failedDownloads.size();
+        SyncLifecycle.awaitCompletion(downloadResults, pending, this::decodeDownloadResult, "Downloads take longer than the time limit for the synchronization!");
+        printDownloadResults(initFailedDownloadsSize);
     }
 
     /**
-     * This method is used internally by {@link SyncManager} to decode results from the Download tasks.
-     * @param downloadResults A list with Future objects from the executor.
-     * @throws NullPointerException when downloadResults are null.
+     * This method is used internally by {@link SyncManager} to publish the results of the tasks as progress events of the synchronization.
+     * @param type Type of the event published when the task finishes.
+     * @param index Index of the file in the Instance.
+     * @param task Task to observe.
+     * @return Task publishing an event with its result.
      */
-    private void decodeDownloadResults(@NotNull List<Future<Integer[]>> downloadResults) {
-        int initFailedDownloadsSize = failedDownloads.size();
-        Objects.requireNonNull(downloadResults);
-        for (int i = downloadResults.size() - 1; i >= 0; i--) {
+    private @NotNull Callable<Integer[]> observed(String type, int index, @NotNull Callable<Integer[]> task) {
+        String path = CDLInstanceData.files[index].path;
+        String stage = (Objects.equals(type, "verified"))? "verification": "download";
+        ExecutorService executor = (Objects.equals(type, "verified"))? verificationExecutor: downloadExecutor;
+        return () -> {
+            recordQueueDepth(stage, executor);
+            long start = System.nanoTime();
             try {
-                Integer[] results = downloadResults.get(i).get();
-                if (!Objects.equals(results.length, 2)) {
-                    throw new IllegalStateException("Results from the downloads are not in correct schema! => " + Arrays.toString(results));
+                Integer[] results = task.call();
+                context.publish(type, path, results[1], null);
+                return results;
+            } catch (Exception e) {
+                context.publish("error", path, null, e.getMessage());
+                throw e;
+            } finally {
+                Metrics.TASK_DURATION.observeNanos(System.nanoTime() - start, stage);
+                recordQueueDepth(stage, executor);
+            }
+        };
+    }
+
+    /**
+     * This method is used internally by {@link SyncManager} to record the amount of tasks waiting in the queue of the executor in the {@link Metrics}.
+     * @param stage Name of the stage the executor is used for.
+     * @param executor Executor to check.
+     */
+    private static void recordQueueDepth(String stage, ExecutorService executor) {
+        if (executor instanceof ThreadPoolExecutor pool) Metrics.QUEUED_TASKS.set(pool.getQueue().size(), stage);
+    }
+
+    /**
+     * This method is used internally by {@link SyncManager} to determine the order in which tasks for specified files are submitted to the executors.
+     * Executors run the tasks in the order of submission, so the largest files start first and the small ones fill the remaining threads at the end,
+     * instead of a single large file started last holding up the entire synchronization.
+     * @param indexes Collection with indexes of the files in the Instance.
+     * @return {@link List} with the indexes, sorted from the largest file to the smallest one.
+     * @apiNote When Host Fairness is enabled, files in the same size class (with lengths up to 4x apart) are interleaved between hosts of their download URLs.
+     */
+    private @NotNull List<Integer> scheduleBySize(@NotNull Collection<Integer> indexes) {
+        Comparator<Integer> bySize = Comparator.comparingLong((Integer index) -> CDLInstanceData.files[index].fileLength).reversed().thenComparing(Comparator.naturalOrder());
+        List<Integer> ordered = new ArrayList<>(indexes);
+        ordered.sort(bySize);
+        if (!ARD.isHostFairnessActive() || ordered.size() < 3) return ordered;
+
+        List<Integer> scheduled = new ArrayList<>(ordered.size());
+        int start = 0;
+        while (start < ordered.size()) {
+            // Size classes are determined by the position of the highest bit, grouped by two.
+            int sizeClass = sizeClass(CDLInstanceData.files[ordered.get(start)].fileLength);
+            int end = start;
+            LinkedHashMap<String, LinkedList<Integer>> hosts = new LinkedHashMap<>();
+            while (end < ordered.size() && sizeClass(CDLInstanceData.files[ordered.get(end)].fileLength) == sizeClass) {
+                int index = ordered.get(end++);
+                hosts.computeIfAbsent(getHost(CDLInstanceData.files[index].downloadURL), (host) -> new LinkedList<>()).add(index);
+            }
+
+            while (!hosts.isEmpty()) {
+                Iterator<LinkedList<Integer>> queues = hosts.values().iterator();
+                while (queues.hasNext()) {
+                    LinkedList<Integer> queue = queues.next();
+                    scheduled.add(queue.removeFirst());
+                    if (queue.isEmpty()) queues.remove();
                 }
-                switch (results[1]) {
-                    case 0 -> logger.log("File \"" + CDLInstanceData.files[results[0]].path + "\" has been downloaded successfully.");
-                    case -1 -> {
-                        logger.log("File \"" + CDLInstanceData.files[results[0]].path + "\" has failed to download correctly!!");
-                        failedDownloads.add(results[0]);
-                    }
-                    default -> throw new IllegalStateException("Invalid value in the download results! => " + Arrays.toString(results));
+            }
+            start = end;
+        }
+        return scheduled;
+    }
+
+    /**
+     * This method is used internally by {@link SyncManager} to determine the order of the verification on rotational disks.
+     * Files are read in the order of their location on the disk (approximated by inode numbers), then their paths, to minimise seeks of the disk head.
+     * @param indexes Collection with indexes of the files in the Instance.
+     * @return {@link List} with the indexes, sorted by the location of the files.
+     */
+    private @NotNull List<Integer> scheduleByLocation(@NotNull Collection<Integer> indexes) {
+        Map<Integer, Long> locations = new HashMap<>();
+        for (int index: indexes) {
+            locations.put(index, StorageProfile.getLocationKey(Path.of(context.workPath.toString(), CDLInstanceData.files[index].getRelativePath())));
+        }
+        List<Integer> ordered = new ArrayList<>(indexes);
+        ordered.sort(Comparator.comparingLong((Integer index) -> locations.get(index)).thenComparing((Integer index) -> CDLInstanceData.files[index].getRelativePath()));
+        return ordered;
+    }
+
+    private static int sizeClass(long fileLength) {
+        return (64 - Long.numberOfLeadingZeros(Math.max(fileLength, 0))) / 2;
+    }
+
+    private static @NotNull String getHost(String url) {
+        try {
+            return Objects.requireNonNullElse(URI.create(url).getHost(), "");
+        } catch (Exception e) {
+            return "";
+        }
+    }
+
+    /**
+     * This method is used internally by {@link SyncManager} to decode the result of a Download task.
+     * @param Future Finished Future object from the executor.
+     * @throws NullPointerException when Future is null.
+     */
+    private void decodeDownloadResult(@NotNull Future<Integer[]> Future) {
+        Objects.requireNonNull(Future);
+        try {
+            Integer[] results = Future.get();
+            if (!Objects.equals(results.length, 2)) {
+                throw new IllegalStateException("Results from the downloads are not in correct schema! => " + Arrays.toString(results));
+            }
+            switch (results[1]) {
+                case 0 -> {
+                    logger.log("File \"" + CDLInstanceData.files[results[0]].path + "\" has been downloaded successfully.");
+                    downloaded++;
+                    recordFingerprint(results[0]);
                 }
-            } catch (Exception e) {
-                if (Objects.equals(e.getClass(),ExecutionException.class)) {
-                    Throwable e2 = e.getCause();
-                    logger.logStackTrace("Exception found in the download results!", e2.getCause());
-                    failedDownloads.add(Integer.parseInt(e2.getMessage().substring(0, e2.getMessage().indexOf(";")-1)));
-                } else {
-                    throw new RuntimeException("Exception thrown while gathering results from the downloads!", e);
+                case -1 -> {
+                    logger.log("File \"" + CDLInstanceData.files[results[0]].path + "\" has failed to download correctly!!");
+                    failedDownloads.add(results[0]);
                 }
+                default -> throw new IllegalStateException("Invalid value in the download results! => " + Arrays.toString(results));
+            }
+        } catch (Exception e) {
+            if (Objects.equals(e.getClass(),ExecutionException.class)) {
+                Throwable e2 = e.getCause();
+                logger.logStackTrace("Exception found in the download results!", e2.getCause());
+                failedDownloads.add(Integer.parseInt(e2.getMessage().substring(0, e2.getMessage().indexOf(";")-1)));
+            } else {
+                throw new RuntimeException("Exception thrown while gathering results from the downloads!", e);
             }
         }
+    }
 
+    /**
+     * This method is used internally by {@link SyncManager} to print results of the Download tasks.
+     * @param initFailedDownloadsSize Amount of the failed downloads before the download process has started.
+     */
+    private void printDownloadResults(int initFailedDownloadsSize) {
         logger.print(
             "Finished downloading process! " +
                 ((failedDownloads.size()-initFailedDownloadsSize > 0)?
@@ -292,12 +624,48 @@ public class SyncManager {
      * This method is used internally by {@link SyncManager} to remove any mods that are not present in the mod list of the instance specified in the constructor. Respects Blacklist from the Settings File.
      */
     private void removeRemovedMods() throws IOException {
+        for (Path File: findRemovedMods()) {
+            logger.log("Found removed mod " + File.getFileName() + "! Deleting...");
+            try {
+                FileUtils.delete(File);
+                removed.add(File.getFileName().toString());
+                context.publish("removed", "mods/" + File.getFileName(), null, null);
+            } catch (IOException e) {
+                logger.logStackTrace("Failed deleting " + File.getFileName() + "!", e);
+                failedRemovals.add(File.getFileName().toString());
+            }
+        }
+
+        if (removed.size() > 0) {
+            logger.print("> " + RandomUtils.intGrammar(removed.size(), " mod was", " mods were", true) + " removed!");
+        } else {
+            logger.print("> No mods were removed!");
+        }
+        System.out.println("---------------------------------------------------------------------");
+    }
+
+    /**
+     * This method is used internally by {@link SyncManager} to find any mods that are not present in the mod list of the instance specified in the constructor. Respects Blacklist from the Settings File.
+     * @return {@link List} with Paths to the mods designated to removal.
+     * @throws IOException when IO Exception occurs.
+     */
+    private @NotNull List<Path> findRemovedMods() throws IOException {
         logger.log("Looking for removed mods...");
-        try (Stream<Path> pathStream = Files.list(Path.of(WORKPATH.toString(), "mods"))) {
+        List<Path> removedMods = new LinkedList<>();
+        Path ModsFolder = Path.of(context.workPath.toString(), "mods");
+        if (Files.notExists(ModsFolder)) return removedMods;
+
+        try (Stream<Path> pathStream = Files.list(ModsFolder)) {
             pathStream.forEach(File -> {
                 String FileName = File.getFileName().toString();
+                // Data of the downloads stopped by cancelled sync, kept to resume them.
+                if (
+                    FileName.endsWith(NetworkingUtils.PART_EXTENSION) &&
+                    Arrays.stream(CDLInstanceData.files).anyMatch((mod) -> Objects.equals(mod.fileName + NetworkingUtils.PART_EXTENSION, FileName))
+                ) return;
                 if (Arrays.stream(CDLInstanceData.files).noneMatch((mod) -> Objects.equals(mod.fileName, FileName) && mod.path.startsWith("mods"))) {
-                    if (Files.exists(Path.of(CDLTemp.toString(), RandomUtils.removeCommonPart(WORKPATH.toAbsolutePath().toString(), File.toAbsolutePath().toString())))) return;
+                    if (Files.exists(Path.of(CDLTemp.toString(), RandomUtils.removeCommonPart(context.workPath.toAbsolutePath().toString(), File.toAbsolutePath().toString())))) return;
+                    if (Objects.nonNull(overrideFiles) && overrideFiles.contains("mods/" + FileName)) return;
 
                     int index = SettingsManager.ModBlackList.indexOf(FileName);
                     if (index >= 0) {
@@ -306,24 +674,11 @@ public class SyncManager {
                         return;
                     }
 
-                    logger.log("Found removed mod " + File.getFileName() + "! Deleting...");
-                    try {
-                        FileUtils.delete(File);
-                        removed.add(File.getFileName().toString());
-                    } catch (IOException e) {
-                        logger.logStackTrace("Failed deleting " + File.getFileName() + "!", e);
-                        failedRemovals.add(File.getFileName().toString());
-                    }
+                    removedMods.add(File);
                 }
             });
         }
-
-        if (removed.size() > 0) {
-            logger.print("> " + RandomUtils.intGrammar(removed.size(), " mod was", " mods were", true) + " removed!");
-        } else {
-            logger.print("> No mods were removed!");
-        }
-        System.out.println("---------------------------------------------------------------------");
+        return removedMods;
     }
 
     /**
@@ -336,15 +691,21 @@ public class SyncManager {
                 Path overrides = Path.of(CDLTemp.toString(), CDLInstanceData.modpackData.overrides);
                 if (Files.notExists(overrides)) throw new NoSuchFileException("No overrides folder in the CDLTemp!");
 
-                logger.log("Moving overrides content to the Working Directory...");
-                try (Stream<Path> dirListing = Files.list(overrides)) {
-                    dirListing.forEach((File) -> {
-                        try {
-                            FileUtils.move(File, WORKPATH, true);
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
-                    });
+                logger.log("Applying overrides content to the Working Directory...");
+                try {
+                    FileUtils.OverlayReport report = FileUtils.overlay(overrides, context.workPath);
+                    String summary =
+                        RandomUtils.intGrammar((int) report.skipped, " file", " files", true) + " unchanged, " +
+                        RandomUtils.intGrammar((int) report.updated, " file", " files", true) + " updated, " +
+                        RandomUtils.intGrammar((int) report.created, " new file", " new files", true) + " and " +
+                        RandomUtils.intGrammar((int) report.failed, " failure", " failures", true) + ".";
+                    if (report.failed > 0) {
+                        logger.print("Overrides were only partially applied! " + summary, 2);
+                        logger.print("Files that failed are listed in the log file. You will have to move them manually from the zip file or try again.", 2);
+                    } else {
+                        logger.print("Overrides applied! " + summary);
+                    }
+                    System.out.println("---------------------------------------------------------------------");
                 } catch (Exception e)  {
                     logger.logStackTrace("Exception thrown while moving override's content to the root directory!", e);
                     logger.print("Failed to move override's content to the root directory! You will have to do that manually from the zip file or try again.",3);
@@ -353,7 +714,7 @@ public class SyncManager {
 
                 logger.log("Deleting CDLTemp folder...");
 
-                FileUtils.delete(CDLTemp);
+                FileUtils.delete(CDLTemp, true);
                 logger.log("Cleanup completed.");
             }
         } catch (Exception e) {
@@ -363,10 +724,59 @@ public class SyncManager {
         }
     }
 
+    /**
+     * This method is used internally by {@link SyncManager} to clean up the working directory after the synchronization was cancelled.
+     * Overrides are not applied, as the synchronization didn't finish. Partially downloaded files are kept, to resume them in the next run.
+     */
+    private void cleanupCancelled() {
+        MirrorStatistics.logSummary();
+        try {
+            if (Files.exists(CDLTemp)) {
+                logger.log("Deleting CDLTemp folder after cancelled synchronization...");
+                FileUtils.delete(CDLTemp, true);
+            }
+        } catch (Exception e) {
+            logger.logStackTrace("Failed to delete CDLTemp after cancelled synchronization!", e);
+        }
+    }
+
+    /**
+     * This method is used internally by {@link SyncManager} to gather Synchronization statistics printed by {@link SyncManager#printStatistics()}.
+     * @return {@link SyncStatistics} with the results of the synchronization.
+     */
+    private @NotNull SyncStatistics collectStatistics() {
+        SyncStatistics statistics = new SyncStatistics();
+        statistics.instanceName = CDLInstanceData.instanceName;
+        statistics.modpackVersion = CDLInstanceData.modpackData.version;
+        statistics.workingDirectory = context.workPath.toAbsolutePath().toString();
+        statistics.finished = Instant.now().toString();
+        statistics.files = CDLInstanceData.files.length;
+        statistics.verified = verified;
+        statistics.missing = missing.size();
+        statistics.corrupted = corrupted.size();
+        statistics.downloaded = downloaded;
+        statistics.removed = removed.size();
+        statistics.scrubbed = scrubbed.size();
+        IgnoredVerification.forEach((index) -> statistics.ignoredVerification.add(CDLInstanceData.files[index].fileName));
+        IgnoredRemoval.forEach((index) -> statistics.ignoredRemoval.add(SettingsManager.ModBlackList.get(index)));
+        failedVerifications.forEach((index) -> statistics.failedVerifications.add(CDLInstanceData.files[index].fileName));
+        failedDownloads.forEach((index) -> statistics.failedDownloads.add(CDLInstanceData.files[index].fileName));
+        statistics.failedRemovals.addAll(failedRemovals);
+        statistics.dataGatheringWarnings = CFManifest.DataGatheringWarnings.size();
+        statistics.peakHeapBytes = MemoryStatistics.getPeakHeap();
+        statistics.garbageCollections = MemoryStatistics.getCollections();
+        statistics.garbageCollectionMillis = MemoryStatistics.getCollectionTime();
+        return statistics;
+    }
+
     /**
      * This method is used internally by {@link SyncManager} to print Synchronization statistics, like failed download tasks.
      */
     private void printStatistics() {
+        MirrorStatistics.logSummary();
+        MemoryStatistics.logSummary();
+        Digest.logSummary();
+
         if (IgnoredRemoval.size() > 0 || IgnoredVerification.size() > 0) {
             logger.print("Ignored mods found in the config file! (" + RandomUtils.intGrammar(SettingsManager.ModBlackList.size(), " file)", " files)", true), 1);
             logger.log("Mods contained in the blacklist:");
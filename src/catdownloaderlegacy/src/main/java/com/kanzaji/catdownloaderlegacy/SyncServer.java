@@ -0,0 +1,413 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy;
+
+import com.kanzaji.catdownloaderlegacy.data.SyncEvent;
+import com.kanzaji.catdownloaderlegacy.data.SyncPlan;
+import com.kanzaji.catdownloaderlegacy.data.SyncStatistics;
+import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+import com.kanzaji.catdownloaderlegacy.utils.Metrics;
+import com.kanzaji.catdownloaderlegacy.utils.SyncLifecycle;
+import com.kanzaji.catdownloaderlegacy.utils.JsonUtils;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SyncServer is a class used to run the app as a long-running process, controlled by a small HTTP API on the loopback interface.
+ * Synchronizations are queued and run one after another, reusing the warm JVM of the app.
+ * <h3>Endpoints:</h3>
+ * <ul>
+ *     <li>{@code POST /sync?path=<working directory>} - Queues synchronization of the instance. Path can also be passed in the body. Returns the job.</li>
+ *     <li>{@code GET /sync} - Returns all known jobs.</li>
+ *     <li>{@code GET /sync/<id>} - Returns the job, with the statistics (or the plan in the Dry Run mode) when it's finished.</li>
+ *     <li>{@code GET /sync/<id>/events} - Streams progress events of the job as Server-Sent Events, until it's finished.</li>
+ *     <li>{@code GET /metrics} - Returns the {@link Metrics} of all synchronizations in the OpenMetrics text format.</li>
+ * </ul>
+ * @see SyncServer#run()
+ */
+public class SyncServer {
+    private static final LoggerCustom logger = new LoggerCustom("Sync Server");
+    private static final ArgumentDecoder ARD = ArgumentDecoder.getInstance();
+    private static final Gson gson = JsonUtils.getGson();
+    /**
+     * Amount of finished jobs kept for the API.
+     */
+    private static final int MAX_FINISHED_JOBS = 100;
+    /**
+     * Amount of the latest progress events kept for each job. Clients connecting later, or falling behind, skip the older events.
+     */
+    private static final int MAX_JOB_EVENTS = 1000;
+    /**
+     * Time after which comment is sent to the idle event stream, in milliseconds.
+     */
+    private static final int KEEP_ALIVE_INTERVAL = 15000;
+    private final Map<Integer, SyncJob> jobs = new LinkedHashMap<>();
+    private final AtomicInteger lastId = new AtomicInteger();
+    private final ExecutorService jobExecutor = Executors.newSingleThreadExecutor();
+    private HttpServer server;
+
+    private SyncServer() {}
+
+    /**
+     * Used to start the HTTP API and run queued synchronizations, until the shutdown of the app is requested.
+     * @throws IOException when the server can't be started, for example when the port is already in use.
+     * @throws InterruptedException when current thread is interrupted while waiting.
+     */
+    public static void run() throws IOException, InterruptedException {
+        SyncServer syncServer = new SyncServer();
+        syncServer.start();
+        // Registers the shutdown hook, so the running synchronization can save its progress.
+        SyncLifecycle.begin();
+        SyncLifecycle.awaitShutdown();
+        syncServer.stop();
+    }
+
+    /**
+     * Used to start the HTTP Server.
+     * @throws IOException when the server can't be started.
+     */
+    private void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), ARD.getServerPort()), 0);
+        server.createContext("/sync", this::handleSync);
+        server.createContext("/metrics", SyncServer::handleMetrics);
+        // Event streams hold their thread until the job is finished.
+        server.setExecutor(Executors.newCachedThreadPool((runnable) -> {
+            Thread thread = new Thread(runnable, "CDL-Server");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.start();
+        System.out.println("---------------------------------------------------------------------");
+        logger.print("HTTP API is listening at http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/sync");
+        System.out.println("---------------------------------------------------------------------");
+    }
+
+    /**
+     * Used to stop the HTTP Server, and wait for the running synchronization to save its progress.
+     * @throws InterruptedException when current thread is interrupted while waiting.
+     */
+    private void stop() throws InterruptedException {
+        logger.print("Stopping the HTTP API...");
+        server.stop(0);
+        jobExecutor.shutdownNow();
+        if (!jobExecutor.awaitTermination(SyncLifecycle.SHUTDOWN_GRACE_PERIOD - 1, TimeUnit.SECONDS)) {
+            logger.warn("Running synchronization didn't stop in time!");
+        }
+    }
+
+    /**
+     * Handler for the {@code /sync} context.
+     * @param exchange {@link HttpExchange} to handle.
+     */
+    private void handleSync(@NotNull HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String[] path = exchange.getRequestURI().getPath().substring("/sync".length()).split("/");
+            List<String> segments = Arrays.stream(path).filter((segment) -> !segment.isEmpty()).toList();
+            String method = exchange.getRequestMethod();
+
+            if (segments.isEmpty()) {
+                switch (method) {
+                    case "POST" -> enqueue(exchange);
+                    case "GET" -> {
+                        List<SyncJob> listed;
+                        synchronized (jobs) {
+                            listed = new ArrayList<>(jobs.values());
+                        }
+                        // State of each job is read under its own lock, the same as for a single job.
+                        JsonArray snapshot = new JsonArray();
+                        for (SyncJob job: listed) {
+                            synchronized (job) {
+                                snapshot.add(gson.toJsonTree(job));
+                            }
+                        }
+                        sendJson(exchange, 200, gson.toJson(snapshot));
+                    }
+                    default -> sendError(exchange, 405, "Method not allowed.");
+                }
+                return;
+            }
+
+            if (!Objects.equals(method, "GET")) {
+                sendError(exchange, 405, "Method not allowed.");
+                return;
+            }
+
+            SyncJob job;
+            try {
+                synchronized (jobs) {
+                    job = jobs.get(Integer.parseInt(segments.get(0)));
+                }
+            } catch (NumberFormatException e) {
+                job = null;
+            }
+            if (Objects.isNull(job)) {
+                sendError(exchange, 404, "Job not found.");
+                return;
+            }
+
+            if (segments.size() == 1) {
+                synchronized (job) {
+                    sendJson(exchange, 200, gson.toJson(job));
+                }
+            } else if (segments.size() == 2 && Objects.equals(segments.get(1), "events")) {
+                streamEvents(exchange, job);
+            } else {
+                sendError(exchange, 404, "Unknown endpoint.");
+            }
+        } catch (Exception e) {
+            logger.logStackTrace("Exception thrown while handling the request!", e);
+        }
+    }
+
+    /**
+     * Used to queue synchronization of the instance from the request.
+     * @param exchange {@link HttpExchange} with working directory of the instance in the {@code path} parameter or in the body.
+     */
+    private void enqueue(@NotNull HttpExchange exchange) throws IOException {
+        String workingDirectory = getQueryParameter(exchange, "path");
+        if (Objects.isNull(workingDirectory)) workingDirectory = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8).trim();
+        if (workingDirectory.isEmpty()) {
+            sendError(exchange, 400, "Working directory is missing!");
+            return;
+        }
+
+        Path workPath = Path.of(workingDirectory).toAbsolutePath().normalize();
+        if (!Files.isDirectory(workPath)) {
+            sendError(exchange, 400, "Working directory \"" + workPath + "\" doesn't exist!");
+            return;
+        }
+
+        SyncJob job = new SyncJob(lastId.incrementAndGet(), workPath);
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+            pruneJobs();
+        }
+        jobExecutor.submit(() -> runJob(job));
+        logger.log("Synchronization of \"" + workPath + "\" has been queued as job " + job.id + ".");
+
+        synchronized (job) {
+            sendJson(exchange, 202, gson.toJson(job));
+        }
+    }
+
+    /**
+     * Used to run synchronization of the job. Called from the job executor, so only one synchronization runs at once.
+     * @param job {@link SyncJob} to run.
+     */
+    private void runJob(@NotNull SyncJob job) {
+        if (!SyncLifecycle.reset()) {
+            job.finish("skipped", 130);
+            return;
+        }
+        job.setStatus("running");
+
+        System.out.println("---------------------------------------------------------------------");
+        logger.print("Synchronizing instance \"" + job.workingDirectory + "\" (job " + job.id + ")...");
+        SyncContext context = SyncContext.createForBatch(Path.of(job.workingDirectory));
+        context.addListener(job::addEvent);
+
+        int exitCode;
+        try {
+            exitCode = CatDownloader.syncInstance(context, null, null);
+        } catch (Exception | Error e) {
+            logger.logStackTrace("Exception thrown while synchronizing instance \"" + job.workingDirectory + "\"!", e);
+            job.addEvent(new SyncEvent("error", null, null, e.toString()));
+            exitCode = 1;
+        }
+
+        synchronized (job) {
+            job.statistics = context.statistics;
+            job.plan = context.plan;
+        }
+        job.finish("finished", exitCode);
+        logger.print("Job " + job.id + " finished with exit code " + exitCode + ".");
+    }
+
+    /**
+     * Used to stream progress events of the job as Server-Sent Events, until the job is finished or the client disconnects.
+     * @param exchange {@link HttpExchange} to stream the events to.
+     * @param job {@link SyncJob} to stream the events from.
+     */
+    private void streamEvents(@NotNull HttpExchange exchange, @NotNull SyncJob job) throws IOException, InterruptedException {
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+
+        OutputStream output = exchange.getResponseBody();
+        long sent = 0;
+        while (true) {
+            List<SyncEvent> pending;
+            boolean done;
+            synchronized (job) {
+                if (sent == job.eventCount && !job.isDone()) job.wait(KEEP_ALIVE_INTERVAL);
+                pending = job.getEventsSince(sent);
+                sent = job.eventCount;
+                done = job.isDone();
+            }
+
+            if (pending.isEmpty() && !done) {
+                output.write(": keep-alive\n\n".getBytes(StandardCharsets.UTF_8));
+            }
+            for (SyncEvent event: pending) {
+                output.write(("event: " + event.type + "\ndata: " + event + "\n\n").getBytes(StandardCharsets.UTF_8));
+            }
+            output.flush();
+            if (done) return;
+        }
+    }
+
+    /**
+     * Used to remove the oldest finished jobs, when there are more than {@link SyncServer#MAX_FINISHED_JOBS} of them.
+     */
+    private void pruneJobs() {
+        long finished = jobs.values().stream().filter(SyncJob::isDone).count();
+        Iterator<SyncJob> iterator = jobs.values().iterator();
+        while (finished > MAX_FINISHED_JOBS && iterator.hasNext()) {
+            if (iterator.next().isDone()) {
+                iterator.remove();
+                finished--;
+            }
+        }
+    }
+
+    private static String getQueryParameter(@NotNull HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (Objects.isNull(query)) return null;
+        for (String parameter: query.split("&")) {
+            String[] pair = parameter.split("=", 2);
+            if (Objects.equals(URLDecoder.decode(pair[0], StandardCharsets.UTF_8), name)) {
+                return (pair.length > 1)? URLDecoder.decode(pair[1], StandardCharsets.UTF_8): "";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Handler for the {@code /metrics} context.
+     * @param exchange {@link HttpExchange} to handle.
+     */
+    private static void handleMetrics(@NotNull HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!Objects.equals(exchange.getRequestMethod(), "GET")) {
+                sendError(exchange, 405, "Method not allowed.");
+                return;
+            }
+            byte[] body = Metrics.render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", Metrics.CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    private static void sendJson(@NotNull HttpExchange exchange, int code, @NotNull String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(code, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static void sendError(@NotNull HttpExchange exchange, int code, String message) throws IOException {
+        Map<String, String> error = new LinkedHashMap<>();
+        error.put("error", message);
+        sendJson(exchange, code, gson.toJson(error));
+    }
+
+    /**
+     * This class holds the state of the synchronization queued by the API. Serialized as the response of the API.
+     */
+    @SuppressWarnings("unused")
+    private static class SyncJob {
+        private final int id;
+        private final String workingDirectory;
+        private final String queued = Instant.now().toString();
+        private String status = "queued";
+        private Integer exitCode = null;
+        private SyncStatistics statistics = null;
+        private SyncPlan plan = null;
+        /**
+         * Latest {@link SyncServer#MAX_JOB_EVENTS} events of the job.
+         */
+        private final transient ArrayDeque<SyncEvent> events = new ArrayDeque<>();
+        /**
+         * Amount of all events added to the job, including the ones dropped from the buffer.
+         */
+        private transient long eventCount = 0;
+
+        private SyncJob(int id, @NotNull Path workPath) {
+            this.id = id;
+            this.workingDirectory = workPath.toString();
+        }
+
+        private synchronized void addEvent(SyncEvent event) {
+            this.events.addLast(event);
+            if (this.events.size() > MAX_JOB_EVENTS) this.events.removeFirst();
+            this.eventCount++;
+            this.notifyAll();
+        }
+
+        /**
+         * @param index Amount of the events already received by the client.
+         * @return Events added after the specified amount, without the ones already dropped from the buffer.
+         */
+        private synchronized @NotNull List<SyncEvent> getEventsSince(long index) {
+            long skip = index - (this.eventCount - this.events.size());
+            return this.events.stream().skip(Math.max(0, skip)).toList();
+        }
+
+        private synchronized void setStatus(String status) {
+            this.status = status;
+        }
+
+        private synchronized void finish(String status, int exitCode) {
+            this.status = status;
+            this.exitCode = exitCode;
+            this.notifyAll();
+        }
+
+        private synchronized boolean isDone() {
+            return Objects.nonNull(this.exitCode);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy;
+
+import com.kanzaji.catdownloaderlegacy.data.CDLInstance;
+import com.kanzaji.catdownloaderlegacy.data.InstanceDiff;
+import com.kanzaji.catdownloaderlegacy.exceptions.SyncAbortedException;
+import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+import com.kanzaji.catdownloaderlegacy.utils.NetworkingUtils;
+import com.kanzaji.catdownloaderlegacy.utils.RandomUtils;
+import com.kanzaji.catdownloaderlegacy.utils.SyncLifecycle;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * SyncWatcher is a class used to keep the app running after the synchronization, and re-synchronize the instance when its files change.
+ * <ul>
+ *     <li>When the manifest file changes, it's loaded again and only the files that changed since the last synchronization are verified or downloaded.</li>
+ *     <li>When a mod from the instance is deleted or modified in the "mods" folder, it's verified and repaired.</li>
+ * </ul>
+ * @see SyncWatcher#run(SyncContext)
+ */
+public class SyncWatcher {
+    private static final LoggerCustom logger = new LoggerCustom("Sync Watcher");
+    /**
+     * Time without new events, after which the changes are synchronized, in milliseconds.
+     * Editors and Git often write the files in multiple steps.
+     */
+    private static final int DEBOUNCE_TIME = 250;
+    private static final Set<String> manifestFiles = Set.of("modrinth.index.json", "minecraftinstance.json", "manifest.json");
+    private final WatchService watchService;
+    private final Path workPath;
+    private final Path modsPath;
+    private SyncContext current;
+    private WatchKey modsKey = null;
+
+    private SyncWatcher(@NotNull SyncContext context, @NotNull WatchService watchService) {
+        this.current = context;
+        this.watchService = watchService;
+        this.workPath = context.workPath.toAbsolutePath();
+        this.modsPath = Path.of(this.workPath.toString(), "mods");
+    }
+
+    /**
+     * Used to watch the working directory of the instance and re-synchronize it on changes, until the shutdown of the app is requested.
+     * @param context {@link SyncContext} of the last synchronization of the instance.
+     * @throws IOException when the working directory can't be watched.
+     * @throws InterruptedException when current thread is interrupted while waiting.
+     */
+    public static void run(@NotNull SyncContext context) throws IOException, InterruptedException {
+        Objects.requireNonNull(context);
+        // Registers the shutdown hook, if the first synchronization didn't start.
+        SyncLifecycle.begin();
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            new SyncWatcher(context, watchService).watch();
+        }
+    }
+
+    /**
+     * Main loop of the watcher.
+     */
+    private void watch() throws IOException, InterruptedException {
+        workPath.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        registerMods();
+
+        System.out.println("---------------------------------------------------------------------");
+        logger.print("Watching \"" + workPath + "\" for changes of the manifest and the mods. Press Ctrl-C to stop.");
+
+        while (!SyncLifecycle.isShutdownRequested()) {
+            WatchKey key = watchService.poll(500, TimeUnit.MILLISECONDS);
+            if (Objects.isNull(key)) continue;
+
+            Changes changes = new Changes();
+            do {
+                collect(key, changes);
+            } while (Objects.nonNull(key = watchService.poll(DEBOUNCE_TIME, TimeUnit.MILLISECONDS)));
+
+            if (!changes.manifest && changes.mods.isEmpty()) continue;
+            if (!SyncLifecycle.reset()) break;
+
+            try {
+                if (changes.manifest) {
+                    resyncManifest();
+                } else {
+                    repairMods(changes.mods);
+                }
+            } catch (SyncAbortedException e) {
+                logger.log("Synchronization of the changes has been aborted: " + e.getMessage());
+            } catch (Exception e) {
+                System.out.println("Synchronization of the changes failed! More details are in the log file at \"" + logger.getLogPath() + "\".");
+                logger.logStackTrace("Exception thrown while synchronizing the changes!", e);
+            }
+
+            // Events caused by the synchronization itself are not changes made by the user.
+            drain();
+            if (!SyncLifecycle.isShutdownRequested()) logger.print("Watching for changes...");
+        }
+    }
+
+    /**
+     * Used to collect changes from the events of the WatchKey.
+     * @param key {@link WatchKey} with pending events.
+     * @param changes {@link Changes} to add the changes to.
+     */
+    private void collect(@NotNull WatchKey key, @NotNull Changes changes) throws IOException {
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event: key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                // Some events were lost, so the entire manifest has to be compared again.
+                changes.manifest = true;
+                continue;
+            }
+
+            String fileName = event.context().toString();
+            if (directory.equals(workPath)) {
+                if (manifestFiles.contains(fileName) || fileName.endsWith(".mrpack")) {
+                    logger.log("Manifest file \"" + fileName + "\" has changed.");
+                    changes.manifest = true;
+                } else if (Objects.equals(fileName, "mods") && event.kind() == ENTRY_CREATE) {
+                    registerMods();
+                }
+            } else if (directory.equals(modsPath) && !fileName.endsWith(NetworkingUtils.PART_EXTENSION)) {
+                logger.log("File \"mods/" + fileName + "\" has changed.");
+                changes.mods.add(fileName);
+            }
+        }
+        if (!key.reset() && key == modsKey) modsKey = null;
+    }
+
+    /**
+     * Used to discard all pending events.
+     */
+    private void drain() {
+        WatchKey key;
+        while (Objects.nonNull(key = watchService.poll())) {
+            key.pollEvents();
+            if (!key.reset() && key == modsKey) modsKey = null;
+        }
+    }
+
+    /**
+     * Used to start watching the "mods" folder, if it exists and isn't watched already.
+     */
+    private void registerMods() throws IOException {
+        if (Objects.nonNull(modsKey) || !Files.isDirectory(modsPath)) return;
+        modsKey = modsPath.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+    }
+
+    /**
+     * Used to load the changed manifest file, and synchronize the files that changed since the last synchronization.
+     */
+    private void resyncManifest() throws Exception {
+        System.out.println("---------------------------------------------------------------------");
+        logger.print("Manifest file has changed! Loading the changes...");
+        SyncContext next = new SyncContext(current.workPath, current.cacheFile, current.planFile);
+        CatDownloader.prepareInstance(next);
+
+        InstanceDiff diff = next.instance.diff(current.instance);
+        diff.carryForwardHashes();
+        diff.metadataChanges.forEach((change) -> logger.print("> Changed " + change));
+        Set<Integer> changed = diff.getModifiedIndexes();
+        logger.print("Changes since the last synchronization: " + diff + ".");
+
+        current = next;
+        // CF-Pack mode gathers the data of the files at the verification, so they can't be compared before it.
+        synchronize((next.isPackMode())? null: changed);
+        registerMods();
+    }
+
+    /**
+     * Used to repair mods of the instance that were modified or deleted in the "mods" folder.
+     * @param fileNames {@link Set} with names of the changed files in the "mods" folder.
+     */
+    private void repairMods(@NotNull Set<String> fileNames) throws Exception {
+        if (Objects.isNull(current.instance.files)) return;
+        Set<Integer> changed = new HashSet<>();
+        for (int index = 0; index < current.instance.files.length; index++) {
+            CDLInstance.ModFile mod = current.instance.files[index];
+            if (fileNames.contains(mod.fileName) && Objects.equals(mod.getRelativePath(), "mods/" + mod.fileName)) changed.add(index);
+        }
+
+        if (changed.isEmpty()) {
+            logger.log("Changed files in the \"mods\" folder are not part of the instance. Skipping.");
+            return;
+        }
+
+        System.out.println("---------------------------------------------------------------------");
+        logger.print(RandomUtils.intGrammar(changed.size(), " mod has", " mods have", true) + " been modified or removed! Repairing...");
+        synchronize(changed);
+    }
+
+    /**
+     * Used to synchronize the selected files of the current instance.
+     * @param selection {@link Set} with indexes of the files to synchronize, or null for all files.
+     */
+    private void synchronize(Set<Integer> selection) throws Exception {
+        SyncLifecycle.begin();
+        try {
+            new SyncManager(current).runSync(selection);
+            CatDownloader.createCacheFile(current);
+        } catch (CancellationException | TimeoutException e) {
+            System.out.println("---------------------------------------------------------------------");
+            logger.print("Synchronization has been stopped! (" + ((e instanceof TimeoutException)? e.getMessage(): SyncLifecycle.getCancelReason()) + ")", 2);
+            CatDownloader.createCacheFile(current);
+        }
+    }
+
+    /**
+     * This class holds changes collected from the events.
+     */
+    private static class Changes {
+        private boolean manifest = false;
+        private final Set<String> mods = new HashSet<>();
+    }
+}
@@ -26,6 +26,7 @@ package com.kanzaji.catdownloaderlegacy;
 
 import com.kanzaji.catdownloaderlegacy.data.Settings;
 import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+import com.kanzaji.catdownloaderlegacy.guis.GUIUtils;
 import com.kanzaji.catdownloaderlegacy.guis.UpdaterGUI;
 import com.kanzaji.catdownloaderlegacy.utils.*;
 
@@ -37,11 +38,9 @@ import org.jetbrains.annotations.NotNull;
 import com.google.gson.Gson;
 
 import javax.net.ssl.HttpsURLConnection;
-import java.io.BufferedReader;
+import java.awt.GraphicsEnvironment;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
@@ -49,6 +48,9 @@ import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import javax.swing.*;
 
 
@@ -57,24 +59,36 @@ import javax.swing.*;
  */
 public class Updater {
     private static final String GithubAPIUrl = "https://api.github.com/repos/" + REPOSITORY.replaceFirst("https://github.com/", "");
-    private static final Gson gson = new Gson();
+    private static final Gson gson = JsonUtils.getCompactGson();
     private static final LoggerCustom logger = new LoggerCustom("Updater");
     private static final ArgumentDecoder ARD = ArgumentDecoder.getInstance();
     /**
-     * Determines if user has already selected any option from the UpdaterGUI prompt.
+     * Connect and Read timeout (in milliseconds) of the GitHub API request.
      */
-    public static boolean actionSelected = false;
+    private static final int UPDATE_CHECK_TIMEOUT = 5000;
+    /**
+     * Time (in milliseconds) for which the result of the update check is reused from the cache file.
+     */
+    private static final long UPDATE_CHECK_TTL = TimeUnit.HOURS.toMillis(6);
+    /**
+     * Counted down when the user selects any option from the UpdaterGUI prompt.
+     */
+    private static final CountDownLatch actionSelected = new CountDownLatch(1);
     /**
      * Determines if the user has chosen to update the app.
      */
-    public static boolean shouldUpdate = false;
+    private static volatile boolean shouldUpdate = false;
+    /**
+     * Update check running in the background, started with {@link Updater#startUpdateCheck()}.
+     */
+    private static CompletableFuture<UpdaterData.releaseData> updateCheck = null;
 
     /**
-     * This method is used to Check for Updates, and if required, update the app!<br><br>
-     * It calls GitHub API for gathering required information about the latest release, and if required, sets up the GUI.
-     * @throws java.net.MalformedURLException when GithubAPIUrl is not correct.
+     * This method is used to start the check for updates in the background, so it doesn't delay the synchronization.<br>
+     * Result of the check is cached in the Cache directory, so GitHub API is called at most once per {@link Updater#UPDATE_CHECK_TTL}.
+     * @see Updater#checkForUpdates()
      */
-    public static void checkForUpdates() throws IOException {
+    public static void startUpdateCheck() {
         if (!ARD.isUpdaterActive()) {
             logger.warn("Updater is disabled! Checking for updates is not possible.");
             return;
@@ -85,47 +99,128 @@ public class Updater {
             return;
         }
 
-        logger.log("Checking for app updates...");
+        logger.log("Checking for app updates in the background...");
+        updateCheck = CompletableFuture.supplyAsync(() -> {
+            try {
+                UpdaterData.releaseData responseData = getLatestRelease();
+                if (compareVersions(VERSION, responseData.tag_name)) {
+                    logger.log("App is updated! Running version " + VERSION + " when latest version is " + responseData.tag_name);
+                    return null;
+                }
+                logger.warn("New version of the app found!");
+                logger.warn("Current version: " + VERSION);
+                logger.warn("Latest version: " + responseData.tag_name);
+                return responseData;
+            } catch (Exception e) {
+                logger.logStackTrace("Exception thrown while trying to fetch update data!", e);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * This method is used to get the result of the update check started by {@link Updater#startUpdateCheck()}, and if required, update the app!<br><br>
+     * When a new version is found, it sets up the GUI and waits for the user to select an option.
+     * In headless environments, only information about the new version is printed.
+     */
+    public static void checkForUpdates() {
+        if (Objects.isNull(updateCheck)) return;
+
+        UpdaterData.releaseData responseData;
+        try {
+            responseData = updateCheck.get(UPDATE_CHECK_TIMEOUT * 2L, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            logger.warn("Check for updates didn't finish in time! Skipping it for this session.");
+            updateCheck.cancel(true);
+            return;
+        } finally {
+            updateCheck = null;
+        }
+
+        if (Objects.isNull(responseData)) return;
+
+        if (GraphicsEnvironment.isHeadless()) {
+            logger.print("New version of the app is available! (" + VERSION + " -> " + responseData.tag_name + ") Download it from " + responseData.html_url, 1);
+            return;
+        }
+
+        logger.warn("Getting GUI ready for informing the user about the update...");
+        try {
+            GUIUtils.setLookAndFeel();
+            UpdaterGUI.startUpdateGUI();
+            UpdaterGUI.setUpdateVersion(VERSION, responseData.tag_name);
+            UpdaterGUI.setChangelogText(responseData.body.replaceAll("###", " - ").replaceAll("\\*\\*", ""));
+            UpdaterGUI.setupButtons();
+            actionSelected.await();
+        } catch (Exception e) {
+            logger.logStackTrace("Exception thrown while waiting for the user to select an update option!", e);
+            return;
+        }
+
+        if (shouldUpdate) installUpdate(responseData);
+        logger.warn("Update has been declined! Going back to the execution of the app.");
+    }
+
+    /**
+     * This method is used by the UpdaterGUI to pass the option selected by the user.
+     * @param update {@code true} if the user has chosen to update the app.
+     */
+    public static void selectAction(boolean update) {
+        shouldUpdate = update;
+        actionSelected.countDown();
+    }
+
+    /**
+     * This method is used to get information about the latest release, either from the cache file, or from the GitHub API.
+     * @return {@link UpdaterData.releaseData} of the latest release.
+     * @throws IOException when IO Operation or the request fails.
+     * @throws NullPointerException when GitHub API returned null data in required fields.
+     */
+    private static UpdaterData.@NotNull releaseData getLatestRelease() throws IOException {
+        Path cacheFile = Path.of(ARD.getCachePath(), "CDL-Update-Check.json");
+        if (Files.exists(cacheFile) && System.currentTimeMillis() - Files.getLastModifiedTime(cacheFile).toMillis() < UPDATE_CHECK_TTL) {
+            try {
+                UpdaterData.releaseData cachedData = gson.fromJson(Files.readString(cacheFile), UpdaterData.releaseData.class);
+                if (isValid(cachedData)) {
+                    logger.log("Using cached update data from " + cacheFile.toAbsolutePath());
+                    return cachedData;
+                }
+            } catch (Exception e) {
+                logger.logStackTrace("Failed to read cached update data! Fetching it from GitHub API...", e);
+            }
+        }
+
         // Getting the latest version from the GitHub API!
-        // This has... weird rate-limit. Might cause issues, but I doubt someone is going to run this app like... over 100 times in an hour. And if so, it's going to update a bit later, that's it.
+        // This has... weird rate-limit. Result is cached for a few hours, so it should not be an issue anymore.
         HttpsURLConnection response = (HttpsURLConnection) new URL(GithubAPIUrl + "/releases/latest").openConnection();
+        response.setConnectTimeout(UPDATE_CHECK_TIMEOUT);
+        response.setReadTimeout(UPDATE_CHECK_TIMEOUT);
         response.setRequestProperty("Accept", "application/vnd.github+json");
         response.setRequestProperty("X-GitHub-Api-Version", "2022-11-28");
 
-        try (BufferedReader in = new BufferedReader(new InputStreamReader(response.getInputStream(), StandardCharsets.UTF_8))) {
-            UpdaterData.releaseData responseData = gson.fromJson(in, UpdaterData.releaseData.class);
-            if (!Objects.isNull(responseData)) {
-                if (Objects.isNull(responseData.tag_name) || Objects.isNull(responseData.html_url) || Objects.isNull(responseData.published_at) || Objects.isNull(responseData.assets)) {
-                    throw new NullPointerException("Null data in required fields returned from the API!\n" + responseData);
-                }
+        // Unchanged release is answered with 304 by GitHub, which doesn't count against the rate-limit.
+        UpdaterData.releaseData responseData = gson.fromJson(HttpCache.getString(response), UpdaterData.releaseData.class);
 
-                if (compareVersions(VERSION, responseData.tag_name)) {
-                    logger.log("App is updated! Running version " + VERSION + " when latest version is " + responseData.tag_name);
-                } else {
-                    logger.warn("New version of the app found! Getting GUI ready for informing the user about the update...");
-                    logger.warn("Current version: " + VERSION);
-                    logger.warn("Latest version: " + responseData.tag_name);
-
-                    UpdaterGUI.startUpdateGUI();
-                    UpdaterGUI.setUpdateVersion(VERSION, responseData.tag_name);
-                    UpdaterGUI.setChangelogText(responseData.body.replaceAll("###", " - ").replaceAll("\\*\\*", ""));
-                    UpdaterGUI.setupButtons();
-
-                    while (!actionSelected) {
-                        //TODO: Should be reworked into wait() notify() in the launcher version.
-                        //noinspection BusyWait
-                        Thread.sleep(1000);
-                    }
+        if (Objects.isNull(responseData)) throw new NullPointerException("Null data returned from the API!");
+        if (!isValid(responseData)) throw new NullPointerException("Null data in required fields returned from the API!\n" + responseData);
 
-                    if (shouldUpdate) installUpdate(responseData);
-                    logger.warn("Update has been declined! Going back to the execution of the app.");
-                }
-            } else {
-                throw new NullPointerException("Null data returned from the API!");
-            }
-        } catch (Exception e) {
-            logger.logStackTrace("Exception thrown while trying to fetch update data!", e);
+        try {
+            Files.createDirectories(cacheFile.toAbsolutePath().getParent());
+            Files.writeString(cacheFile, gson.toJson(responseData));
+        } catch (IOException e) {
+            logger.logStackTrace("Failed to cache update data!", e);
         }
+        return responseData;
+    }
+
+    /**
+     * Used to check if required fields of the release data are present.
+     * @param releaseData Release data to check.
+     * @return {@code true} if all required fields are not null.
+     */
+    @Contract("null -> false")
+    private static boolean isValid(UpdaterData.releaseData releaseData) {
+        return Objects.nonNull(releaseData) && Objects.nonNull(releaseData.tag_name) && Objects.nonNull(releaseData.html_url) && Objects.nonNull(releaseData.published_at) && Objects.nonNull(releaseData.assets);
     }
 
     /**
@@ -166,7 +261,7 @@ public class Updater {
                 for (String argument : ARGUMENTS) {
                     logger.log("  " + argument);
                 }
-                Files.writeString(cdlArgumentsFile, new Gson().toJson(ARGUMENTS));
+                Files.writeString(cdlArgumentsFile, JsonUtils.getCompactGson().toJson(ARGUMENTS));
                 logger.log("Listed arguments have been saved to a file at \"" + cdlArgumentsFile.toAbsolutePath() + "\".");
             } else {
                 logger.log("App is running without any arguments.");
@@ -176,7 +271,9 @@ public class Updater {
             Files.copy(APPPATH, Path.of(appPathString, APPPATH.getFileName().toString() + ".old"), StandardCopyOption.REPLACE_EXISTING);
 
             Files.deleteIfExists(updatedAppPath);
-            NetworkingUtils.downloadAndVerify(updatedAppPath, releaseData.assets[0].browser_download_url, releaseData.assets[0].size);
+            if (!installDeltaUpdate(releaseData, updatedAppPath)) {
+                NetworkingUtils.downloadAndVerify(updatedAppPath, releaseData.assets[0].browser_download_url, releaseData.assets[0].size);
+            }
 
             logger.log("Unpacking CDL-Updater sub-app from the archive...");
             Path cdlPath = Path.of(FileUtils.getParentFolderAsString(updatedAppPath), "CDLUpdater.jar");
@@ -196,7 +293,8 @@ public class Updater {
                 logger.getLogPath()
                 +"\" -java:\"" +
                 JAVAPATH.toAbsolutePath() +
-                "\""
+                "\" -parentPid:" +
+                ProcessHandle.current().pid()
             );
             System.exit(10);
         } catch (Exception e) {
@@ -210,6 +308,56 @@ public class Updater {
         }
     }
 
+    /**
+     * This method is used to update the app with a binary patch from the current version, if one is published with the release.
+     * Patch is verified against the hash of the current app, and the result against the hash stored in the patch.
+     * @param releaseData Data of the release to update to.
+     * @param updatedAppPath Path to write the updated app to.
+     * @return {@code true} if the patch was applied, {@code false} if full app has to be downloaded.
+     */
+    private static boolean installDeltaUpdate(UpdaterData.@NotNull releaseData releaseData, @NotNull Path updatedAppPath) {
+        String patchName = DeltaPatch.getPatchName(VERSION, releaseData.tag_name);
+        UpdaterData.releaseData.Assets patchAsset = Arrays.stream(releaseData.assets)
+            .filter((asset) -> Objects.equals(asset.name, patchName))
+            .findFirst()
+            .orElse(null);
+
+        if (Objects.isNull(patchAsset)) {
+            logger.log("Delta update from version " + VERSION + " is not available. Downloading full app...");
+            return false;
+        }
+
+        Path patchPath = Path.of(FileUtils.getParentFolderAsString(updatedAppPath), patchName);
+        try {
+            logger.log("Found delta update \"" + patchName + "\"! (" + patchAsset.size + " bytes instead of " + releaseData.assets[0].size + " bytes)");
+            Files.deleteIfExists(patchPath);
+            if (!NetworkingUtils.downloadAndVerify(patchPath, patchAsset.browser_download_url, patchAsset.size)) {
+                throw new IOException("Failed to download the patch!");
+            }
+
+            DeltaPatch.apply(APPPATH, patchPath, updatedAppPath);
+            if (Files.size(updatedAppPath) != releaseData.assets[0].size) {
+                throw new IllegalStateException("Patched app has different size than the released one!");
+            }
+            logger.log("Delta update has been applied successfully.");
+            return true;
+        } catch (Exception e) {
+            logger.logStackTrace("Failed to apply delta update! Downloading full app...", e);
+            try {
+                Files.deleteIfExists(updatedAppPath);
+            } catch (IOException e2) {
+                logger.logStackTrace("Failed to delete partially patched app!", e2);
+            }
+            return false;
+        } finally {
+            try {
+                Files.deleteIfExists(patchPath);
+            } catch (IOException e) {
+                logger.logStackTrace("Failed to delete the patch file!", e);
+            }
+        }
+    }
+
     /**
      * This method is used to run post-update cleaning routines, like removing additional files and launching the app with the arguments from the previous run.
      * @throws IOException when IO Operation fails.
@@ -227,7 +375,7 @@ public class Updater {
         Path argumentsPath = Path.of(appPathString, "CDL-Arguments.json");
         if (Files.exists(argumentsPath)) {
             logger.log("Found file with last app arguments!");
-            String[] parsedArguments = new Gson().fromJson(Files.readString(argumentsPath), String[].class);
+            String[] parsedArguments = JsonUtils.getCompactGson().fromJson(Files.readString(argumentsPath), String[].class);
             logger.log("Parsed arguments:");
             for (String argument : parsedArguments) {
                 logger.log(" " + argument);
@@ -248,6 +396,7 @@ public class Updater {
             logger.log("Couldn't find arguments file. App will run without any arguments!");
         }
 
+        GUIUtils.setLookAndFeel();
         if (JOptionPane.showConfirmDialog(
                 null,
                 "App has been updated to version " + VERSION +"! Do you want to run the updated app?",
@@ -267,6 +416,7 @@ public class Updater {
      * @param Message {@link String} with Message to display.
      */
     private static void abortUpdate(String Message) {
+        GUIUtils.setLookAndFeel();
         if (JOptionPane.showConfirmDialog(
                 null,
                 Message,
@@ -385,7 +535,7 @@ public class Updater {
                 }
                 public String browser_download_url;
                 public String name;
-                public int size;
+                public long size;
 
             }
         }
@@ -0,0 +1,189 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy;
+
+import com.kanzaji.catdownloaderlegacy.data.CDLInstance;
+import com.kanzaji.catdownloaderlegacy.data.SyncPlan;
+import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+import com.kanzaji.catdownloaderlegacy.utils.StorageProfile;
+import com.kanzaji.catdownloaderlegacy.utils.SyncLifecycle;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.*;
+
+/**
+ * This class is used to measure the verification of the installed mods with different storage profiles.
+ * It generates a file tree in the specified directory, and times the Synchronization Plan of it, which verifies every file without making any changes.
+ * <h3>Measured profiles:</h3>
+ * <ul>
+ *     <li><b>ssd</b> - All threads, starting from the largest file. Same as the verification before the storage profiles.</li>
+ *     <li><b>hdd</b> - Few threads, in the order of the location of the files on the disk.</li>
+ * </ul>
+ * @apiNote Page cache is dropped before each run when the app is running as root on Linux, otherwise the files are read from the memory and the results show only the hashing.
+ */
+public class VerificationBenchmark {
+    private static final LoggerCustom logger = new LoggerCustom("Verification Benchmark");
+    private static final ArgumentDecoder ARD = ArgumentDecoder.getInstance();
+    private static final String[] PROFILES = {"ssd", "hdd"};
+    private static final long SEED = 0x43444CL;
+
+    /**
+     * Used to run the benchmark from the command line.
+     * @param args Directory to generate the files in, amount of the files (default 500), average size of the files in KB (default 512) and amount of the runs (default 3).
+     *             Any following arguments are passed to the app, for example {@code -ThreadCount:8}.
+     * @throws Exception when the benchmark fails.
+     */
+    public static void main(String @NotNull [] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: VerificationBenchmark <directory> [file count] [average file size in KB] [runs] [app arguments...]");
+            System.exit(1);
+        }
+        Path directory = Path.of(args[0]).toAbsolutePath();
+        int fileCount = (args.length > 1)? Integer.parseInt(args[1]): 500;
+        int averageSize = ((args.length > 2)? Integer.parseInt(args[2]): 512) * 1024;
+        int runs = (args.length > 3)? Integer.parseInt(args[3]): 3;
+        List<String> arguments = new ArrayList<>(List.of("-VerificationTier:Full", "-HashVerification:true"));
+        if (args.length > 4) arguments.addAll(Arrays.asList(args).subList(4, args.length));
+        ARD.decodeArguments(arguments.toArray(String[]::new));
+
+        System.out.println("Generating " + fileCount + " files in \"" + directory + "\"...");
+        CDLInstance.ModFile[] files = generateFiles(directory, fileCount, averageSize);
+        long totalBytes = Arrays.stream(files).mapToLong((file) -> file.fileLength).sum();
+        boolean cold = dropPageCache();
+        System.out.println("Detected storage profile: " + StorageProfile.detect(directory) + ", threads: " + ARD.getThreads() + ", total size: " + String.format(Locale.ROOT, "%.1f", totalBytes / (1024D * 1024D)) + "MB.");
+        if (!cold) System.out.println("Page cache can't be dropped! Files will be read from the memory, only the hashing is measured.");
+
+        Map<String, List<Long>> results = new LinkedHashMap<>();
+        for (int run = 0; run < runs; run++) {
+            // Order of the profiles is alternated between the runs, so neither of them always runs on a warmer system.
+            for (int i = 0; i < PROFILES.length; i++) {
+                String profile = PROFILES[(run % 2 == 0)? i: PROFILES.length - 1 - i];
+                ARD.decodeArguments(new String[]{"-StorageProfile:" + profile});
+                if (cold) dropPageCache();
+                long time = measure(directory, files);
+                results.computeIfAbsent(profile, (key) -> new ArrayList<>()).add(time);
+                System.out.println("> Run " + (run + 1) + ", " + profile + ": " + time + "ms");
+            }
+        }
+
+        System.out.println("---------------------------------------------------------------------");
+        for (String profile: PROFILES) {
+            List<Long> times = new ArrayList<>(results.get(profile));
+            Collections.sort(times);
+            long median = times.get(times.size() / 2);
+            System.out.println(String.format(Locale.ROOT, "%-4s %3d threads, median %6dms (%.1f MB/s), runs: %s",
+                profile, StorageProfile.getVerificationThreads(profile), median, totalBytes / (1024D * 1024D) / (median / 1000D), results.get(profile)));
+        }
+    }
+
+    /**
+     * Used to generate files of the benchmark. Files are written in a random order, so their location on the disk doesn't follow their paths, like in the instances synchronized over time.
+     * @return Array with {@link CDLInstance.ModFile} of the generated files.
+     */
+    private static CDLInstance.ModFile @NotNull [] generateFiles(@NotNull Path directory, int fileCount, int averageSize) throws Exception {
+        Random random = new Random(SEED);
+        Files.createDirectories(directory.resolve("mods"));
+        CDLInstance.ModFile[] files = new CDLInstance.ModFile[fileCount];
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < fileCount; i++) order.add(i);
+        Collections.shuffle(order, random);
+
+        byte[] buffer = new byte[64 * 1024];
+        for (int index: order) {
+            String fileName = String.format(Locale.ROOT, "mod-%05d.jar", index);
+            // Sizes are spread between 1/4 and 7/4 of the average.
+            long size = averageSize / 4 + (long) (random.nextDouble() * averageSize * 1.5D);
+            MessageDigest digest = MessageDigest.getInstance("SHA-512");
+            Path file = directory.resolve("mods").resolve(fileName);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (long written = 0; written < size; ) {
+                    random.nextBytes(buffer);
+                    int length = (int) Math.min(buffer.length, size - written);
+                    digest.update(buffer, 0, length);
+                    channel.write(ByteBuffer.wrap(buffer, 0, length));
+                    written += length;
+                }
+                // Dirty pages can't be dropped from the page cache, so the files are flushed to the disk.
+                channel.force(true);
+            }
+
+            CDLInstance.Hashes hashes = new CDLInstance.Hashes();
+            hashes.setSha512(HexFormat.of().formatHex(digest.digest()));
+            files[index] = new CDLInstance.ModFile(fileName, "https://localhost/" + fileName, size, hashes, "mods/" + fileName);
+        }
+        return files;
+    }
+
+    /**
+     * Used to time the Synchronization Plan of the generated files. Output of the plan is discarded.
+     * @return Time of the plan in milliseconds.
+     * @throws IllegalStateException when any of the files failed the verification.
+     */
+    private static long measure(@NotNull Path directory, CDLInstance.ModFile @NotNull [] files) throws Exception {
+        SyncContext context = new SyncContext(directory, directory.resolve("CDL-Instance-cache.json"), directory.resolve("CDL-Sync-Plan.json"));
+        context.mode = "modrinth";
+        context.instance.instanceName = "Verification Benchmark";
+        context.instance.modpackData = new CDLInstance.ModpackData();
+        context.instance.files = files;
+        SyncLifecycle.reset();
+
+        PrintStream out = System.out;
+        long start = System.nanoTime();
+        SyncPlan plan;
+        try {
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            plan = new SyncManager(context).runPlan(Set.of());
+        } finally {
+            System.setOut(out);
+        }
+        long time = (System.nanoTime() - start) / 1_000_000L;
+        if (plan.ok.size() != files.length) throw new IllegalStateException("Only " + plan.ok.size() + " of " + files.length + " files passed the verification!");
+        return time;
+    }
+
+    /**
+     * Used to drop the page cache of the system, so the files are read from the disk.
+     * @return {@code true} if the page cache has been dropped.
+     */
+    private static boolean dropPageCache() {
+        try {
+            Files.writeString(Path.of("/proc/sys/vm/drop_caches"), "3");
+            return true;
+        } catch (IOException | SecurityException e) {
+            logger.warn("Failed dropping the page cache: " + e.getMessage());
+            return false;
+        }
+    }
+}
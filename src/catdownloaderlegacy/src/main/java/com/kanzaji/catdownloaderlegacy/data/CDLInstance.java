@@ -25,29 +25,44 @@
 package com.kanzaji.catdownloaderlegacy.data;
 
 import com.kanzaji.catdownloaderlegacy.ArgumentDecoder;
+import com.kanzaji.catdownloaderlegacy.exceptions.SyncAbortedException;
 import com.kanzaji.catdownloaderlegacy.exceptions.UnknownFormatException;
 import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+import com.kanzaji.catdownloaderlegacy.utils.ContentStore;
 import com.kanzaji.catdownloaderlegacy.utils.FileUtils;
 import com.kanzaji.catdownloaderlegacy.utils.FileVerUtils;
+import com.kanzaji.catdownloaderlegacy.utils.Metrics;
+import com.kanzaji.catdownloaderlegacy.utils.Murmur2;
 import com.kanzaji.catdownloaderlegacy.utils.NetworkingUtils;
 import com.kanzaji.catdownloaderlegacy.utils.RandomUtils;
-import static com.kanzaji.catdownloaderlegacy.CatDownloader.WORKPATH;
+import com.kanzaji.catdownloaderlegacy.utils.SyncLifecycle;
+import com.kanzaji.catdownloaderlegacy.utils.JsonUtils;
 import static com.kanzaji.catdownloaderlegacy.guis.MRSecurityCheckGUI.modrinthSecurityCheckFail;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.rmi.UnexpectedException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class holds data for CDLPack format, and additional methods for transforming other formats (CurseForge Instance / Pack, Modrinth mrpack) to this format.
@@ -56,9 +71,26 @@ import java.util.concurrent.Callable;
 @SuppressWarnings("unused")
 public class CDLInstance {
     private static final LoggerCustom logger = new LoggerCustom("CDLInstance Utilities");
-    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
-    public static final String latestFormatVersion = "1.0.0";
+    private static final Gson gson = JsonUtils.getGson();
+    /**
+     * Results of {@link CDLInstance#gatherCFModInformation(int)}, shared between all instances synchronized in the current run.
+     * Kept in the compact form, as it's never released in the Batch and Server modes.
+     */
+    private static final CompactModFiles CFMetadataCache = new CompactModFiles();
+    private static final Map<String, Integer> CFMetadataIndexes = new ConcurrentHashMap<>();
+    public static final String latestFormatVersion = "1.1.0";
+    /**
+     * Format versions that can be migrated to the {@link CDLInstance#latestFormatVersion} while parsing.
+     * <ul>
+     * <li><b>1.0.0</b>: File lengths were 32-bit values. Values are the same in 1.1.0, only the range is wider.</li>
+     * </ul>
+     */
+    private static final List<String> migratableFormatVersions = List.of("1.0.0");
     public String cdlFormatVersion;
+    /**
+     * Path to the working directory of this instance. Not serialized.
+     */
+    private transient Path workPath;
 
     private CDLInstance() {}
 
@@ -71,6 +103,17 @@ public class CDLInstance {
         return gson.toJson(this);
     }
 
+    /**
+     * Used to write this object in JSON format to the specified file, without building the entire JSON String in memory first.
+     * @param jsonFile Path to the file to write. Existing file is overwritten.
+     * @throws IOException when IO Exception occurs.
+     */
+    public void writeTo(@NotNull Path jsonFile) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(Objects.requireNonNull(jsonFile))) {
+            gson.toJson(this, writer);
+        }
+    }
+
     /**
      * Checks if object and passed object are equal.
      * @param object Object to check.
@@ -108,6 +151,66 @@ public class CDLInstance {
                 filesEqual;
     }
 
+    /**
+     * Used to compare this version of the instance with the previous one. Files are matched by their path, in linear time.
+     * <p>File is unchanged, when hashes present in both versions are equal. When versions don't share any hash,
+     * file is unchanged when its name, length and download URL are equal.</p>
+     * @param previous Previous version of the instance.
+     * @return {@link InstanceDiff} with added, removed, changed and unchanged files, and changes of the metadata.
+     */
+    public @NotNull InstanceDiff diff(@NotNull CDLInstance previous) {
+        Objects.requireNonNull(previous);
+        InstanceDiff diff = new InstanceDiff(this);
+
+        Map<String, ModFile> previousFiles = new HashMap<>();
+        if (Objects.nonNull(previous.files)) {
+            for (ModFile file: previous.files) {
+                if (Objects.nonNull(file)) previousFiles.put(file.getRelativePath(), file);
+            }
+        }
+
+        if (Objects.nonNull(this.files)) {
+            for (int index = 0; index < this.files.length; index++) {
+                ModFile file = this.files[index];
+                ModFile previousFile = previousFiles.remove(file.getRelativePath());
+                if (Objects.isNull(previousFile)) {
+                    diff.added.add(index);
+                    continue;
+                }
+
+                diff.match(index, previousFile);
+                if (file.hasSameContent(previousFile)) {
+                    diff.unchanged.add(index);
+                } else {
+                    diff.changed.add(index);
+                }
+            }
+        }
+        diff.removed.addAll(previousFiles.values());
+
+        compareMetadata(diff, "format version", this.cdlFormatVersion, previous.cdlFormatVersion);
+        compareMetadata(diff, "instance name", this.instanceName, previous.instanceName);
+        if (Objects.nonNull(this.modpackData) && Objects.nonNull(previous.modpackData)) {
+            compareMetadata(diff, "modpack name", this.modpackData.name, previous.modpackData.name);
+            compareMetadata(diff, "modpack version", this.modpackData.version, previous.modpackData.version);
+            compareMetadata(diff, "modpack author", this.modpackData.author, previous.modpackData.author);
+            compareMetadata(diff, "modpack summary", this.modpackData.summary, previous.modpackData.summary);
+            compareMetadata(diff, "overrides", this.modpackData.overrides, previous.modpackData.overrides);
+        }
+        if (Objects.nonNull(this.minecraftData) && Objects.nonNull(previous.minecraftData)) {
+            compareMetadata(diff, "minecraft version", this.minecraftData.version, previous.minecraftData.version);
+        }
+        if (Objects.nonNull(this.modLoaderData) && Objects.nonNull(previous.modLoaderData)) {
+            compareMetadata(diff, "mod loader", this.modLoaderData.modLoader, previous.modLoaderData.modLoader);
+            compareMetadata(diff, "mod loader version", this.modLoaderData.version, previous.modLoaderData.version);
+        }
+        return diff;
+    }
+
+    private static void compareMetadata(@NotNull InstanceDiff diff, String name, String value, String previousValue) {
+        if (!Objects.equals(value, previousValue)) diff.metadataChanges.add(name + ": \"" + previousValue + "\" -> \"" + value + "\"");
+    }
+
     /**
      * Used to get new instance of CDLInstance object.
      * @return new CDLInstance object with formatVersion specified to the latest format version supported.
@@ -118,6 +221,21 @@ public class CDLInstance {
         return cdlInstance;
     }
 
+    /**
+     * Used to set the working directory of this instance.
+     * @param workPath Path to the working directory.
+     */
+    public void setWorkPath(Path workPath) {
+        this.workPath = workPath;
+    }
+
+    /**
+     * @return Path to the working directory of this instance.
+     */
+    public Path getWorkPath() {
+        return this.workPath;
+    }
+
     /**
      * Used to get a new CDLInstance object with values parsed from specified jsonFile.
      * @param jsonFile Path to a json file to parse.
@@ -129,11 +247,19 @@ public class CDLInstance {
         jsonFile = jsonFile.toAbsolutePath();
         logger.log("Parsing CDLInstance file at \"" + jsonFile + "\"...");
         try {
-            CDLInstance cdlInstance = gson.fromJson(Files.readString(jsonFile), CDLInstance.class);
+            CDLInstance cdlInstance;
+            try (Reader reader = Files.newBufferedReader(jsonFile)) {
+                cdlInstance = gson.fromJson(reader, CDLInstance.class);
+            }
 
             if (Objects.isNull(cdlInstance.cdlFormatVersion))
                 throw new UnknownFormatException("Format version is missing from the CDLInstance json! Is the file corrupted? Is it the CDLInstance format?");
 
+            if (migratableFormatVersions.contains(cdlInstance.cdlFormatVersion)) {
+                logger.log("Migrating CDLInstance file from format version " + cdlInstance.cdlFormatVersion + " to " + latestFormatVersion + "...");
+                cdlInstance.cdlFormatVersion = latestFormatVersion;
+            }
+
             logger.log("CDLInstance file at \"" + jsonFile + "\" parsed successfully.");
 
             return cdlInstance;
@@ -154,6 +280,24 @@ public class CDLInstance {
      * </ul>
      */
     public Callable<Integer[]> getVerificationTask(int modFile) {
+        return getVerificationTask(modFile, null, true);
+    }
+
+    /**
+     * This method is used to get a Verification task for the file under specified index, using the Fingerprint Index for the fast verification.
+     * @param modFile Index to the modFile in the Files Array.
+     * @param fingerprints {@link FingerprintIndex} of the instance, or null to always verify with hashes.
+     * @param deep When {@code true}, file is verified with a hash even if its fingerprint is unchanged.
+     * @return Callable to execute with verification routine for specified file.
+     * <h3>Returns:</h3>
+     * <ul>
+     * <li><b>1</b> if file not found.</li>
+     * <li><b>-1</b> if corrupted.</li>
+     * <li><b>0</b> if file was verified successfully.</li>
+     * </ul>
+     * @apiNote Files verified with a hash are recorded in the passed Fingerprint Index.
+     */
+    public Callable<Integer[]> getVerificationTask(int modFile, @Nullable FingerprintIndex fingerprints, boolean deep) {
         ModFile mod = this.files[modFile];
         if (Objects.isNull(mod.path)) {
             mod.path = "mods/" + mod.fileName;
@@ -168,34 +312,87 @@ public class CDLInstance {
              */
             @Override
             public Integer[] call() throws Exception {
+                SyncLifecycle.startFile();
                 try {
-                    Path modPath = Path.of(WORKPATH.toString(), mod.path);
+                    Path modPath = Path.of(getWorkPath().toString(), mod.path);
                     if (Files.notExists(modPath)) {
                         return new Integer[]{modFile, 1};
                     }
 
-                    boolean corrupted;
-                    if (Objects.isNull(mod.hashes) || !mod.hashes.isPopulated()) {
-                        corrupted = !FileVerUtils.verifyFile(modPath, mod.fileLength, mod.downloadURL);
-                    } else if (Objects.nonNull(mod.hashes.sha512)) {
-                        corrupted = !FileVerUtils.verifyFile(modPath, mod.fileLength, mod.hashes.sha512, "SHA-512");
-                    } else if (Objects.nonNull(mod.hashes.sha256)) {
-                        corrupted = !FileVerUtils.verifyFile(modPath, mod.fileLength, mod.hashes.sha256, "SHA-256");
-                    } else {
-                        corrupted = !FileVerUtils.verifyFile(modPath, mod.fileLength, mod.hashes.sha1, "SHA-1");
+                    if (!deep && Objects.nonNull(fingerprints)) {
+                        if (fingerprints.matches(mod, modPath)) {
+                            Metrics.CACHE_REQUESTS.inc("fingerprint", "hit");
+                            // Hashes are not calculated in the fast path, only the ones carried from the cache are registered.
+                            ContentStore.register(mod.hashes, modPath);
+                            return new Integer[]{modFile, 0};
+                        }
+                        Metrics.CACHE_REQUESTS.inc("fingerprint", "miss");
                     }
 
-                    if (corrupted) return new Integer[]{modFile, -1};
+                    // Checksum of the Fingerprint Index is calculated in the same pass as the hash.
+                    String[] additional = (Objects.nonNull(fingerprints) && fingerprints.usesChecksums())? new String[]{FingerprintIndex.CHECKSUM_ALGORITHM}: new String[0];
+                    Map<String, byte[]> digests = verifyModFile(mod, modPath, additional);
+                    if (Objects.isNull(digests)) return new Integer[]{modFile, -1};
 
-                    mod.fillHashes();
+                    mod.fillHashes(getWorkPath());
+                    ContentStore.register(mod.hashes, modPath);
+                    if (Objects.nonNull(fingerprints)) fingerprints.record(mod, modPath, Hashes.toHex(digests.get(FingerprintIndex.CHECKSUM_ALGORITHM)));
                     return new Integer[]{modFile, 0};
                 } catch (Exception e) {
                     throw new UnexpectedException(String.valueOf(modFile), new UnexpectedException("Exception was thrown while verifying a file \"" + mod.path + "\"!", e));
+                } finally {
+                    SyncLifecycle.endFile();
                 }
             }
         };
     }
 
+    /**
+     * Used to verify the file of the mod, with the strongest Hash available, or the Hash of the resource from the DownloadURL when there are none.
+     * @param mod {@link ModFile} to verify.
+     * @param modPath Path to the file of the mod.
+     * @return {@code true} if verification was successful.
+     * @throws IOException when IO Exception occurs.
+     * @throws NoSuchAlgorithmException when Digest complains about Algorithm.
+     */
+    private static boolean verifyModFile(@NotNull ModFile mod, Path modPath) throws IOException, NoSuchAlgorithmException {
+        return Objects.nonNull(verifyModFile(mod, modPath, new String[0]));
+    }
+
+    /**
+     * Used to verify the file of the mod, with the strongest Hash available, then the CurseForge fingerprint, or the Hash of the resource from the DownloadURL when there are none.
+     * Additional algorithms are calculated in the same pass over the file, except for the fingerprint, which requires its own passes.
+     * @param mod {@link ModFile} to verify.
+     * @param modPath Path to the file of the mod.
+     * @param additional Additional algorithms to calculate.
+     * @return {@link Map} with raw digests of the calculated hashes, or {@code null} if verification failed.
+     * Hashes of the additional algorithms are missing, when Hash Verification is disabled.
+     * @throws IOException when IO Exception occurs.
+     * @throws NoSuchAlgorithmException when Digest complains about Algorithm.
+     */
+    private static @Nullable Map<String, byte[]> verifyModFile(@NotNull ModFile mod, Path modPath, String @NotNull [] additional) throws IOException, NoSuchAlgorithmException {
+        if ((Objects.isNull(mod.hashes) || !mod.hashes.isPopulated()) && Objects.nonNull(mod.cfFingerprint)) {
+            if (!FileVerUtils.verifyFile(modPath, mod.fileLength, String.valueOf(mod.cfFingerprint), Murmur2.ALGORITHM)) return null;
+            return (additional.length > 0 && ArgumentDecoder.getInstance().isHashVerActive())? FileVerUtils.getDigests(modPath, additional): Map.of();
+        }
+
+        if (Objects.isNull(mod.hashes) || !mod.hashes.isPopulated()) {
+            if (!FileVerUtils.verifyFile(modPath, mod.fileLength, mod.downloadURL)) return null;
+            return (additional.length > 0)? FileVerUtils.getDigests(modPath, additional): Map.of();
+        }
+
+        if (Files.notExists(modPath) || !FileVerUtils.verifyFileSize(modPath, mod.fileLength)) return null;
+        if (!ArgumentDecoder.getInstance().isHashVerActive()) return Map.of();
+
+        String algorithm = mod.hashes.getStrongestAlgorithm();
+        String[] algorithms = new String[additional.length + 1];
+        algorithms[0] = algorithm;
+        System.arraycopy(additional, 0, algorithms, 1, additional.length);
+
+        Map<String, byte[]> digests = FileVerUtils.getDigests(modPath, algorithms);
+        return (MessageDigest.isEqual(digests.get(algorithm), mod.hashes.getDigest(algorithm)))? digests: null;
+    }
+
     /**
      * This method is used to get a Download task for the file under specified index.
      * @param modFile Index to the modFile in the Files Array.
@@ -221,31 +418,46 @@ public class CDLInstance {
              */
             @Override
             public Integer[] call() throws Exception {
+                SyncLifecycle.startFile();
                 try {
-                    Path modPath = Path.of(WORKPATH.toString(), mod.path);
+                    Path modPath = Path.of(getWorkPath().toString(), mod.path);
                     if (Files.exists(modPath)) {
                         FileUtils.delete(modPath);
                     }
 
+                    // Same file could have been already verified in other instance synchronized in this run.
+                    if (Objects.nonNull(mod.hashes) && mod.hashes.isPopulated() && ContentStore.copyTo(mod.hashes, modPath)) {
+                        if (verifyModFile(mod, modPath)) {
+                            mod.fillHashes(getWorkPath());
+                            return new Integer[]{modFile, 0};
+                        }
+                        FileUtils.delete(modPath);
+                    }
+
                     boolean successful;
-                    if (Objects.isNull(mod.hashes) || !mod.hashes.isPopulated()) {
-                        successful = NetworkingUtils.downloadAndVerify(modPath, mod.downloadURL, mod.fileLength, mod.fileName);
+                    if ((Objects.isNull(mod.hashes) || !mod.hashes.isPopulated()) && Objects.nonNull(mod.cfFingerprint)) {
+                        successful = NetworkingUtils.downloadAndVerify(modPath, mod.getDownloadURLs(), mod.fileLength, mod.fileName, String.valueOf(mod.cfFingerprint), Murmur2.ALGORITHM);
+                    } else if (Objects.isNull(mod.hashes) || !mod.hashes.isPopulated()) {
+                        successful = NetworkingUtils.downloadAndVerify(modPath, mod.getDownloadURLs(), mod.fileLength, mod.fileName, null, null);
                     } else if (Objects.nonNull(mod.hashes.sha512)) {
-                        successful = NetworkingUtils.downloadAndVerify(modPath, mod.downloadURL, mod.fileLength, mod.fileName, mod.hashes.sha512, "SHA-512");
+                        successful = NetworkingUtils.downloadAndVerify(modPath, mod.getDownloadURLs(), mod.fileLength, mod.fileName, mod.hashes.getSha512(), "SHA-512");
                     } else if (Objects.nonNull(mod.hashes.sha256)) {
-                        successful = NetworkingUtils.downloadAndVerify(modPath, mod.downloadURL, mod.fileLength, mod.fileName, mod.hashes.sha256, "SHA-256");
+                        successful = NetworkingUtils.downloadAndVerify(modPath, mod.getDownloadURLs(), mod.fileLength, mod.fileName, mod.hashes.getSha256(), "SHA-256");
                     } else {
-                        successful = NetworkingUtils.downloadAndVerify(modPath, mod.downloadURL, mod.fileLength, mod.fileName, mod.hashes.sha1, "SHA-1");
+                        successful = NetworkingUtils.downloadAndVerify(modPath, mod.getDownloadURLs(), mod.fileLength, mod.fileName, mod.hashes.getSha1(), "SHA-1");
                     }
 
                     if (successful) {
-                        mod.fillHashes();
+                        mod.fillHashes(getWorkPath());
+                        ContentStore.register(mod.hashes, modPath);
                         return new Integer[]{modFile, 0};
                     }
 
                     return new Integer[]{modFile, -1};
                 } catch (Exception e) {
                     throw new UnexpectedException(String.valueOf(modFile), new UnexpectedException("Exception was thrown while downloading a file \"" + mod.path + "\"!", e));
+                } finally {
+                    SyncLifecycle.endFile();
                 }
             }
         };
@@ -257,6 +469,7 @@ public class CDLInstance {
      * @return Itself, for easier use after importing.
      * @throws UnknownFormatConversionException when MRIndex passed is in unsupported version.
      * @throws UnexpectedException when Exception occurs in the translating code.
+     * @throws SyncAbortedException when the pack contains a file with illegal path.
      */
     public CDLInstance importModrinthPack(@NotNull MRIndex MRIndexData) throws UnknownFormatConversionException, UnexpectedException {
         logger.log("Translating Modrinth Index into CDLInstance format...");
@@ -319,11 +532,14 @@ public class CDLInstance {
                 this.files[i] = new ModFile(
                         Path.of(mod.path).getFileName().toString(),
                         mod.downloads[0],
-                        mod.fileSize.intValue(),
+                        mod.fileSize.longValue(),
                         mod.hashes,
                         mod.path
                 );
+                if (mod.downloads.length > 1) this.files[i].mirrors = Arrays.copyOfRange(mod.downloads, 1, mod.downloads.length);
             }
+        } catch (SyncAbortedException e) {
+            throw e;
         } catch (Exception e) {
             logger.logStackTrace("Interpretation of Modrinth Index failed!", e);
             logger.critical(gson.toJson(MRIndexData, MRIndex.class));
@@ -446,7 +662,9 @@ public class CDLInstance {
             this.files = new ModFile[CFInstanceData.installedAddons.length];
             for (int i = 0; i < CFInstanceData.installedAddons.length; i++) {
                 CFMinecraftInstance.AddonFile addon = CFInstanceData.installedAddons[i].installedFile;
-                this.files[i] = new ModFile(addon.fileName, addon.downloadUrl, addon.fileLength.intValue());
+                this.files[i] = new ModFile(addon.fileName, addon.downloadUrl, addon.fileLength.longValue());
+                // CF App writes 0 for the files it didn't fingerprint.
+                if (Objects.nonNull(addon.packageFingerprint) && addon.packageFingerprint.longValue() != 0) this.files[i].cfFingerprint = addon.packageFingerprint.longValue();
             }
         } catch (Exception e) {
             logger.logStackTrace("Interpretation of CF MinecraftInstance failed!", e);
@@ -466,7 +684,17 @@ public class CDLInstance {
         //TODO: Create new getData() method. Replace use of Deprecated method.
         // Additionally make use of multithreading and experimental option.
         ModFile mod = this.files[index];
-        if (!ArgumentDecoder.getInstance().isPackMode() || !Objects.equals(mod.fileName, "CF-PACK_MOD")) return;
+        if (!Objects.equals(mod.fileName, "CF-PACK_MOD")) return;
+
+        // Instances synchronized in the same run often share the mods, results of the gathering are shared between them.
+        String cacheKey = mod.downloadURL + ":" + mod.fileLength + ":" + this.minecraftData.version + ":" + this.modLoaderData.modLoader;
+        Integer cachedIndex = CFMetadataIndexes.get(cacheKey);
+        if (Objects.nonNull(cachedIndex)) {
+            Metrics.CACHE_REQUESTS.inc("metadata", "hit");
+            this.files[index] = CFMetadataCache.get(cachedIndex);
+            return;
+        }
+        Metrics.CACHE_REQUESTS.inc("metadata", "miss");
 
         CFManifest.minecraft CFminecraft = new CFManifest.minecraft();
         CFminecraft.version = this.minecraftData.version;
@@ -474,9 +702,10 @@ public class CDLInstance {
             new CFManifest.modLoaders(this.modLoaderData.modLoader, true)
         };
 
-        CFManifest.CFModFile CFmod = new CFManifest.CFModFile(mod.fileLength, Integer.parseInt(mod.downloadURL)).getData(CFminecraft);
+        CFManifest.CFModFile CFmod = new CFManifest.CFModFile(Math.toIntExact(mod.fileLength), Integer.parseInt(mod.downloadURL)).getData(CFminecraft);
         if (Objects.isNull(CFmod) || Objects.isNull(CFmod.downloadUrl)) return;
         this.files[index] = CFmod.toCDLModFile();
+        CFMetadataIndexes.put(cacheKey, CFMetadataCache.add(CFmod.toCDLModFile()));
     }
 
     /**
@@ -580,10 +809,39 @@ public class CDLInstance {
         }
     }
 
+    /**
+     * This class holds hashes of the file. Digests are kept as raw bytes, which takes less than half of the memory of the hex Strings,
+     * and are (de)serialized as hex Strings, the same as in the Manifest and Cache files.
+     */
+    @JsonAdapter(Hashes.Adapter.class)
     public static class Hashes {
-        public String sha1;
-        public String sha256;
-        public String sha512;
+        private static final HexFormat HEX = HexFormat.of();
+        byte[] sha1;
+        byte[] sha256;
+        byte[] sha512;
+
+        public @Nullable String getSha1() {return toHex(this.sha1);}
+        public @Nullable String getSha256() {return toHex(this.sha256);}
+        public @Nullable String getSha512() {return toHex(this.sha512);}
+        public void setSha1(@Nullable String sha1) {this.sha1 = fromHex(sha1);}
+        public void setSha256(@Nullable String sha256) {this.sha256 = fromHex(sha256);}
+        public void setSha512(@Nullable String sha512) {this.sha512 = fromHex(sha512);}
+
+        /**
+         * Used to get a copy of the raw digest for the specified algorithm.
+         * @param Algorithm Name of the algorithm, "SHA-1", "SHA-256" or "SHA-512".
+         * @return Copy of the digest, or null if it's not populated.
+         * @throws IllegalArgumentException when the algorithm is not supported.
+         */
+        public byte @Nullable [] getDigest(@NotNull String Algorithm) {
+            byte[] digest = switch (Algorithm) {
+                case "SHA-1" -> this.sha1;
+                case "SHA-256" -> this.sha256;
+                case "SHA-512" -> this.sha512;
+                default -> throw new IllegalArgumentException("Unsupported algorithm " + Algorithm + "!");
+            };
+            return (Objects.isNull(digest))? null: digest.clone();
+        }
 
         /**
          * This method is used to check if any of the hashes are populated.
@@ -595,6 +853,56 @@ public class CDLInstance {
                     Objects.nonNull(sha512);
         }
 
+        /**
+         * Used to get the strongest algorithm with populated hash.
+         * @return {@code SHA-512}, {@code SHA-256} or {@code SHA-1}, or null if none of the hashes are populated.
+         */
+        public @Nullable String getStrongestAlgorithm() {
+            if (Objects.nonNull(sha512)) return "SHA-512";
+            if (Objects.nonNull(sha256)) return "SHA-256";
+            if (Objects.nonNull(sha1)) return "SHA-1";
+            return null;
+        }
+
+        /**
+         * Used to check if this object and passed object have any hash of the same algorithm populated.
+         * @param hashes Hashes to check.
+         * @return {@code true} if both objects have a hash of the same algorithm.
+         */
+        public boolean sharesAny(Hashes hashes) {
+            if (Objects.isNull(hashes)) return false;
+            return  (Objects.nonNull(this.sha1) && Objects.nonNull(hashes.sha1)) ||
+                    (Objects.nonNull(this.sha256) && Objects.nonNull(hashes.sha256)) ||
+                    (Objects.nonNull(this.sha512) && Objects.nonNull(hashes.sha512));
+        }
+
+        /**
+         * Used to compare hashes that are populated in both objects.
+         * One of the objects can have more hashes than the other, for example when they were calculated at the verification.
+         * @param hashes Hashes to compare.
+         * @return {@code true} if any hash populated in both objects is different.
+         */
+        public boolean conflicts(Hashes hashes) {
+            if (Objects.isNull(hashes)) return false;
+            return  (Objects.nonNull(this.sha1) && Objects.nonNull(hashes.sha1) && !Arrays.equals(this.sha1, hashes.sha1)) ||
+                    (Objects.nonNull(this.sha256) && Objects.nonNull(hashes.sha256) && !Arrays.equals(this.sha256, hashes.sha256)) ||
+                    (Objects.nonNull(this.sha512) && Objects.nonNull(hashes.sha512) && !Arrays.equals(this.sha512, hashes.sha512));
+        }
+
+        /**
+         * Used to copy hashes from the passed object, that are missing in this object.
+         * @param hashes Hashes to copy from.
+         * @return {@code true} if any hash was copied.
+         */
+        public boolean fillMissing(Hashes hashes) {
+            if (Objects.isNull(hashes)) return false;
+            boolean filled = false;
+            if (Objects.isNull(this.sha1) && Objects.nonNull(hashes.sha1)) {this.sha1 = hashes.sha1; filled = true;}
+            if (Objects.isNull(this.sha256) && Objects.nonNull(hashes.sha256)) {this.sha256 = hashes.sha256; filled = true;}
+            if (Objects.isNull(this.sha512) && Objects.nonNull(hashes.sha512)) {this.sha512 = hashes.sha512; filled = true;}
+            return filled;
+        }
+
         @Override
         public String toString() {
             return gson.toJson(this);
@@ -612,19 +920,80 @@ public class CDLInstance {
             if (!Objects.equals(Hashes.class, object.getClass())) return false;
 
             Hashes hashes = (Hashes) object;
-            return  Objects.equals(this.sha1, hashes.sha1) &&
-                    Objects.equals(this.sha256, hashes.sha256) &&
-                    Objects.equals(this.sha512, hashes.sha512);
+            return  Arrays.equals(this.sha1, hashes.sha1) &&
+                    Arrays.equals(this.sha256, hashes.sha256) &&
+                    Arrays.equals(this.sha512, hashes.sha512);
         }
-    }
 
+        @Override
+        public int hashCode() {
+            return Objects.hash(Arrays.hashCode(this.sha1), Arrays.hashCode(this.sha256), Arrays.hashCode(this.sha512));
+        }
+
+        @Contract("null -> null; !null -> !null")
+        static @Nullable String toHex(byte @Nullable [] digest) {
+            return (Objects.isNull(digest))? null: HEX.formatHex(digest);
+        }
+
+        @Contract("null -> null; !null -> !null")
+        static byte @Nullable [] fromHex(@Nullable String hash) {
+            return (Objects.isNull(hash))? null: HEX.parseHex(hash);
+        }
+
+        /**
+         * Gson adapter writing the digests as hex Strings.
+         */
+        static class Adapter extends TypeAdapter<Hashes> {
+            @Override
+            public void write(JsonWriter out, Hashes hashes) throws IOException {
+                out.beginObject();
+                if (Objects.nonNull(hashes.sha1)) out.name("sha1").value(toHex(hashes.sha1));
+                if (Objects.nonNull(hashes.sha256)) out.name("sha256").value(toHex(hashes.sha256));
+                if (Objects.nonNull(hashes.sha512)) out.name("sha512").value(toHex(hashes.sha512));
+                out.endObject();
+            }
+
+            @Override
+            public Hashes read(JsonReader in) throws IOException {
+                Hashes hashes = new Hashes();
+                in.beginObject();
+                while (in.hasNext()) {
+                    String name = in.nextName();
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                        continue;
+                    }
+                    try {
+                        switch (name) {
+                            case "sha1" -> hashes.sha1 = fromHex(in.nextString());
+                            case "sha256" -> hashes.sha256 = fromHex(in.nextString());
+                            case "sha512" -> hashes.sha512 = fromHex(in.nextString());
+                            default -> in.skipValue();
+                        }
+                    } catch (IllegalArgumentException e) {
+                        throw new JsonParseException("Invalid " + name + " hash at " + in.getPath() + "!", e);
+                    }
+                }
+                in.endObject();
+                return hashes;
+            }
+        }
+    }
 
     public static class ModFile {
         public String fileName;
         public String downloadURL;
+        /**
+         * Additional URLs the file can be downloaded from, used when {@code downloadURL} fails or is slower.
+         */
+        public String[] mirrors;
         public String path;
-        public int fileLength;
+        public long fileLength;
         public Hashes hashes;
+        /**
+         * CurseForge fingerprint of the file, see {@link Murmur2}. Available in the CF-Instance mode, used when there are no hashes.
+         */
+        public Long cfFingerprint;
         @Override
         public String toString() {
             return gson.toJson(this);
@@ -652,40 +1021,77 @@ public class CDLInstance {
         }
 
         /**
-         * This method is used to calculate caches for specified mod file.
-         * @throws IOException when IO Exception occurs.
-         * @throws NoSuchAlgorithmException when Digest complains about Algorithm.
+         * Used to get path of this file relative to the working directory. Files without the path are in the "mods" folder.
+         * @return Path of this file.
          */
-        public void fillHashes() throws IOException, NoSuchAlgorithmException {
-            if (Objects.isNull(this.hashes)) this.hashes = new Hashes();
-            if (Objects.isNull(this.hashes.sha512)) {
-                this.hashes.sha512 = FileVerUtils.getHash(Path.of(WORKPATH.toString(),this.path), "SHA-512");
+        public @NotNull String getRelativePath() {
+            return (Objects.isNull(this.path))? "mods/" + this.fileName: this.path;
+        }
+
+        /**
+         * Used to check if this file has the same content as passed file, ignoring the path.
+         * When both files have a hash of the same algorithm, only hashes are compared. Then CurseForge fingerprints, if both files have them.
+         * Otherwise, name, length and download URL have to be equal.
+         * @param modFile File to compare.
+         * @return {@code true} if files have the same content.
+         */
+        public boolean hasSameContent(ModFile modFile) {
+            if (Objects.isNull(modFile)) return false;
+            if (Objects.nonNull(this.hashes) && this.hashes.sharesAny(modFile.hashes)) {
+                return !this.hashes.conflicts(modFile.hashes) && Objects.equals(this.fileLength, modFile.fileLength);
             }
-            if (Objects.isNull(this.hashes.sha256)) {
-                this.hashes.sha256 = FileVerUtils.getHash(Path.of(WORKPATH.toString(),this.path), "SHA-256");
+            if (Objects.nonNull(this.cfFingerprint) && Objects.nonNull(modFile.cfFingerprint)) {
+                return Objects.equals(this.cfFingerprint, modFile.cfFingerprint) && Objects.equals(this.fileLength, modFile.fileLength);
             }
-            if (Objects.isNull(this.hashes.sha1)) {
-                this.hashes.sha1 = FileVerUtils.getHash(Path.of(WORKPATH.toString(),this.path), "SHA-1");
+            return  Objects.equals(this.fileName, modFile.fileName) &&
+                    Objects.equals(this.fileLength, modFile.fileLength) &&
+                    Objects.equals(this.downloadURL, modFile.downloadURL);
+        }
+
+        /**
+         * Used to get all URLs this file can be downloaded from.
+         * @return Array with {@code downloadURL} as the first element, followed by the mirrors.
+         */
+        public String @NotNull [] getDownloadURLs() {
+            if (Objects.isNull(this.mirrors) || this.mirrors.length == 0) return new String[]{this.downloadURL};
+            LinkedHashSet<String> urls = new LinkedHashSet<>();
+            urls.add(this.downloadURL);
+            for (String mirror: this.mirrors) {
+                if (Objects.nonNull(mirror)) urls.add(mirror);
             }
+            return urls.toArray(new String[0]);
+        }
+
+        /**
+         * This method is used to calculate a hash for specified mod file, when it has none. Calculated hash is used to verify the file in the next runs, see caches.
+         * Files with hashes from the manifest are not hashed again, as other algorithms are not needed to compare against the manifest.
+         * @param workPath Path to the working directory of the instance.
+         * @throws IOException when IO Exception occurs.
+         * @throws NoSuchAlgorithmException when Digest complains about Algorithm.
+         */
+        public void fillHashes(@NotNull Path workPath) throws IOException, NoSuchAlgorithmException {
+            if (Objects.nonNull(this.hashes) && this.hashes.isPopulated()) return;
+            if (Objects.isNull(this.hashes)) this.hashes = new Hashes();
+            this.hashes.setSha512(FileVerUtils.getHash(Path.of(workPath.toString(),this.path), "SHA-512"));
         }
 
         @Contract(pure = true)
         public ModFile() {}
         @Contract(pure = true)
-        public ModFile(String fileName, String downloadURL, int fileLength) {
+        public ModFile(String fileName, String downloadURL, long fileLength) {
             this.fileName = fileName;
             this.downloadURL = downloadURL;
             this.fileLength = fileLength;
         }
         @Contract(pure = true)
-        public ModFile(String fileName, String downloadURL, int fileLength, Hashes hashes) {
+        public ModFile(String fileName, String downloadURL, long fileLength, Hashes hashes) {
             this.fileName = fileName;
             this.downloadURL = downloadURL;
             this.fileLength = fileLength;
             this.hashes = hashes;
         }
         @Contract(pure = true)
-        public ModFile(String fileName, String downloadURL, int fileLength, Hashes hashes, String path) {
+        public ModFile(String fileName, String downloadURL, long fileLength, Hashes hashes, String path) {
             this.fileName = fileName;
             this.downloadURL = downloadURL;
             this.fileLength = fileLength;
@@ -26,17 +26,15 @@ package com.kanzaji.catdownloaderlegacy.data;
 
 import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
 import com.kanzaji.catdownloaderlegacy.Updater;
+import com.kanzaji.catdownloaderlegacy.utils.JsonUtils;
+import com.kanzaji.catdownloaderlegacy.utils.HttpCache;
 
 import org.jetbrains.annotations.ApiStatus;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 
 import javax.net.ssl.HttpsURLConnection;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
@@ -70,7 +68,7 @@ public class CFManifest {
         public int fileID;
         public String downloadUrl;
         public boolean required;
-        public int fileSize;
+        public long fileSize;
 
         /**
          * This method creates new {@link com.kanzaji.catdownloaderlegacy.data.CDLInstance.ModFile} object, with information taken from this object. It does not guarantee that the returned mod file will not contain null or incorrect values.
@@ -93,7 +91,7 @@ public class CFManifest {
         public CFModFile getData(minecraft minecraftData) {
             CFModFile CFModFileData = new CFModFile();
             LoggerCustom logger = new LoggerCustom("Manifest");
-            Gson gson = new GsonBuilder().setPrettyPrinting().create();
+            Gson gson = JsonUtils.getGson();
 
             try {
                 HttpsURLConnection url;
@@ -101,13 +99,14 @@ public class CFManifest {
                 if (error403) {
                     url = (HttpsURLConnection) new URL("https://api.cfwidget.com/" + projectID).openConnection();
                     url.setUseCaches(false);
-                    url.setRequestProperty("Cache-Control", "no-store");
+                    // Response is revalidated with the origin server, but can still be answered with 304 if the stored one is up to date.
+                    url.setRequestProperty("Cache-Control", "no-cache");
                 } else {
                     url = (HttpsURLConnection) new URL("https://api.cfwidget.com/" + projectID + "?&version=" + fileID).openConnection();
                 }
 
-                try (BufferedReader in = new BufferedReader(new InputStreamReader(url.getInputStream(), StandardCharsets.UTF_8))) {
-                    data downloadData = gson.fromJson(in, data.class);
+                try {
+                    data downloadData = gson.fromJson(HttpCache.getString(url), data.class);
 
                     if (downloadData.download == null || error403) {
                         //TODO: Create ANOTHER Alternate method if downloadData is null.
@@ -279,7 +278,7 @@ public class CFManifest {
         private String url;
         private int id;
         private String name;
-        private int filesize;
+        private long filesize;
     }
 
     private static class urls {
@@ -292,7 +291,7 @@ public class CFManifest {
         private String url;
         private int id;
         private String name;
-        private int filesize;
+        private long filesize;
         private String[] versions;
     }
 }
@@ -44,6 +44,10 @@ public class CFMinecraftInstance {
         public Number fileLength;
         public String downloadUrl;
         public String fileName;
+        /**
+         * CurseForge fingerprint of the file, see {@link com.kanzaji.catdownloaderlegacy.utils.Murmur2}.
+         */
+        public Number packageFingerprint;
     }
     public static class baseModLoader {
         public String name;
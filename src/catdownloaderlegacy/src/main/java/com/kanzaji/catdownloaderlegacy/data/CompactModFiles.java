@@ -0,0 +1,199 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.data;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * This class holds a list of {@link CDLInstance.ModFile} in a compact, column-oriented form,
+ * used for the data kept across multiple instances in the Batch and Server modes.
+ * <ul>
+ *     <li>Digests are stored as raw bytes in a single array per algorithm, instead of a {@link CDLInstance.Hashes} object per file.</li>
+ *     <li>Directories of the paths are interned, as most of the files share them.</li>
+ *     <li>File names are shared between the path, the download URL and the name of the file, when they are equal.</li>
+ * </ul>
+ * @see CompactModFiles#get(int)
+ */
+public class CompactModFiles {
+    private static final int INITIAL_CAPACITY = 16;
+    private final List<String> pathDirectories = new ArrayList<>();
+    private final Map<String, Integer> pathDirectoryIndexes = new HashMap<>();
+    private int size = 0;
+    private String[] fileNames = new String[INITIAL_CAPACITY];
+    private int[] pathPrefixes = new int[INITIAL_CAPACITY];
+    private String[] pathNames = new String[INITIAL_CAPACITY];
+    private String[] urlPrefixes = new String[INITIAL_CAPACITY];
+    private String[] urlNames = new String[INITIAL_CAPACITY];
+    private String[][] mirrors = new String[INITIAL_CAPACITY][];
+    private long[] lengths = new long[INITIAL_CAPACITY];
+    /**
+     * CurseForge fingerprints are unsigned 32-bit values, -1 marks the files without them.
+     */
+    private long[] cfFingerprints = new long[INITIAL_CAPACITY];
+    private final DigestColumn sha1 = new DigestColumn(20);
+    private final DigestColumn sha256 = new DigestColumn(32);
+    private final DigestColumn sha512 = new DigestColumn(64);
+
+    /**
+     * Used to add a file to the list.
+     * @param file {@link CDLInstance.ModFile} to add.
+     * @return Index of the added file.
+     * @throws IllegalArgumentException when any of the digests has invalid length for its algorithm.
+     */
+    public synchronized int add(@NotNull CDLInstance.ModFile file) {
+        Objects.requireNonNull(file);
+        if (size == lengths.length) resize(size * 2);
+        int index = size;
+
+        fileNames[index] = file.fileName;
+        pathPrefixes[index] = (Objects.isNull(file.path))? -1: internDirectory(directory(file.path));
+        pathNames[index] = name(index, file.path);
+        urlPrefixes[index] = (Objects.isNull(file.downloadURL))? null: directory(file.downloadURL);
+        urlNames[index] = name(index, file.downloadURL);
+        mirrors[index] = file.mirrors;
+        lengths[index] = file.fileLength;
+        cfFingerprints[index] = (Objects.isNull(file.cfFingerprint))? -1: file.cfFingerprint;
+
+        if (Objects.nonNull(file.hashes)) {
+            sha1.put(index, file.hashes.sha1);
+            sha256.put(index, file.hashes.sha256);
+            sha512.put(index, file.hashes.sha512);
+        }
+        return size++;
+    }
+
+    /**
+     * Used to get the file under specified index, as a new {@link CDLInstance.ModFile} object.
+     * @param index Index of the file.
+     * @return New {@link CDLInstance.ModFile} with data of the file.
+     * @throws IndexOutOfBoundsException when index is out of bounds.
+     */
+    public synchronized CDLInstance.@NotNull ModFile get(int index) {
+        Objects.checkIndex(index, size);
+        CDLInstance.Hashes hashes = null;
+        if (sha1.has(index) || sha256.has(index) || sha512.has(index)) {
+            hashes = new CDLInstance.Hashes();
+            hashes.sha1 = sha1.get(index);
+            hashes.sha256 = sha256.get(index);
+            hashes.sha512 = sha512.get(index);
+        }
+
+        CDLInstance.ModFile file = new CDLInstance.ModFile(fileNames[index], getDownloadURL(index), lengths[index], hashes, getPath(index));
+        file.mirrors = mirrors[index];
+        if (cfFingerprints[index] >= 0) file.cfFingerprint = cfFingerprints[index];
+        return file;
+    }
+
+    private void resize(int capacity) {
+        fileNames = Arrays.copyOf(fileNames, capacity);
+        pathPrefixes = Arrays.copyOf(pathPrefixes, capacity);
+        pathNames = Arrays.copyOf(pathNames, capacity);
+        urlPrefixes = Arrays.copyOf(urlPrefixes, capacity);
+        urlNames = Arrays.copyOf(urlNames, capacity);
+        mirrors = Arrays.copyOf(mirrors, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        cfFingerprints = Arrays.copyOf(cfFingerprints, capacity);
+        sha1.resize(capacity);
+        sha256.resize(capacity);
+        sha512.resize(capacity);
+    }
+
+    private @Nullable String getPath(int index) {
+        return (pathPrefixes[index] < 0)? null: pathDirectories.get(pathPrefixes[index]) + pathNames[index];
+    }
+
+    private @Nullable String getDownloadURL(int index) {
+        return (Objects.isNull(urlPrefixes[index]))? null: urlPrefixes[index] + urlNames[index];
+    }
+
+    /**
+     * Directories of the paths are shared by most of the files, so they are kept only once.
+     * Directories of the download URLs are usually unique for each file, and are not interned.
+     * @return Index of the interned directory.
+     */
+    private int internDirectory(@NotNull String directory) {
+        return pathDirectoryIndexes.computeIfAbsent(directory, (key) -> {
+            pathDirectories.add(key);
+            return pathDirectories.size() - 1;
+        });
+    }
+
+    /**
+     * @return Part of the value up to the last "/".
+     */
+    private static @NotNull String directory(@NotNull String value) {
+        return value.substring(0, value.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * @return Part of the value after the last "/", sharing the name of the file when they are equal.
+     */
+    private @Nullable String name(int index, @Nullable String value) {
+        if (Objects.isNull(value)) return null;
+        String name = value.substring(value.lastIndexOf('/') + 1);
+        return (Objects.equals(name, fileNames[index]))? fileNames[index]: name;
+    }
+
+    /**
+     * This class holds digests of a single algorithm for all files, in a single array.
+     * Array is allocated only when the first digest is added, as most of the instances don't have hashes of all algorithms.
+     */
+    private static class DigestColumn {
+        private final int length;
+        private final BitSet present = new BitSet();
+        private byte[] data = null;
+        private int capacity = INITIAL_CAPACITY;
+
+        private DigestColumn(int length) {
+            this.length = length;
+        }
+
+        private void put(int index, byte @Nullable [] digest) {
+            if (Objects.isNull(digest)) return;
+            if (digest.length != length) throw new IllegalArgumentException("Digest has invalid length! Expected " + length + " bytes, got " + digest.length + ".");
+            if (Objects.isNull(data)) data = new byte[capacity * length];
+            System.arraycopy(digest, 0, data, index * length, length);
+            present.set(index);
+        }
+
+        private boolean has(int index) {
+            return present.get(index);
+        }
+
+        private byte @Nullable [] get(int index) {
+            if (!present.get(index)) return null;
+            return Arrays.copyOfRange(data, index * length, (index + 1) * length);
+        }
+
+        private void resize(int capacity) {
+            this.capacity = capacity;
+            if (Objects.nonNull(data)) data = Arrays.copyOf(data, capacity * length);
+        }
+    }
+
+}
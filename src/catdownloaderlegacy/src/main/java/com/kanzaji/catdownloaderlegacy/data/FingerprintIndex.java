@@ -0,0 +1,233 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.data;
+
+import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+import com.kanzaji.catdownloaderlegacy.utils.FileVerUtils;
+import com.kanzaji.catdownloaderlegacy.utils.JsonUtils;
+
+import com.google.gson.Gson;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class holds the Fingerprint Index of the instance, used by the fast verification tier.
+ * For every file that passed the verification with a hash, the index keeps its size, modification time and the expected content at that moment.
+ * Files with unchanged fingerprint are trusted without hashing them again, until they are selected for the deep scrub.
+ * @see FingerprintIndex#matches(CDLInstance.ModFile, Path)
+ * @see FingerprintIndex#selectForScrub(Collection, int, int)
+ */
+public class FingerprintIndex {
+    private static final LoggerCustom logger = new LoggerCustom("Fingerprint Index");
+    private static final Gson gson = JsonUtils.getCompactGson();
+    /**
+     * Algorithm of the optional checksum of the files, see {@code -FingerprintChecksum}.
+     */
+    public static final String CHECKSUM_ALGORITHM = "CRC32C";
+    public static final String latestFormatVersion = "1.0.0";
+    public String indexFormatVersion = latestFormatVersion;
+    /**
+     * Amount of the synchronizations the index was used in. Used for the full deep scrub every N runs.
+     */
+    public int runs = 0;
+    /**
+     * Fingerprints of the files, by path relative to the working directory.
+     */
+    public Map<String, Fingerprint> files = new ConcurrentHashMap<>();
+    /**
+     * Determines if checksums of the files are compared in the fast verification. Not serialized.
+     */
+    private transient boolean checksums = false;
+
+    /**
+     * Used to load the Fingerprint Index from specified file.
+     * @param file Path to the index file.
+     * @param checksums When {@code true}, {@link FingerprintIndex#CHECKSUM_ALGORITHM} checksums of the files are compared in addition to their size and modification time.
+     * @return Parsed FingerprintIndex, or an empty one if the file doesn't exist or can't be parsed.
+     */
+    public static @NotNull FingerprintIndex load(@NotNull Path file, boolean checksums) {
+        FingerprintIndex index = load(file);
+        index.checksums = checksums;
+        return index;
+    }
+
+    private static @NotNull FingerprintIndex load(@NotNull Path file) {
+        if (Files.notExists(file)) return new FingerprintIndex();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            FingerprintIndex index = gson.fromJson(reader, FingerprintIndex.class);
+            if (Objects.isNull(index) || !Objects.equals(index.indexFormatVersion, latestFormatVersion)) {
+                logger.warn("Fingerprint Index at \"" + file.toAbsolutePath() + "\" is in a different format version! All files will be verified with hashes.");
+                return new FingerprintIndex();
+            }
+            // Gson doesn't keep the type of the Map from the field initializer.
+            index.files = new ConcurrentHashMap<>(Objects.requireNonNullElse(index.files, Map.of()));
+            return index;
+        } catch (Exception e) {
+            logger.logStackTrace("Failed parsing Fingerprint Index! All files will be verified with hashes.", e);
+            return new FingerprintIndex();
+        }
+    }
+
+    /**
+     * @return {@code true} if checksums of the files are compared in the fast verification.
+     */
+    public boolean usesChecksums() {
+        return this.checksums;
+    }
+
+    /**
+     * Used to save the Fingerprint Index to specified file.
+     * @param file Path to the index file.
+     * @throws IOException when IO Exception occurs.
+     */
+    public void save(@NotNull Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            gson.toJson(this, writer);
+        }
+    }
+
+    /**
+     * Used to check if the file still has the fingerprint recorded in the index, and the expected content of the file hasn't changed since then.
+     * @param mod {@link CDLInstance.ModFile} to check.
+     * @param modPath Path to the file of the mod.
+     * @return {@code true} if the file can be trusted without hashing it with a cryptographic hash.
+     * @throws IOException when IO Exception occurs.
+     * @throws NoSuchAlgorithmException when checksum algorithm is not available.
+     */
+    public boolean matches(@NotNull CDLInstance.ModFile mod, @NotNull Path modPath) throws IOException, NoSuchAlgorithmException {
+        Fingerprint fingerprint = this.files.get(mod.getRelativePath());
+        if (Objects.isNull(fingerprint)) return false;
+        BasicFileAttributes attributes = Files.readAttributes(modPath, BasicFileAttributes.class);
+        boolean unchanged = attributes.size() == mod.fileLength &&
+                attributes.size() == fingerprint.size &&
+                attributes.lastModifiedTime().toMillis() == fingerprint.lastModified &&
+                Objects.equals(contentKey(mod), fingerprint.content);
+        if (!unchanged || !this.checksums) return unchanged;
+        return Objects.nonNull(fingerprint.checksum) && Objects.equals(FileVerUtils.getHash(modPath, CHECKSUM_ALGORITHM), fingerprint.checksum);
+    }
+
+    /**
+     * Used to record the fingerprint of the file, after it was verified with a hash.
+     * @param mod {@link CDLInstance.ModFile} that was verified.
+     * @param modPath Path to the file of the mod.
+     * @throws IOException when IO Exception occurs.
+     * @throws NoSuchAlgorithmException when checksum algorithm is not available.
+     */
+    public void record(@NotNull CDLInstance.ModFile mod, @NotNull Path modPath) throws IOException, NoSuchAlgorithmException {
+        record(mod, modPath, null);
+    }
+
+    /**
+     * Used to record the fingerprint of the file, after it was verified with a hash.
+     * @param mod {@link CDLInstance.ModFile} that was verified.
+     * @param modPath Path to the file of the mod.
+     * @param checksum Checksum of the file calculated while verifying it, or null to calculate it when checksums are used.
+     * @throws IOException when IO Exception occurs.
+     * @throws NoSuchAlgorithmException when checksum algorithm is not available.
+     */
+    public void record(@NotNull CDLInstance.ModFile mod, @NotNull Path modPath, @Nullable String checksum) throws IOException, NoSuchAlgorithmException {
+        BasicFileAttributes attributes = Files.readAttributes(modPath, BasicFileAttributes.class);
+        Fingerprint fingerprint = new Fingerprint();
+        fingerprint.size = attributes.size();
+        fingerprint.lastModified = attributes.lastModifiedTime().toMillis();
+        fingerprint.content = contentKey(mod);
+        fingerprint.lastScrubbed = System.currentTimeMillis();
+        if (this.checksums) fingerprint.checksum = (Objects.nonNull(checksum))? checksum: FileVerUtils.getHash(modPath, CHECKSUM_ALGORITHM);
+        this.files.put(mod.getRelativePath(), fingerprint);
+    }
+
+    /**
+     * Used to select files that have to be verified with hashes in this run, even if their fingerprint is unchanged.
+     * Files not scrubbed for the longest time are selected first, so every file is scrubbed at least once every {@code 100 / fraction} runs.
+     * @param paths Paths of the files in the instance, relative to the working directory.
+     * @param fraction Percent of the files to scrub in every run.
+     * @param everyRuns Amount of runs after which all files are scrubbed, or 0 to disable.
+     * @return {@link Set} with paths of the selected files.
+     */
+    public @NotNull Set<String> selectForScrub(@NotNull Collection<String> paths, int fraction, int everyRuns) {
+        this.runs++;
+        if (everyRuns > 0 && this.runs % everyRuns == 0) return new HashSet<>(paths);
+
+        int count = (int) Math.ceil(paths.size() * fraction / 100D);
+        Set<String> selected = new HashSet<>();
+        paths.stream()
+            .filter(this.files::containsKey)
+            .sorted(Comparator.comparingLong((String path) -> this.files.get(path).lastScrubbed))
+            .limit(count)
+            .forEach(selected::add);
+        return selected;
+    }
+
+    /**
+     * Used to remove fingerprints of the files that are no longer in the instance.
+     * @param paths Paths of the files in the instance, relative to the working directory.
+     */
+    public void retain(@NotNull Collection<String> paths) {
+        this.files.keySet().retainAll(new HashSet<>(paths));
+    }
+
+    /**
+     * Used to get the identifier of the expected content of the file. Changes when the instance expects a different file under the same path.
+     * @return The strongest hash available, then the CurseForge fingerprint, or the download URL of the file when there are none.
+     */
+    private static @NotNull String contentKey(CDLInstance.@NotNull ModFile mod) {
+        if (Objects.nonNull(mod.hashes)) {
+            if (Objects.nonNull(mod.hashes.sha512)) return "sha512:" + mod.hashes.getSha512();
+            if (Objects.nonNull(mod.hashes.sha256)) return "sha256:" + mod.hashes.getSha256();
+            if (Objects.nonNull(mod.hashes.sha1)) return "sha1:" + mod.hashes.getSha1();
+        }
+        if (Objects.nonNull(mod.cfFingerprint)) return "murmur2:" + mod.cfFingerprint;
+        return "url:" + mod.downloadURL;
+    }
+
+    public static class Fingerprint {
+        public long size;
+        /**
+         * Modification time of the file, in milliseconds since the epoch.
+         */
+        public long lastModified;
+        public String content;
+        /**
+         * Time the file was last verified with a hash, in milliseconds since the epoch.
+         */
+        public long lastScrubbed;
+        /**
+         * {@link FingerprintIndex#CHECKSUM_ALGORITHM} checksum of the file, when checksums are used.
+         */
+        public String checksum;
+    }
+}
@@ -0,0 +1,124 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.data;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * This class holds the result of the comparison between two versions of the {@link CDLInstance}, see {@link CDLInstance#diff(CDLInstance)}.
+ * Files are matched by their path, and are referenced by their index in the current version of the instance, except for removed files.
+ */
+public class InstanceDiff {
+    /**
+     * Indexes of the files that are present only in the current version.
+     */
+    public final List<Integer> added = new LinkedList<>();
+    /**
+     * Files of the previous version that are not present in the current version.
+     */
+    public final List<CDLInstance.ModFile> removed = new LinkedList<>();
+    /**
+     * Indexes of the files that are present in both versions, but their content has changed.
+     */
+    public final List<Integer> changed = new LinkedList<>();
+    /**
+     * Indexes of the files that are present in both versions, with the same content.
+     */
+    public final List<Integer> unchanged = new LinkedList<>();
+    /**
+     * Descriptions of the changes of the instance metadata, like the version of the modpack or the mod loader.
+     */
+    public final List<String> metadataChanges = new LinkedList<>();
+    private final Map<Integer, CDLInstance.ModFile> previousFiles = new HashMap<>();
+    private final CDLInstance current;
+
+    InstanceDiff(@NotNull CDLInstance current) {
+        this.current = current;
+    }
+
+    /**
+     * Used internally by {@link CDLInstance#diff(CDLInstance)} to save the file of the previous version matched with the file of the current version.
+     */
+    void match(int index, @NotNull CDLInstance.ModFile previousFile) {
+        this.previousFiles.put(index, previousFile);
+    }
+
+    /**
+     * Used to get the file of the previous version, matched by the path with the file of the current version.
+     * @param index Index of the file in the current version.
+     * @return File from the previous version, or null if file was added.
+     */
+    public @Nullable CDLInstance.ModFile getPrevious(int index) {
+        return this.previousFiles.get(index);
+    }
+
+    /**
+     * Used to copy hashes of the unchanged files from the previous version, when they are missing in the current version.
+     * @return Amount of the files with hashes carried over.
+     */
+    public int carryForwardHashes() {
+        int carried = 0;
+        for (int index: this.unchanged) {
+            CDLInstance.ModFile file = this.current.files[index];
+            CDLInstance.Hashes previousHashes = this.previousFiles.get(index).hashes;
+            if (Objects.isNull(previousHashes) || !previousHashes.isPopulated()) continue;
+
+            if (Objects.isNull(file.hashes)) file.hashes = new CDLInstance.Hashes();
+            if (file.hashes.fillMissing(previousHashes)) carried++;
+        }
+        return carried;
+    }
+
+    /**
+     * @return {@link Set} with indexes of the added and changed files, that have to be verified or downloaded.
+     */
+    public @NotNull Set<Integer> getModifiedIndexes() {
+        Set<Integer> modified = new HashSet<>(this.added);
+        modified.addAll(this.changed);
+        return modified;
+    }
+
+    /**
+     * @return {@code true} if any file was added, removed or changed.
+     */
+    public boolean hasFileChanges() {
+        return !this.added.isEmpty() || !this.removed.isEmpty() || !this.changed.isEmpty();
+    }
+
+    /**
+     * @return {@code true} if metadata of the instance has changed.
+     */
+    public boolean hasMetadataChanges() {
+        return !this.metadataChanges.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return this.added.size() + " added, " + this.removed.size() + " removed, " + this.changed.size() + " changed, " + this.unchanged.size() + " unchanged";
+    }
+}
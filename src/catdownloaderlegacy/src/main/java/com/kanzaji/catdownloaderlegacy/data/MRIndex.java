@@ -24,8 +24,9 @@
 
 package com.kanzaji.catdownloaderlegacy.data;
 
+import com.kanzaji.catdownloaderlegacy.utils.JsonUtils;
+
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.annotations.SerializedName;
 
 /**
@@ -45,7 +46,7 @@ public class MRIndex {
     public MRModFile[] files;
 
     public static class MRModFile {
-        private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        private static final Gson gson = JsonUtils.getGson();
         @Override
         public String toString() {
             return gson.toJson(this);
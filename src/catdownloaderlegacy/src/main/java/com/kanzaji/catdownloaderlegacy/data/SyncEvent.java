@@ -0,0 +1,70 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.data;
+
+import com.kanzaji.catdownloaderlegacy.utils.JsonUtils;
+
+import com.google.gson.Gson;
+
+import java.time.Instant;
+
+/**
+ * This class holds the data schema for the progress events of the synchronization, streamed by the HTTP API of the app.
+ * <h3>Types of the events:</h3>
+ * <ul>
+ *     <li>{@code started} / {@code finished} - Synchronization of the instance has started / finished. Finished event holds exit code in the result.</li>
+ *     <li>{@code verification} / {@code download} - Phase of the synchronization has started. Result holds amount of files in the phase.</li>
+ *     <li>{@code verified} - File has been verified. Result is 0 for correct file, 1 for missing file, -1 for corrupted file.</li>
+ *     <li>{@code downloaded} - File has been downloaded. Result is 0 for successful download, -1 for failed download.</li>
+ *     <li>{@code removed} - File has been removed.</li>
+ *     <li>{@code error} - Exception has been thrown for the file.</li>
+ * </ul>
+ */
+@SuppressWarnings("unused")
+public class SyncEvent {
+    private static final Gson gson = JsonUtils.getCompactGson();
+    public String type;
+    public String file;
+    public Integer result;
+    public String message;
+    public String time = Instant.now().toString();
+
+    public SyncEvent() {}
+    public SyncEvent(String type, String file, Integer result, String message) {
+        this.type = type;
+        this.file = file;
+        this.result = result;
+        this.message = message;
+    }
+
+    /**
+     * Used to get String representation of this object in JSON format, in a single line.
+     * @return JSON String generated based on the values of this object.
+     */
+    @Override
+    public String toString() {
+        return gson.toJson(this);
+    }
+}
@@ -0,0 +1,97 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.data;
+
+import com.kanzaji.catdownloaderlegacy.utils.JsonUtils;
+
+import com.google.gson.Gson;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * This class holds the data schema for the Synchronization Plan, generated by the app in the Dry Run mode.
+ * Plan describes what the synchronization would do, without doing any changes to the working directory.
+ */
+@SuppressWarnings("unused")
+public class SyncPlan {
+    private static final Gson gson = JsonUtils.getGson();
+    public static final String latestFormatVersion = "1.0.0";
+    public String planFormatVersion = latestFormatVersion;
+    public String instanceName;
+    public String modpackVersion;
+    public String workingDirectory;
+    public String generated;
+    public List<PlannedFile> download = new LinkedList<>();
+    public List<String> remove = new LinkedList<>();
+    public List<String> ok = new LinkedList<>();
+    /**
+     * Files that were skipped due to the blacklist in the Settings file.
+     */
+    public List<String> ignored = new LinkedList<>();
+    /**
+     * Files that couldn't be verified due to an exception, or can't be downloaded in the current mode.
+     */
+    public List<String> failed = new LinkedList<>();
+    public long estimatedBytes = 0;
+    /**
+     * Estimated time of the downloads in seconds, based on the bandwidth from the configuration.
+     */
+    public long estimatedSeconds = 0;
+
+    /**
+     * @return {@code true} if synchronization would change anything in the working directory.
+     */
+    public boolean hasChanges() {
+        return !this.download.isEmpty() || !this.remove.isEmpty();
+    }
+
+    /**
+     * Used to get String representation of this object in JSON format.
+     * @return JSON String generated based on the values of this object.
+     */
+    @Override
+    public String toString() {
+        return gson.toJson(this);
+    }
+
+    public static class PlannedFile {
+        public String path;
+        public String downloadURL;
+        public long size;
+        /**
+         * Either {@code missing} or {@code corrupted}.
+         */
+        public String reason;
+
+        public PlannedFile() {}
+        public PlannedFile(String path, String downloadURL, long size, String reason) {
+            this.path = path;
+            this.downloadURL = downloadURL;
+            this.size = size;
+            this.reason = reason;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.data;
+
+import com.kanzaji.catdownloaderlegacy.utils.JsonUtils;
+
+import com.google.gson.Gson;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * This class holds the data schema for the Synchronization Statistics, gathered by the SyncManager at the end of the synchronization.
+ * Exposed by the HTTP API of the app, see Server mode.
+ */
+@SuppressWarnings("unused")
+public class SyncStatistics {
+    private static final Gson gson = JsonUtils.getGson();
+    public static final String latestFormatVersion = "1.0.0";
+    public String statisticsFormatVersion = latestFormatVersion;
+    public String instanceName;
+    public String modpackVersion;
+    public String workingDirectory;
+    public String finished;
+    public int files = 0;
+    public int verified = 0;
+    public int missing = 0;
+    public int corrupted = 0;
+    public int downloaded = 0;
+    public int removed = 0;
+    /**
+     * Files selected for the deep scrub of the fast verification tier.
+     */
+    public int scrubbed = 0;
+    /**
+     * Files that were skipped due to the blacklist in the Settings file.
+     */
+    public List<String> ignoredVerification = new LinkedList<>();
+    public List<String> ignoredRemoval = new LinkedList<>();
+    public List<String> failedVerifications = new LinkedList<>();
+    public List<String> failedDownloads = new LinkedList<>();
+    public List<String> failedRemovals = new LinkedList<>();
+    public int dataGatheringWarnings = 0;
+    /**
+     * Memory statistics of the synchronization, see {@link com.kanzaji.catdownloaderlegacy.utils.MemoryStatistics}.
+     */
+    public long peakHeapBytes = 0;
+    public long garbageCollections = 0;
+    public long garbageCollectionMillis = 0;
+
+    /**
+     * @return {@code true} if any errors were found while doing the synchronization.
+     */
+    public boolean hasErrors() {
+        return !this.failedVerifications.isEmpty() || !this.failedDownloads.isEmpty() || !this.failedRemovals.isEmpty();
+    }
+
+    /**
+     * Used to get String representation of this object in JSON format.
+     * @return JSON String generated based on the values of this object.
+     */
+    @Override
+    public String toString() {
+        return gson.toJson(this);
+    }
+}
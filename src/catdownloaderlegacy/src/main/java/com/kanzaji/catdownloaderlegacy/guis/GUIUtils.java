@@ -37,11 +37,15 @@ import java.awt.*;
  */
 public class GUIUtils {
     private static final LoggerCustom logger = new LoggerCustom("GUI Utilities");
+    private static boolean lookAndFeelSet = false;
 
     /**
      * This method is used to set LookAndFeel of GUI's to the system one.
+     * @apiNote This loads AWT and Swing, so it should be called only right before the first GUI is shown. Subsequent calls do nothing.
      */
-    public static void setLookAndFeel() {
+    public static synchronized void setLookAndFeel() {
+        if (lookAndFeelSet) return;
+        lookAndFeelSet = true;
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
         } catch (Exception e) {
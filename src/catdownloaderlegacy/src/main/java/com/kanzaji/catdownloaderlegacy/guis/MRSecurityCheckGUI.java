@@ -24,9 +24,10 @@
 
 package com.kanzaji.catdownloaderlegacy.guis;
 
+import com.kanzaji.catdownloaderlegacy.ArgumentDecoder;
 import com.kanzaji.catdownloaderlegacy.data.MRIndex;
+import com.kanzaji.catdownloaderlegacy.exceptions.SyncAbortedException;
 import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
-import com.kanzaji.catdownloaderlegacy.utils.RandomUtils;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
@@ -37,9 +38,11 @@ public class MRSecurityCheckGUI {
     private static final LoggerCustom logger = new LoggerCustom("Modrinth Security Check");
 
     /**
-     * This method is used to prompt the user about possibly malicious intent of the pack they are trying to install. Closes the app with 401 exit code.
+     * This method is used to prompt the user about possibly malicious intent of the pack they are trying to install.
+     * Alert window is not shown in the Batch and Server modes, or when there is no display available.
      * @param mod Mod file that tripped the security check.
      * @param MRIndexData Modrinth Index Data of the pack that contained illegal mod file.
+     * @throws SyncAbortedException always, with 401 exit code, to stop synchronization of the instance.
      */
     @Contract(value = "_,_ -> fail")
     public static void modrinthSecurityCheckFail(MRIndex.@NotNull MRModFile mod, @NotNull MRIndex MRIndexData) {
@@ -56,6 +59,12 @@ public class MRSecurityCheckGUI {
         logger.print(mod.toString(), 3);
         logger.print("Pack that was meant to be installed: " + MRIndexData.name + " " + MRIndexData.versionId);
 
+        ArgumentDecoder ARD = ArgumentDecoder.getInstance();
+        if (ARD.isBatchMode() || ARD.isServerMode() || GraphicsEnvironment.isHeadless()) {
+            throw new SyncAbortedException(401, "Illegal path found in the pack.");
+        }
+
+        GUIUtils.setLookAndFeel();
         Container panel = new JPanel();
         panel.setLayout(new BoxLayout(panel, BoxLayout.PAGE_AXIS));
 
@@ -89,6 +98,6 @@ public class MRSecurityCheckGUI {
         panel.add(jl);
         JOptionPane.showMessageDialog(null, panel, "CatDownloader Legacy - SECURITY ALERT", JOptionPane.PLAIN_MESSAGE);
 
-        RandomUtils.closeTheApp(401);
+        throw new SyncAbortedException(401, "Illegal path found in the pack.");
     }
 }
@@ -188,20 +188,19 @@ public class UpdaterGUI {
                         null
                 );
             }
-            Updater.actionSelected = true;
+            Updater.selectAction(false);
         });
 
         RemindButton.addActionListener(actionEvent -> {
             disableButtons();
-            Updater.actionSelected = true;
+            Updater.selectAction(false);
             MainFrame.setVisible(false);
         });
 
         UpdateButton.addActionListener(actionEvent -> {
             disableButtons();
-            Updater.shouldUpdate = true;
-            Updater.actionSelected = true;
             MainFrame.setVisible(false);
+            Updater.selectAction(true);
         });
     }
 
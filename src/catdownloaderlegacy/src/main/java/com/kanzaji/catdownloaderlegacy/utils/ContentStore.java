@@ -0,0 +1,106 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.utils;
+
+import com.kanzaji.catdownloaderlegacy.data.CDLInstance;
+import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class holds a content-addressed index of the files verified in the current run of the app.
+ * When the same file is required by another instance (in the Batch mode), it can be copied from the disk instead of being downloaded again.
+ * @see ContentStore#copyTo(CDLInstance.Hashes, Path)
+ */
+public class ContentStore {
+    private static final LoggerCustom logger = new LoggerCustom("Content Store");
+    private static final String[] ALGORITHMS = {"SHA-512", "SHA-256", "SHA-1"};
+    /**
+     * Files are indexed by the raw digests, wrapped in the {@link ByteBuffer} for equality and hashCode based on the content.
+     */
+    private static final Map<String, Map<ByteBuffer, Path>> files = new ConcurrentHashMap<>();
+
+    /**
+     * Used to register verified file under all of its hashes.
+     * @param hashes {@link CDLInstance.Hashes} of the file.
+     * @param file Path to the verified file.
+     */
+    public static void register(@Nullable CDLInstance.Hashes hashes, @NotNull Path file) {
+        if (Objects.isNull(hashes)) return;
+        for (String algorithm: ALGORITHMS) {
+            byte[] digest = hashes.getDigest(algorithm);
+            if (Objects.nonNull(digest)) files.computeIfAbsent(algorithm, (key) -> new ConcurrentHashMap<>()).put(ByteBuffer.wrap(digest), file);
+        }
+    }
+
+    /**
+     * Used to find a verified file with any of the specified hashes.
+     * @param hashes {@link CDLInstance.Hashes} of the required file.
+     * @return Path to the file, or null if there is none.
+     */
+    public static @Nullable Path lookup(@Nullable CDLInstance.Hashes hashes) {
+        if (Objects.isNull(hashes)) return null;
+        Path file = null;
+        for (String algorithm: ALGORITHMS) {
+            byte[] digest = hashes.getDigest(algorithm);
+            Map<ByteBuffer, Path> index = files.get(algorithm);
+            if (Objects.isNull(digest) || Objects.isNull(index)) continue;
+            file = index.get(ByteBuffer.wrap(digest));
+            if (Objects.nonNull(file)) break;
+        }
+        return (Objects.nonNull(file) && Files.isRegularFile(file))? file: null;
+    }
+
+    /**
+     * Used to copy a file with any of the specified hashes to the destination.
+     * @param hashes {@link CDLInstance.Hashes} of the required file.
+     * @param destination Path for the copy.
+     * @return {@code true} if the file was found and copied, otherwise {@code false}.
+     * @apiNote Copied file is not verified, as the source could have been changed since it was registered.
+     */
+    public static boolean copyTo(@Nullable CDLInstance.Hashes hashes, @NotNull Path destination) {
+        Path source = lookup(hashes);
+        if (Objects.isNull(source) || source.equals(destination)) return false;
+        try {
+            if (Files.notExists(FileUtils.getParentFolder(destination))) FileUtils.createRequiredPathToAFile(destination);
+            Files.copy(source, destination, StandardCopyOption.REPLACE_EXISTING);
+            logger.log("Copied " + destination.getFileName() + " from \"" + source + "\" instead of downloading it.");
+            return true;
+        } catch (IOException e) {
+            logger.logStackTrace("Failed to copy \"" + source + "\" to \"" + destination + "\"!", e);
+            return false;
+        }
+    }
+}
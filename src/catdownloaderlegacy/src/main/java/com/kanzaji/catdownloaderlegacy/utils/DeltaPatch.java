@@ -0,0 +1,280 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.utils;
+
+import com.kanzaji.catdownloaderlegacy.exceptions.UnknownFormatException;
+import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * This class holds methods for the binary patches used by the delta updates of the app.
+ * <h3>Format of the patch:</h3>
+ * <ul>
+ *     <li>Header: {@code "CDLPATCH"}, format version (int), SHA-256 of the source file (32 bytes), SHA-256 of the target file (32 bytes), size of the target file (long).</li>
+ *     <li>Deflate-compressed operations, each starting with its type (byte):
+ *     {@code COPY} (offset in the source file as long, length as int), {@code DATA} (length as int, followed by the bytes), and {@code END}.</li>
+ * </ul>
+ * @see DeltaPatch#apply(Path, Path, Path)
+ * @see DeltaPatch#create(Path, Path, Path)
+ */
+public class DeltaPatch {
+    private static final LoggerCustom logger = new LoggerCustom("Delta Patch");
+    public static final String EXTENSION = ".cdlpatch";
+    private static final byte[] MAGIC = "CDLPATCH".getBytes(StandardCharsets.US_ASCII);
+    private static final int FORMAT_VERSION = 1;
+    private static final byte END = 0;
+    private static final byte COPY = 1;
+    private static final byte DATA = 2;
+    /**
+     * Size of the blocks of the source file matched in the target file by {@link DeltaPatch#create(Path, Path, Path)}.
+     */
+    private static final int BLOCK_SIZE = 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Used to create the patch for a release from the command line, for example in the release workflow.
+     * Patch is written next to the new app jar, with the name looked up by the updater of the old version.
+     * <h3>Usage:</h3>
+     * {@code java -cp <new app jar> com.kanzaji.catdownloaderlegacy.utils.DeltaPatch <old app jar> <old version> <new app jar> <new version tag>}
+     * @param args Paths to the old and new app jars, with their versions.
+     */
+    public static void main(String @NotNull [] args) throws IOException, NoSuchAlgorithmException {
+        if (args.length != 4) {
+            System.out.println("Usage: DeltaPatch <old app jar> <old version> <new app jar> <new version tag>");
+            System.exit(1);
+        }
+        Path source = Path.of(args[0]);
+        Path target = Path.of(args[2]);
+        Path patch = target.toAbsolutePath().resolveSibling(getPatchName(args[1], args[3]));
+        create(source, target, patch);
+        System.out.println("Patch \"" + patch + "\" created. (" + Files.size(patch) + " bytes for " + Files.size(target) + " bytes of the new app)");
+    }
+
+    /**
+     * Used to get the name of the patch between two versions of the app, as published with the release.
+     * @param From Version of the app the patch applies to.
+     * @param To Tag of the release the patch updates to.
+     * @return Name of the patch file.
+     */
+    public static @NotNull String getPatchName(@NotNull String From, @NotNull String To) {
+        return "Cat-Downloader-Legacy-" + From + "-to-" + To + EXTENSION;
+    }
+
+    /**
+     * Used to apply the patch to the source file. Target file is written as a stream, while its hash is calculated.
+     * @param Source {@link Path} to the file the patch was created for.
+     * @param Patch {@link Path} to the patch file.
+     * @param Target {@link Path} to the file to write. Deleted when the patch fails.
+     * @throws IOException when IO Exception occurs.
+     * @throws UnknownFormatException when the patch file is not in the supported format.
+     * @throws IllegalStateException when the patch doesn't match the source file, or the result doesn't match the target hash.
+     * @throws NoSuchAlgorithmException when SHA-256 Digest is not available.
+     */
+    public static void apply(@NotNull Path Source, @NotNull Path Patch, @NotNull Path Target) throws IOException, NoSuchAlgorithmException {
+        Objects.requireNonNull(Source);
+        Objects.requireNonNull(Patch);
+        Objects.requireNonNull(Target);
+
+        try (DataInputStream patchData = new DataInputStream(new BufferedInputStream(Files.newInputStream(Patch)))) {
+            byte[] magic = patchData.readNBytes(MAGIC.length);
+            if (!Arrays.equals(magic, MAGIC)) throw new UnknownFormatException("File \"" + Patch.getFileName() + "\" is not a CDL patch!");
+            int formatVersion = patchData.readInt();
+            if (formatVersion != FORMAT_VERSION) throw new UnknownFormatException("Unsupported version of the CDL patch (" + formatVersion + ")!");
+
+            byte[] sourceHash = patchData.readNBytes(32);
+            byte[] targetHash = patchData.readNBytes(32);
+            long targetSize = patchData.readLong();
+
+            String localHash = FileVerUtils.getHash(Source, "SHA-256");
+            if (!Objects.equals(localHash, HexFormat.of().formatHex(sourceHash))) {
+                throw new IllegalStateException("Patch has been created for a different file! Expected SHA-256 " + HexFormat.of().formatHex(sourceHash) + ", found " + localHash);
+            }
+
+            MessageDigest MD = MessageDigest.getInstance("SHA-256");
+            long written = 0;
+            try (
+                FileChannel sourceChannel = FileChannel.open(Source, StandardOpenOption.READ);
+                DataInputStream operations = new DataInputStream(new BufferedInputStream(new InflaterInputStream(patchData)));
+                OutputStream output = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(Target)), MD)
+            ) {
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                byte operation;
+                while ((operation = operations.readByte()) != END) {
+                    switch (operation) {
+                        case COPY -> {
+                            long offset = operations.readLong();
+                            int length = operations.readInt();
+                            if (offset < 0 || length < 0 || offset + length > sourceChannel.size()) throw new UnknownFormatException("Copy operation outside the source file!");
+                            while (length > 0) {
+                                buffer.clear().limit(Math.min(length, BUFFER_SIZE));
+                                int read = sourceChannel.read(buffer, offset);
+                                if (read < 0) throw new EOFException("Unexpected end of the source file!");
+                                output.write(buffer.array(), 0, read);
+                                offset += read;
+                                length -= read;
+                                written += read;
+                            }
+                        }
+                        case DATA -> {
+                            int length = operations.readInt();
+                            if (length < 0) throw new UnknownFormatException("Negative length of the data operation!");
+                            while (length > 0) {
+                                int read = operations.read(buffer.array(), 0, Math.min(length, BUFFER_SIZE));
+                                if (read < 0) throw new EOFException("Unexpected end of the patch file!");
+                                output.write(buffer.array(), 0, read);
+                                length -= read;
+                                written += read;
+                            }
+                        }
+                        default -> throw new UnknownFormatException("Unknown operation in the patch (" + operation + ")!");
+                    }
+                    if (written > targetSize) throw new IllegalStateException("Patch produces file larger than expected!");
+                }
+            }
+
+            if (written != targetSize || !MessageDigest.isEqual(MD.digest(), targetHash)) {
+                throw new IllegalStateException("Patched file doesn't match the expected size or SHA-256 hash!");
+            }
+            logger.log("Patch \"" + Patch.getFileName() + "\" applied successfully. (" + written + " bytes written)");
+        } catch (Exception e) {
+            Files.deleteIfExists(Target);
+            throw e;
+        }
+    }
+
+    /**
+     * Used to create the patch between two versions of the file. Used by {@link DeltaPatch#main(String[])} to publish delta updates.
+     * Blocks of the source file found anywhere in the target file are copied from the source file; everything else is stored in the patch.
+     * @param Source {@link Path} to the old version of the file.
+     * @param Target {@link Path} to the new version of the file.
+     * @param Patch {@link Path} to the patch file to write.
+     * @throws IOException when IO Exception occurs.
+     * @throws NoSuchAlgorithmException when SHA-256 Digest is not available.
+     * @apiNote Both files are loaded to the memory, it's meant for the app jars.
+     */
+    public static void create(@NotNull Path Source, @NotNull Path Target, @NotNull Path Patch) throws IOException, NoSuchAlgorithmException {
+        byte[] source = Files.readAllBytes(Source);
+        byte[] target = Files.readAllBytes(Target);
+
+        // Weak hash of each block of the source file -> offset of the first block with that hash.
+        Map<Long, Integer> blocks = new HashMap<>();
+        for (int offset = 0; offset + BLOCK_SIZE <= source.length; offset += BLOCK_SIZE) {
+            blocks.putIfAbsent(weakHash(source, offset), offset);
+        }
+
+        try (DataOutputStream patch = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(Patch)))) {
+            patch.write(MAGIC);
+            patch.writeInt(FORMAT_VERSION);
+            patch.write(MessageDigest.getInstance("SHA-256").digest(source));
+            patch.write(MessageDigest.getInstance("SHA-256").digest(target));
+            patch.writeLong(target.length);
+
+            DeflaterOutputStream compressed = new DeflaterOutputStream(patch);
+            DataOutputStream operations = new DataOutputStream(compressed);
+            int literalStart = 0;
+            int position = 0;
+            int a = 0, b = 0;
+            boolean hashValid = false;
+
+            while (position + BLOCK_SIZE <= target.length) {
+                if (!hashValid) {
+                    long hash = weakHash(target, position);
+                    a = (int) hash;
+                    b = (int) (hash >>> 32);
+                    hashValid = true;
+                }
+
+                Integer match = blocks.get(((long) b << 32) | (a & 0xFFFFFFFFL));
+                if (Objects.nonNull(match) && Arrays.equals(source, match, match + BLOCK_SIZE, target, position, position + BLOCK_SIZE)) {
+                    int length = BLOCK_SIZE;
+                    while (match + length < source.length && position + length < target.length && source[match + length] == target[position + length]) length++;
+
+                    writeData(operations, target, literalStart, position);
+                    operations.writeByte(COPY);
+                    operations.writeLong(match);
+                    operations.writeInt(length);
+
+                    position += length;
+                    literalStart = position;
+                    hashValid = false;
+                    continue;
+                }
+
+                // Rolling the hash by a single byte.
+                if (position + BLOCK_SIZE < target.length) {
+                    int out = target[position] & 0xFF;
+                    int in = target[position + BLOCK_SIZE] & 0xFF;
+                    a = a - out + in;
+                    b = b - BLOCK_SIZE * out + a;
+                }
+                position++;
+            }
+
+            writeData(operations, target, literalStart, target.length);
+            operations.writeByte(END);
+            operations.flush();
+            compressed.finish();
+        }
+        logger.log("Patch \"" + Patch.getFileName() + "\" created. (" + Files.size(Patch) + " bytes for " + target.length + " bytes of the target file)");
+    }
+
+    private static void writeData(@NotNull DataOutputStream operations, byte[] data, int from, int to) throws IOException {
+        if (to <= from) return;
+        operations.writeByte(DATA);
+        operations.writeInt(to - from);
+        operations.write(data, from, to - from);
+    }
+
+    /**
+     * Rolling checksum of the block, in the form used by rsync. Lower half holds the sum of the bytes, upper half holds the weighted sum.
+     */
+    private static long weakHash(byte[] data, int offset) {
+        int a = 0, b = 0;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            a += data[offset + i] & 0xFF;
+            b += (BLOCK_SIZE - i) * (data[offset + i] & 0xFF);
+        }
+        return ((long) b << 32) | (a & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,197 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.utils;
+
+import com.kanzaji.catdownloaderlegacy.ArgumentDecoder;
+import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.security.Security;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32C;
+
+/**
+ * This class is an abstraction over the algorithms used to calculate digests of the files.
+ * <ul>
+ *     <li>Cryptographic hashes (SHA-1, SHA-256, SHA-512) are calculated with {@link MessageDigest}, from the provider selected with {@code -DigestProvider:}.</li>
+ *     <li>{@code CRC32C} is a fast non-cryptographic checksum, intrinsified by the JVM. Used only for the local Fingerprint Index, never to compare with a manifest.</li>
+ * </ul>
+ * Amount of the data and time spent in each algorithm is collected, see {@link Digest#logSummary()}.
+ * @see Digest#getInstance(String)
+ */
+public abstract class Digest {
+    private static final LoggerCustom logger = new LoggerCustom("Digest");
+    private static final ArgumentDecoder ARD = ArgumentDecoder.getInstance();
+    private static final Map<String, LongAdder[]> statistics = new ConcurrentSkipListMap<>();
+    private static final AtomicBoolean providerWarning = new AtomicBoolean(false);
+    private final String algorithm;
+    private long bytes = 0;
+    private long nanos = 0;
+
+    protected Digest(@NotNull String algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Used to get a new Digest object for specified algorithm.
+     * @param Algorithm Name of the algorithm, one of {@code SHA-1}, {@code SHA-256}, {@code SHA-512} or {@code CRC32C}, or any other supported by the {@link MessageDigest}.
+     * @return New Digest object.
+     * @throws NoSuchAlgorithmException when Algorithm is not supported.
+     */
+    public static @NotNull Digest getInstance(@NotNull String Algorithm) throws NoSuchAlgorithmException {
+        Objects.requireNonNull(Algorithm);
+        if (Objects.equals(Algorithm.toUpperCase(Locale.ROOT), "CRC32C")) return new ChecksumDigest();
+        return new JCADigest(Algorithm, getMessageDigest(Algorithm));
+    }
+
+    /**
+     * Used to get {@link MessageDigest} from the provider selected in the arguments. Falls back to the default provider of the JVM, if the selected one is not available or doesn't support the algorithm.
+     */
+    private static @NotNull MessageDigest getMessageDigest(@NotNull String Algorithm) throws NoSuchAlgorithmException {
+        String providerName = ARD.getDigestProvider();
+        if (!providerName.isEmpty()) {
+            Provider provider = Security.getProvider(providerName);
+            try {
+                if (Objects.nonNull(provider)) return MessageDigest.getInstance(Algorithm, provider);
+            } catch (NoSuchAlgorithmException ignored) {}
+            if (providerWarning.compareAndSet(false, true)) {
+                logger.warn("Digest provider \"" + providerName + "\" is not available or doesn't support " + Algorithm + "! Default provider of the JVM will be used.");
+            }
+        }
+        return MessageDigest.getInstance(Algorithm);
+    }
+
+    /**
+     * Used to update the digest with specified data.
+     * @param Buffer Array with the data.
+     * @param Offset Offset of the data in the array.
+     * @param Length Length of the data.
+     */
+    public void update(byte @NotNull [] Buffer, int Offset, int Length) {
+        long start = System.nanoTime();
+        engineUpdate(Buffer, Offset, Length);
+        this.nanos += System.nanoTime() - start;
+        this.bytes += Length;
+    }
+
+    /**
+     * Used to finish the calculations and get the result. Digest is reset afterwards.
+     * @return Array with the result of the calculations.
+     */
+    public byte @NotNull [] digest() {
+        long start = System.nanoTime();
+        byte[] digest = engineDigest();
+        this.nanos += System.nanoTime() - start;
+
+        LongAdder[] total = statistics.computeIfAbsent(this.algorithm, (key) -> new LongAdder[]{new LongAdder(), new LongAdder()});
+        total[0].add(this.bytes);
+        total[1].add(this.nanos);
+        Metrics.DIGESTED_BYTES.add(this.bytes, this.algorithm);
+        this.bytes = 0;
+        this.nanos = 0;
+        return digest;
+    }
+
+    /**
+     * @return Name of the algorithm of this digest.
+     */
+    public @NotNull String getAlgorithm() {
+        return this.algorithm;
+    }
+
+    protected abstract void engineUpdate(byte[] Buffer, int Offset, int Length);
+    protected abstract byte[] engineDigest();
+
+    /**
+     * Used to reset the statistics of all algorithms.
+     */
+    public static void reset() {
+        statistics.clear();
+    }
+
+    /**
+     * Used to log amount of the data and throughput of each algorithm used since the last reset.
+     * Time is summed over all threads, so throughput is the one of a single thread.
+     */
+    public static void logSummary() {
+        statistics.forEach((algorithm, total) -> {
+            long bytes = total[0].sum();
+            long nanos = total[1].sum();
+            logger.log(String.format(Locale.ROOT,
+                "%s: %.2fMB in %dms (%.2f MB/s)",
+                algorithm, bytes / (1024D * 1024D), nanos / 1_000_000, (nanos > 0)? bytes / (1024D * 1024D) / (nanos / 1_000_000_000D): 0D
+            ));
+        });
+    }
+
+    private static class JCADigest extends Digest {
+        private final MessageDigest digest;
+
+        private JCADigest(String algorithm, MessageDigest digest) {
+            super(algorithm);
+            this.digest = digest;
+        }
+
+        @Override
+        protected void engineUpdate(byte[] Buffer, int Offset, int Length) {
+            this.digest.update(Buffer, Offset, Length);
+        }
+
+        @Override
+        protected byte[] engineDigest() {
+            return this.digest.digest();
+        }
+    }
+
+    private static class ChecksumDigest extends Digest {
+        private final CRC32C checksum = new CRC32C();
+
+        private ChecksumDigest() {
+            super("CRC32C");
+        }
+
+        @Override
+        protected void engineUpdate(byte[] Buffer, int Offset, int Length) {
+            this.checksum.update(Buffer, Offset, Length);
+        }
+
+        @Override
+        protected byte[] engineDigest() {
+            byte[] digest = ByteBuffer.allocate(4).putInt((int) this.checksum.getValue()).array();
+            this.checksum.reset();
+            return digest;
+        }
+    }
+}
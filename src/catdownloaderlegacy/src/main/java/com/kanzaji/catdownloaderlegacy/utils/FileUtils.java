@@ -24,6 +24,7 @@
 
 package com.kanzaji.catdownloaderlegacy.utils;
 
+import com.kanzaji.catdownloaderlegacy.ArgumentDecoder;
 import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
 
 import org.jetbrains.annotations.NotNull;
@@ -32,14 +33,17 @@ import org.jetbrains.annotations.Nullable;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.rmi.UnexpectedException;
 import java.util.*;
-import java.util.stream.Stream;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 
 /**
@@ -50,6 +54,7 @@ import java.util.zip.ZipFile;
  */
 public class FileUtils {
     private static final LoggerCustom logger = new LoggerCustom("File Utilities");
+    private static final int UNZIP_BUFFER_SIZE = 256 * 1024;
 
     /**
      * Used to get an {@link InputStream} for an internal resource. Starts from the `root` directory of the jar.
@@ -113,13 +118,15 @@ public class FileUtils {
 
     /**
      * This method is used to move a file or directory to a specified destination.
+     * Directories are moved with a single rename when possible, otherwise their content is moved file by file.
      * @param FileOrFolder File or Folder to move.
      * @param Destination Destination folder to move.
      * @param override Boolean determining override rules for already existing files.
+     * @param parallel Boolean determining if the directory tree should be processed by multiple threads.
      * @throws IOException when IO Exception occurs.
      * @throws IllegalArgumentException when Destination is not a Directory.
      */
-    public static void move(Path FileOrFolder, Path Destination, boolean override) throws IOException, IllegalArgumentException {
+    public static void move(Path FileOrFolder, Path Destination, boolean override, boolean parallel) throws IOException, IllegalArgumentException {
         Objects.requireNonNull(FileOrFolder);
         Objects.requireNonNull(Destination);
 
@@ -127,38 +134,68 @@ public class FileUtils {
 
         Path finalPath = Path.of(Destination.toString(), FileOrFolder.getFileName().toString());
 
-        HashSet<Exception> exceptionsHashSet = new HashSet<>();
-        if (Files.isDirectory(FileOrFolder)) {
-            createRequiredPath(finalPath);
-            Stream<Path> dirListing = Files.list(FileOrFolder);
+        if (!Files.isDirectory(FileOrFolder, LinkOption.NOFOLLOW_LINKS)) {
+            logger.log("Moving file \"" + FileOrFolder + "\" to the folder \"" + Destination + "\"");
+            moveFile(FileOrFolder, finalPath, override);
+            return;
+        }
+
+        if (Files.notExists(finalPath) && Files.getFileStore(FileOrFolder).equals(Files.getFileStore(Destination))) {
+            try {
+                Files.move(FileOrFolder, finalPath, StandardCopyOption.ATOMIC_MOVE);
+                logger.log("Directory \"" + FileOrFolder + "\" has been moved to the folder \"" + Destination + "\"");
+                return;
+            } catch (IOException e) {
+                logger.warn("Failed to rename directory \"" + FileOrFolder + "\" in place (" + e + "). Moving its content file by file...");
+            }
+        }
+
+        TreeOperation operation = new TreeOperation() {
+            @Override
+            void preVisitDirectory(Path dir) throws IOException {
+                Files.createDirectories(finalPath.resolve(FileOrFolder.relativize(dir).toString()));
+            }
 
-            dirListing.forEach((File) -> {
+            @Override
+            void visitFile(Path file) throws IOException {
+                moveFile(file, finalPath.resolve(FileOrFolder.relativize(file).toString()), override);
+            }
+
+            @Override
+            void postVisitDirectory(Path dir) throws IOException {
+                // Directories with files that were not overridden have to stay in place.
                 try {
-                    move(File, finalPath, override);
-                } catch (IOException e) {
-                    exceptionsHashSet.add(new IOException(File.toAbsolutePath().toString(), e));
-                }
-            });
-            dirListing.close();
+                    Files.deleteIfExists(dir);
+                } catch (DirectoryNotEmptyException ignored) {}
+            }
+        };
+        operation.run(FileOrFolder, parallel);
+
+        logger.log(
+            "Directory \"" + FileOrFolder + "\" has been moved to the folder \"" + Destination + "\" (" +
+            RandomUtils.intGrammar(operation.files.intValue(), " file, ", " files, ", true) +
+            RandomUtils.intGrammar(operation.directories.intValue(), " directory)", " directories)", true)
+        );
+        operation.throwIfFailed("IO Exception occurred while moving the folder " + FileOrFolder.toAbsolutePath());
+    }
 
+    /**
+     * Used to move a single file to the final path, respecting override rules.
+     * @param File {@link Path} to a file to move.
+     * @param Target {@link Path} to the final location of the file.
+     * @param override Boolean determining override rules for already existing files.
+     * @throws IOException when IO Exception occurs.
+     */
+    private static void moveFile(Path File, Path Target, boolean override) throws IOException {
+        if (override) {
+            Files.move(File, Target, StandardCopyOption.REPLACE_EXISTING);
         } else {
-            logger.log("Moving file \"" + FileOrFolder + "\" to the folder \"" + Destination + "\"");
-            if (override) {
-                Files.move(FileOrFolder, finalPath, StandardCopyOption.REPLACE_EXISTING);
+            if (Files.exists(Target)) {
+                logger.warn("File \"" + Target + "\" already exists!");
             } else {
-                if (Files.exists(finalPath)) {
-                    logger.warn("File \"" + finalPath + "\" already exists!");
-                } else {
-                    Files.move(FileOrFolder, finalPath);
-                }
+                Files.move(File, Target);
             }
         }
-
-        if (exceptionsHashSet.size() > 0) {
-            IOException ioe = new IOException("IO Exception occurred while deleting the folder" + FileOrFolder.toAbsolutePath());
-            exceptionsHashSet.forEach(ioe::addSuppressed);
-            throw ioe;
-        }
     }
 
     /**
@@ -168,39 +205,150 @@ public class FileUtils {
      * @throws IOException when IO Exception occurs.
      */
     public static void delete(@NotNull Path FileOrFolder) throws IOException, NullPointerException {
+        delete(FileOrFolder, false);
+    }
+
+    /**
+     * This method is used to automatically delete a file or a folder.
+     * @param FileOrFolder Path to a file or a folder designated to deletion.
+     * @param parallel Boolean determining if the directory tree should be processed by multiple threads.
+     * @throws NullPointerException when the argument is null.
+     * @throws IOException when IO Exception occurs.
+     */
+    public static void delete(@NotNull Path FileOrFolder, boolean parallel) throws IOException, NullPointerException {
         Objects.requireNonNull(FileOrFolder);
 
-        if (Files.notExists(FileOrFolder)) {
+        if (Files.notExists(FileOrFolder, LinkOption.NOFOLLOW_LINKS)) {
             logger.warn("Tried to delete already not existent file!");
             logger.warn("Path: \"" + FileOrFolder.toAbsolutePath() + "\".");
             return;
         }
 
-        if (!Files.isDirectory(FileOrFolder)) {
+        if (!Files.isDirectory(FileOrFolder, LinkOption.NOFOLLOW_LINKS)) {
             Files.deleteIfExists(FileOrFolder);
             logger.log("File \"" + FileOrFolder + "\" has been deleted.");
             return;
         }
 
+        TreeOperation operation = new TreeOperation() {
+            @Override
+            void preVisitDirectory(Path dir) {}
+
+            @Override
+            void visitFile(Path file) throws IOException {
+                Files.deleteIfExists(file);
+            }
+
+            @Override
+            void postVisitDirectory(Path dir) throws IOException {
+                Files.deleteIfExists(dir);
+            }
+        };
+        operation.run(FileOrFolder, parallel);
+
+        operation.throwIfFailed("IO Exception occurred while deleting the folder" + FileOrFolder.toAbsolutePath());
+        logger.log(
+            "Directory \"" + FileOrFolder + "\" has been deleted (" +
+            RandomUtils.intGrammar(operation.files.intValue(), " file, ", " files, ", true) +
+            RandomUtils.intGrammar(operation.directories.intValue(), " directory)", " directories)", true)
+        );
+    }
+
+    /**
+     * This method is used to apply the content of a directory onto another directory as a diff.
+     * Files with the same size and content as the destination are skipped, changed files are replaced atomically,
+     * and new files are moved to the destination. Skipped files are left in the source directory.
+     * @param Source {@link Path} to a directory with the content to apply.
+     * @param Destination {@link Path} to a directory the content is going to be applied on.
+     * @return {@link OverlayReport} with the amount of skipped, updated, new and failed files.
+     * @throws IOException when IO Exception occurs while walking the Source directory. Exceptions for single files and directories are logged and counted as failed.
+     * @throws IllegalArgumentException when Source or Destination is not a Directory.
+     */
+    public static @NotNull OverlayReport overlay(@NotNull Path Source, @NotNull Path Destination) throws IOException, IllegalArgumentException {
+        Objects.requireNonNull(Source);
+        Objects.requireNonNull(Destination);
+
+        if (!Files.isDirectory(Source)) throw new IllegalArgumentException("Source is not a directory! \"" + Source + "\"");
+        if (!Files.isDirectory(Destination)) throw new IllegalArgumentException("Destination is not a directory! \"" + Destination + "\"");
+
+        OverlayReport report = new OverlayReport();
         HashSet<Exception> exceptionsHashSet = new HashSet<>();
-        try (Stream<Path> directoryListing = Files.list(FileOrFolder)) {
-            directoryListing.forEach((File) -> {
+
+        Files.walkFileTree(Source, new SimpleFileVisitor<>() {
+            @Override
+            public @NotNull FileVisitResult preVisitDirectory(@NotNull Path dir, @NotNull BasicFileAttributes attrs) {
+                Path target = Destination.resolve(Source.relativize(dir).toString());
                 try {
-                    delete(File);
+                    if (!Files.isDirectory(target)) Files.createDirectories(target);
                 } catch (IOException e) {
-                    exceptionsHashSet.add(new IOException(File.toAbsolutePath().toString(), e));
+                    // Content of the directory can't be applied without the target directory, the rest of the tree still can.
+                    exceptionsHashSet.add(new IOException(dir.toAbsolutePath().toString(), e));
+                    report.failed++;
+                    return FileVisitResult.SKIP_SUBTREE;
                 }
-            });
-        }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public @NotNull FileVisitResult visitFile(@NotNull Path file, @NotNull BasicFileAttributes attrs) {
+                Path target = Destination.resolve(Source.relativize(file).toString());
+                try {
+                    if (Files.notExists(target)) {
+                        Files.move(file, target);
+                        report.created++;
+                    } else if (Files.size(target) == attrs.size() && Files.mismatch(file, target) == -1L) {
+                        report.skipped++;
+                    } else {
+                        replaceAtomically(file, target);
+                        report.updated++;
+                    }
+                } catch (IOException e) {
+                    exceptionsHashSet.add(new IOException(file.toAbsolutePath().toString(), e));
+                    report.failed++;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
 
-        Files.deleteIfExists(FileOrFolder);
+        logger.log(
+            "Applied \"" + Source.toAbsolutePath() + "\" onto \"" + Destination.toAbsolutePath() + "\": " +
+            report.skipped + " unchanged, " + report.updated + " updated, " + report.created + " new, " + report.failed + " failed."
+        );
 
-        if (exceptionsHashSet.size() > 0) {
-            IOException ioe = new IOException("IO Exception occurred while deleting the folder" + FileOrFolder.toAbsolutePath());
-            exceptionsHashSet.forEach(ioe::addSuppressed);
-            throw ioe;
-        } else {
-            logger.log("Directory \"" + FileOrFolder + "\" has been deleted.");
+        // Failed files don't stop the overlay, the caller decides what to do with the report.
+        exceptionsHashSet.forEach((e) -> logger.logStackTrace("Failed applying \"" + e.getMessage() + "\"!", e));
+        return report;
+    }
+
+    /**
+     * Used to replace a file with another one, without leaving partially written file in its place.
+     * Falls back to copying to a unique temporary file next to the target and renaming, if the files are on different file systems.
+     * Temporary file is deleted when the fallback fails.
+     * @param File {@link Path} to a file with the new content.
+     * @param Target {@link Path} to a file to replace.
+     * @throws IOException when IO Exception occurs.
+     */
+    private static void replaceAtomically(@NotNull Path File, @NotNull Path Target) throws IOException {
+        try {
+            Files.move(File, Target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Unique name, so overlays running at the same time don't write to the same temporary file.
+            Path temporary = Files.createTempFile(Target.toAbsolutePath().getParent(), Target.getFileName().toString(), ".cdltmp");
+            try {
+                Files.copy(File, temporary, StandardCopyOption.REPLACE_EXISTING);
+                try {
+                    Files.move(temporary, Target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e2) {
+                    Files.move(temporary, Target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException e2) {
+                    logger.warn("Failed deleting temporary file \"" + temporary.toAbsolutePath() + "\"!");
+                }
+            }
+            Files.deleteIfExists(File);
         }
     }
 
@@ -246,10 +394,12 @@ public class FileUtils {
 
     /**
      * This method is used to unzip a ZIP archive. Other types are not supported.
+     * Entries are split between multiple workers, each one reading from its own handle to the archive.
      * @param zipFilePath Path to the zip file.
      * @param destinationPath Path to the destination. (@Nullable)
      * @param shouldDeleteZipFile Determines if uncompressed zip file should be deleted.
      * @throws IOException when IO Exception occurs.
+     * @throws ZipException when one of the entries tries to escape the destination directory.
      */
     public static void unzip(Path zipFilePath, @Nullable Path destinationPath, boolean shouldDeleteZipFile) throws IOException {
         Objects.requireNonNull(zipFilePath);
@@ -267,34 +417,139 @@ public class FileUtils {
             throw new IllegalStateException("Destination for the zip archive \"" + zipFilePath.toAbsolutePath() + "\" is a file!");
         }
 
-        logger.log("Destination: \"" + destinationPath.toAbsolutePath() + "\"");
+        Path destination = destinationPath.toAbsolutePath().normalize();
+        logger.log("Destination: \"" + destination + "\"");
 
-        long dirs = 0;
-        long files = 0;
+        List<ZipEntry> fileEntries = new ArrayList<>();
+        Set<Path> directories = new HashSet<>();
         try (ZipFile zipFile = new ZipFile(zipFilePath.toFile())) {
-            logger.log("Archive contains " + zipFile.stream().toList().size() + " entries.");
+            logger.log("Archive contains " + zipFile.size() + " entries.");
             Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
             while (zipEntries.hasMoreElements()) {
                 ZipEntry zipEntry = zipEntries.nextElement();
-                Path dirOrFile = Path.of(destinationPath.toString(), zipEntry.getName());
+                Path dirOrFile = resolveZipEntry(destination, zipEntry);
                 if (zipEntry.isDirectory()) {
-                    Files.createDirectory(dirOrFile);
-                    logger.log("Directory \"" + dirOrFile + "\" has been created.");
-                    dirs++;
+                    directories.add(dirOrFile);
                 } else {
-                    Files.copy(zipFile.getInputStream(zipEntry), dirOrFile);
-                    logger.log("File \"" + dirOrFile + "\" has been created.");
-                    files++;
+                    // Parent directories are not always present as separate entries in the archive.
+                    directories.add(dirOrFile.getParent());
+                    fileEntries.add(zipEntry);
                 }
             }
         }
 
+        long dirs = 0;
+        for (Path directory : directories) {
+            if (Files.isDirectory(directory)) continue;
+            Files.createDirectories(directory);
+            dirs++;
+        }
+
+        long files = extractEntries(zipFilePath, destination, fileEntries);
+
         logger.log("Archive \"" + zipFilePath.toAbsolutePath() + "\" has been successfully uncompressed.");
         logger.log(files + " files have been created.");
         logger.log(dirs + " directories have been created");
         if (shouldDeleteZipFile) delete(zipFilePath);
     }
 
+    /**
+     * Used to get a destination of the zip entry, making sure it doesn't leave the destination directory.
+     * @param destination Normalized, absolute {@link Path} to the destination directory.
+     * @param zipEntry {@link ZipEntry} to resolve.
+     * @return {@link Path} inside the destination directory for the entry.
+     * @throws ZipException when the entry points outside the destination directory.
+     */
+    private static @NotNull Path resolveZipEntry(@NotNull Path destination, @NotNull ZipEntry zipEntry) throws ZipException {
+        Path dirOrFile = destination.resolve(zipEntry.getName()).normalize();
+        if (!dirOrFile.startsWith(destination) || dirOrFile.equals(destination) && !zipEntry.isDirectory()) {
+            logger.critical("Zip entry \"" + zipEntry.getName() + "\" points outside of the destination directory!");
+            throw new ZipException("Illegal path found in the zip archive! Entry: \"" + zipEntry.getName() + "\"");
+        }
+        return dirOrFile;
+    }
+
+    /**
+     * Used to extract file entries from the zip archive in parallel.
+     * Entries are distributed between workers by their uncompressed size, largest first.
+     * @param zipFilePath Path to the zip file.
+     * @param destination Normalized, absolute {@link Path} to the destination directory.
+     * @param fileEntries List of {@link ZipEntry} objects to extract. Directories for them have to exist already.
+     * @return Number of extracted files.
+     * @throws IOException when any of the workers fails.
+     */
+    private static long extractEntries(Path zipFilePath, Path destination, @NotNull List<ZipEntry> fileEntries) throws IOException {
+        if (fileEntries.isEmpty()) return 0;
+
+        int workers = Math.min(
+            Math.min(ArgumentDecoder.getInstance().getThreads(), Runtime.getRuntime().availableProcessors()),
+            fileEntries.size()
+        );
+
+        // Greedy partitioning, each entry goes to the worker with the least bytes assigned.
+        fileEntries.sort(Comparator.comparingLong(ZipEntry::getSize).reversed());
+        List<List<ZipEntry>> partitions = new ArrayList<>(workers);
+        long[] partitionSizes = new long[workers];
+        for (int i = 0; i < workers; i++) partitions.add(new ArrayList<>());
+        for (ZipEntry zipEntry : fileEntries) {
+            int smallest = 0;
+            for (int i = 1; i < workers; i++) {
+                if (partitionSizes[i] < partitionSizes[smallest]) smallest = i;
+            }
+            partitions.get(smallest).add(zipEntry);
+            partitionSizes[smallest] += Math.max(zipEntry.getSize(), 0);
+        }
+
+        logger.log("Extracting " + fileEntries.size() + " files with " + RandomUtils.intGrammar(workers, " worker", " workers", true) + "...");
+
+        List<Callable<Long>> tasks = new ArrayList<>(workers);
+        for (List<ZipEntry> partition : partitions) {
+            tasks.add(() -> {
+                byte[] buffer = new byte[UNZIP_BUFFER_SIZE];
+                long extracted = 0;
+                try (ZipFile zipFile = new ZipFile(zipFilePath.toFile())) {
+                    for (ZipEntry zipEntry : partition) {
+                        Path file = destination.resolve(zipEntry.getName()).normalize();
+                        try (
+                            InputStream input = zipFile.getInputStream(zipEntry);
+                            OutputStream output = Files.newOutputStream(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)
+                        ) {
+                            int read;
+                            while ((read = input.read(buffer)) > 0) output.write(buffer, 0, read);
+                        }
+                        extracted++;
+                    }
+                }
+                return extracted;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        HashSet<Exception> exceptionsHashSet = new HashSet<>();
+        long files = 0;
+        try {
+            for (Future<Long> result : executor.invokeAll(tasks)) {
+                try {
+                    files += result.get();
+                } catch (ExecutionException e) {
+                    exceptionsHashSet.add((e.getCause() instanceof Exception cause)? cause: e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while extracting \"" + zipFilePath.toAbsolutePath() + "\"!");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (exceptionsHashSet.size() > 0) {
+            IOException ioe = new IOException("IO Exception occurred while extracting the archive " + zipFilePath.toAbsolutePath());
+            exceptionsHashSet.forEach(ioe::addSuppressed);
+            throw ioe;
+        }
+        return files;
+    }
+
     /**
      * Used to compress a specified File to a Gz archive.
      * @param File Not Null {@link Path} to a file specified for compression.
@@ -464,7 +719,17 @@ public class FileUtils {
      * @throws IOException when IO Exception occurs.
      * @throws IllegalArgumentException when Destination is not a Directory.
      */
-    public static void move(Path FileOrFolder, Path Destination) throws IOException, IllegalArgumentException { move(FileOrFolder, Destination, false); }
+    public static void move(Path FileOrFolder, Path Destination) throws IOException, IllegalArgumentException { move(FileOrFolder, Destination, false, false); }
+
+    /**
+     * This method is used to move a file or directory to a specified destination.
+     * @param FileOrFolder File or Folder to move.
+     * @param Destination Destination folder to move.
+     * @param override Boolean determining override rules for already existing files.
+     * @throws IOException when IO Exception occurs.
+     * @throws IllegalArgumentException when Destination is not a Directory.
+     */
+    public static void move(Path FileOrFolder, Path Destination, boolean override) throws IOException, IllegalArgumentException { move(FileOrFolder, Destination, override, false); }
 
     /**
      * This method creates all requires directories for the specified path to exist.
@@ -473,4 +738,130 @@ public class FileUtils {
      * @apiNote Be aware, this method is meant to be used with files, and will get a parent folder of specified Path.
      */
     public static void createRequiredPathToAFile(@NotNull Path path) throws UnexpectedException {createRequiredPath(path.getParent());}
+
+    /**
+     * Class holding results of the {@link FileUtils#overlay(Path, Path)} operation.
+     */
+    public static class OverlayReport {
+        public long skipped = 0;
+        public long updated = 0;
+        public long created = 0;
+        public long failed = 0;
+    }
+
+    /**
+     * Engine used to walk a directory tree and apply an operation to its entries.
+     * Sequential mode uses {@link Files#walkFileTree(Path, FileVisitor)},
+     * parallel mode processes each directory as a separate {@link RecursiveAction}.
+     * Exceptions for single entries are collected, so the rest of the tree is still processed.
+     */
+    private static abstract class TreeOperation {
+        final LongAdder files = new LongAdder();
+        final LongAdder directories = new LongAdder();
+        final Set<Exception> exceptions = ConcurrentHashMap.newKeySet();
+
+        abstract void preVisitDirectory(Path dir) throws IOException;
+        abstract void visitFile(Path file) throws IOException;
+        abstract void postVisitDirectory(Path dir) throws IOException;
+
+        /**
+         * Used to run the operation on the specified directory tree. Symbolic links are not followed.
+         * @param root {@link Path} to the root directory of the tree.
+         * @param parallel Boolean determining if the tree should be processed by multiple threads.
+         * @throws IOException when walking the tree fails.
+         */
+        void run(Path root, boolean parallel) throws IOException {
+            if (!parallel) {
+                Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                    @Override
+                    public @NotNull FileVisitResult preVisitDirectory(@NotNull Path dir, @NotNull BasicFileAttributes attrs) {
+                        return attempt(dir, () -> TreeOperation.this.preVisitDirectory(dir))? FileVisitResult.CONTINUE: FileVisitResult.SKIP_SUBTREE;
+                    }
+
+                    @Override
+                    public @NotNull FileVisitResult visitFile(@NotNull Path file, @NotNull BasicFileAttributes attrs) {
+                        if (attempt(file, () -> TreeOperation.this.visitFile(file))) files.increment();
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public @NotNull FileVisitResult visitFileFailed(@NotNull Path file, @NotNull IOException exc) {
+                        exceptions.add(new IOException(file.toAbsolutePath().toString(), exc));
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public @NotNull FileVisitResult postVisitDirectory(@NotNull Path dir, @Nullable IOException exc) {
+                        if (Objects.nonNull(exc)) exceptions.add(new IOException(dir.toAbsolutePath().toString(), exc));
+                        if (attempt(dir, () -> TreeOperation.this.postVisitDirectory(dir))) directories.increment();
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+                return;
+            }
+
+            ForkJoinPool pool = new ForkJoinPool(ArgumentDecoder.getInstance().getThreads());
+            try {
+                pool.invoke(new DirectoryTask(root));
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        /**
+         * Used to throw collected exceptions, if any.
+         * @param message {@link String} with a message for the thrown exception.
+         * @throws IOException with all collected exceptions attached as suppressed.
+         */
+        void throwIfFailed(String message) throws IOException {
+            if (exceptions.isEmpty()) return;
+            IOException ioe = new IOException(message);
+            exceptions.forEach(ioe::addSuppressed);
+            throw ioe;
+        }
+
+        private boolean attempt(Path path, IOAction action) {
+            try {
+                action.run();
+                return true;
+            } catch (IOException e) {
+                exceptions.add(new IOException(path.toAbsolutePath().toString(), e));
+                return false;
+            }
+        }
+
+        private interface IOAction {
+            void run() throws IOException;
+        }
+
+        private class DirectoryTask extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+            private final Path dir;
+
+            private DirectoryTask(Path dir) {
+                this.dir = dir;
+            }
+
+            @Override
+            protected void compute() {
+                if (!attempt(dir, () -> preVisitDirectory(dir))) return;
+
+                List<DirectoryTask> subDirectories = new ArrayList<>();
+                try (DirectoryStream<Path> directoryListing = Files.newDirectoryStream(dir)) {
+                    for (Path entry : directoryListing) {
+                        if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                            subDirectories.add(new DirectoryTask(entry));
+                        } else if (attempt(entry, () -> visitFile(entry))) {
+                            files.increment();
+                        }
+                    }
+                } catch (IOException e) {
+                    exceptions.add(new IOException(dir.toAbsolutePath().toString(), e));
+                }
+
+                invokeAll(subDirectories);
+                if (attempt(dir, () -> postVisitDirectory(dir))) directories.increment();
+            }
+        }
+    }
 }
@@ -30,14 +30,13 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.math.BigInteger;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.Objects;
+import java.util.*;
 
 /**
  * This class holds utility methods related to verification of the files.
@@ -45,9 +44,13 @@ import java.util.Objects;
  */
 public class FileVerUtils {
     private static final LoggerCustom logger = new LoggerCustom("File Verification Utilities");
+    /**
+     * Size of the buffer used for hash calculations. Bigger buffer reduces amount of the reads for multi-GB files.
+     */
+    private static final int HASH_BUFFER_SIZE = 64*1024;
 
     /**
-     * Used to verify integrity of the file with use of {@link FileVerUtils#verifyFileSize(Path, int)} and {@link FileVerUtils#verifyHash(Path, String, String)}.
+     * Used to verify integrity of the file with use of {@link FileVerUtils#verifyFileSize(Path, long)} and {@link FileVerUtils#verifyHash(Path, String, String)}.
      * @param File {@link Path} to a file designated for verification.
      * @param Size {@link Number} with Expected file length.
      * @param Hash {@link String} with Expected Hash value.
@@ -65,7 +68,7 @@ public class FileVerUtils {
     }
 
     /**
-     * Used to verify integrity of the file with use of {@link FileVerUtils#verifyFileSize(Path, int)} and {@link FileVerUtils#verifyHash(Path, String)}.
+     * Used to verify integrity of the file with use of {@link FileVerUtils#verifyFileSize(Path, long)} and {@link FileVerUtils#verifyHash(Path, String)}.
      * @param File {@link Path} to a file designated for verification.
      * @param Size {@link Number} with Expected file length.
      * @param URL {@link String} DownloadURL for Hash verification.
@@ -88,17 +91,17 @@ public class FileVerUtils {
      * @throws IOException when IO Operation fails.
      */
     public static boolean verifyFileSize(Path File, @NotNull Number Size) throws IOException {
-        return verifyFileSize(File, Size.intValue());
+        return verifyFileSize(File, Size.longValue());
     }
 
     /**
      * File size verification. Can be disabled with an argument!
      * @param File {@link Path} to a file designated for verification.
-     * @param Size {@link Number} with Expected file length.
+     * @param Size Expected file length.
      * @return {@link Boolean} with the result of the verification.
      * @throws IOException when IO Operation fails.
      */
-    public static boolean verifyFileSize(Path File, int Size) throws IOException {
+    public static boolean verifyFileSize(Path File, long Size) throws IOException {
         if (!ArgumentDecoder.getInstance().isFileSizeVerActive()) {
             return true;
         }
@@ -108,6 +111,7 @@ public class FileVerUtils {
     /**
      * Used to verify a file using Hash calculations with specified algorithm, comparing to passed Hash value.
      * @param File {@link Path} to a file to calculate Hash from.
+     * @param Hash {@link String} with Expected Hash value. For {@link Murmur2#ALGORITHM}, decimal value of the CurseForge fingerprint.
      * @param Algorithm {@link String} Algorithm to use for Calculations.
      * @return {@link Byte} array with the result of the Hash calculations
      * @throws IOException when IO operation fails.
@@ -117,7 +121,17 @@ public class FileVerUtils {
         if (!ArgumentDecoder.getInstance().isHashVerActive()) {
             return true;
         }
-        return Objects.equals(getHash(File, Algorithm), Hash);
+        if (Objects.equals(Algorithm, Murmur2.ALGORITHM)) return Objects.equals(String.valueOf(Murmur2.fingerprint(File)), Hash);
+        if (Objects.isNull(Hash)) return false;
+
+        byte[] expected;
+        try {
+            expected = HexFormat.of().parseHex(Hash);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Expected " + Algorithm + " hash of " + File.getFileName() + " is not a valid hex String! (" + Hash + ")");
+            return false;
+        }
+        return MessageDigest.isEqual(getDigest(File, Algorithm), expected);
     }
 
     /**
@@ -132,7 +146,7 @@ public class FileVerUtils {
         if (!ArgumentDecoder.getInstance().isHashVerActive()) {
             return true;
         }
-        return Objects.equals(getHash(File), getHash(DownloadURL));
+        return MessageDigest.isEqual(getDigest(null, File, "SHA-256"), getDigest(DownloadURL, null, "SHA-256"));
     }
 
     /**
@@ -193,6 +207,26 @@ public class FileVerUtils {
      * @apiNote Non-Fatal exception will be thrown and logged when both DownloadURL and FilePath are not-null.
      */
     private static @NotNull String getHash(String DownloadURL, Path FilePath, String Algorithm) throws IOException, NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(getDigest(DownloadURL, FilePath, Algorithm));
+    }
+
+    /**
+     * Used to get a raw digest of a file with specified algorithm.
+     * @param FilePath {@link Path} to a file to calculate the digest from.
+     * @param Algorithm {@link String} Algorithm to use for Calculations.
+     * @return {@link Byte} array with the result of the Hash calculations.
+     * @throws IOException when IO operation fails.
+     * @throws NoSuchAlgorithmException when Hash Verification complains about Algorithm.
+     */
+    public static byte @NotNull [] getDigest(Path FilePath, String Algorithm) throws IOException, NoSuchAlgorithmException {
+        return getDigest(null, FilePath, Algorithm);
+    }
+
+    /**
+     * Used to get a raw digest from a file or URL. Either DownloadURL or FilePath should be null.
+     * @see FileVerUtils#getHash(String, Path, String)
+     */
+    private static byte @NotNull [] getDigest(String DownloadURL, Path FilePath, String Algorithm) throws IOException, NoSuchAlgorithmException {
         Objects.requireNonNull(Algorithm);
 
         if (Objects.isNull(DownloadURL) && Objects.isNull(FilePath)) {
@@ -206,7 +240,7 @@ public class FileVerUtils {
         }
 
         InputStream InputData;
-        MessageDigest MD = MessageDigest.getInstance(Algorithm);
+        Digest digest = Digest.getInstance(Algorithm);
 
         if (Objects.isNull(DownloadURL)) {
             if (Files.notExists(FilePath)) throw new NoSuchFileException("Specified File to use for calculating hash value (" + Algorithm +") doesn't exists!");
@@ -215,18 +249,45 @@ public class FileVerUtils {
             InputData = new URL(DownloadURL).openStream();
         }
 
-        byte[] Buffer = new byte[4096];
-        int read;
+        return digest(InputData, List.of(digest)).get(0);
+    }
 
-        while((read = InputData.read(Buffer)) > 0)
-            MD.update(Buffer, 0, read);
+    /**
+     * Used to get raw digests of multiple algorithms from a file, reading the file only once.
+     * @param FilePath {@link Path} to a file to calculate the digests from.
+     * @param Algorithms Algorithms to use for Calculations.
+     * @return {@link Map} with the raw result for each algorithm.
+     * @throws IOException when IO operation fails.
+     * @throws NoSuchAlgorithmException when Hash Verification complains about Algorithm.
+     */
+    public static @NotNull Map<String, byte[]> getDigests(@NotNull Path FilePath, String @NotNull ... Algorithms) throws IOException, NoSuchAlgorithmException {
+        if (Files.notExists(FilePath)) throw new NoSuchFileException("Specified File to use for calculating hash values (" + String.join(", ", Algorithms) +") doesn't exists!");
+        List<Digest> digests = new ArrayList<>(Algorithms.length);
+        for (String Algorithm: Algorithms) digests.add(Digest.getInstance(Algorithm));
 
-        InputData.close();
+        List<byte[]> results = digest(Files.newInputStream(FilePath), digests);
+        Map<String, byte[]> hashes = new LinkedHashMap<>();
+        for (int i = 0; i < Algorithms.length; i++) hashes.put(Algorithms[i], results.get(i));
+        return hashes;
+    }
 
-        StringBuilder hash = new StringBuilder(new BigInteger(1, MD.digest()).toString(16));
-        while (hash.length() < MD.getDigestLength()*2) {
-            hash.insert(0, "0");
+    /**
+     * Used to feed all data from the stream to passed digests. Stream is closed afterwards.
+     * @return {@link List} with results of the digests, in the same order.
+     */
+    private static @NotNull List<byte[]> digest(@NotNull InputStream InputData, @NotNull List<Digest> Digests) throws IOException {
+        byte[] Buffer = new byte[HASH_BUFFER_SIZE];
+        int read;
+
+        try (InputData) {
+            while((read = InputData.read(Buffer)) > 0) {
+                SyncLifecycle.checkpoint();
+                for (Digest digest: Digests) digest.update(Buffer, 0, read);
+            }
         }
-        return hash.toString();
+
+        List<byte[]> results = new ArrayList<>(Digests.size());
+        for (Digest digest: Digests) results.add(digest.digest());
+        return results;
     }
 }
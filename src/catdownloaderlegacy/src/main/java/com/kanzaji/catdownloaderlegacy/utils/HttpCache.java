@@ -0,0 +1,223 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.utils;
+
+import com.kanzaji.catdownloaderlegacy.ArgumentDecoder;
+import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+
+import com.google.gson.Gson;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * This class is a small cache of the responses of the APIs (GitHub releases, cfwidget, Modrinth), saved in the Cache directory.
+ * Responses with {@code ETag} or {@code Last-Modified} headers are stored, and revalidated with {@code If-None-Match} and {@code If-Modified-Since} on the next request.
+ * When the data hasn't changed, server responds with 304 (Not Modified) without the body, and the stored body is used instead.
+ * Entries not used for {@link HttpCache#MAX_ENTRY_AGE} are removed once per run, together with the least recently used ones above {@link HttpCache#MAX_CACHE_SIZE}.
+ * @see HttpCache#getString(HttpURLConnection)
+ */
+public class HttpCache {
+    private static final LoggerCustom logger = new LoggerCustom("HTTP Cache");
+    private static final ArgumentDecoder ARD = ArgumentDecoder.getInstance();
+    private static final Gson gson = JsonUtils.getCompactGson();
+    public static final String DIRECTORY_NAME = "CDL-HTTP-Cache";
+    private static final Duration MAX_ENTRY_AGE = Duration.ofDays(30);
+    private static final long MAX_CACHE_SIZE = 32L * 1024L * 1024L;
+    private static final AtomicBoolean evicted = new AtomicBoolean(false);
+
+    /**
+     * Used to get the body of the response for specified connection, revalidating the stored response if there is one.
+     * Connection can't be connected yet, as the conditional headers have to be added to the request.
+     * @param Connection {@link HttpURLConnection} to get the response from.
+     * @return {@link String} with the body of the response.
+     * @throws IOException when the request fails, or server responds with an error. Exception is the same as the one thrown by {@link HttpURLConnection#getInputStream()}.
+     * @apiNote When caches are disabled, this method only reads the body of the response.
+     */
+    public static @NotNull String getString(@NotNull HttpURLConnection Connection) throws IOException {
+        Objects.requireNonNull(Connection);
+        String url = Connection.getURL().toString();
+        Path entryPath = getEntryPath(url);
+        if (Objects.nonNull(entryPath) && evicted.compareAndSet(false, true)) evict(entryPath.getParent());
+        Entry entry = (Objects.nonNull(entryPath))? readEntry(entryPath, url): null;
+
+        if (Objects.nonNull(entry)) {
+            if (Objects.nonNull(entry.etag)) Connection.setRequestProperty("If-None-Match", entry.etag);
+            if (Objects.nonNull(entry.lastModified)) Connection.setRequestProperty("If-Modified-Since", entry.lastModified);
+        }
+
+        NetworkingUtils.recordStatus(Connection);
+        if (Objects.nonNull(entry) && Connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            Metrics.CACHE_REQUESTS.inc("http", "hit");
+            logger.log("Response for " + url + " has not been modified, using the cached one.");
+            Connection.disconnect();
+            // Modification time of the entry marks its last use for the eviction.
+            try {
+                Files.setLastModifiedTime(entryPath, FileTime.from(Instant.now()));
+            } catch (IOException e) {
+                logger.warn("Failed updating last use of the cached response for " + url + "!");
+            }
+            return entry.body;
+        }
+
+        String body;
+        try (InputStream InputData = Connection.getInputStream()) {
+            body = new String(InputData.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        if (Objects.isNull(entryPath)) return body;
+        Metrics.CACHE_REQUESTS.inc("http", "miss");
+
+        Entry updated = new Entry();
+        updated.url = url;
+        updated.etag = Connection.getHeaderField("ETag");
+        updated.lastModified = Connection.getHeaderField("Last-Modified");
+        updated.body = body;
+        if (Objects.nonNull(updated.etag) || Objects.nonNull(updated.lastModified)) {
+            writeEntry(entryPath, updated);
+        } else if (Objects.nonNull(entry)) {
+            // Server stopped sending validators, stored response can't be revalidated anymore.
+            delete(entryPath);
+        }
+        return body;
+    }
+
+    /**
+     * Used to get a path to the file with the stored response for specified URL.
+     * @return {@link Path} to the entry, or null if caches are disabled.
+     */
+    private static @Nullable Path getEntryPath(@NotNull String url) {
+        if (!ARD.isCacheEnabled()) return null;
+        return Path.of(ARD.getCachePath(), DIRECTORY_NAME, UUID.nameUUIDFromBytes(url.getBytes(StandardCharsets.UTF_8)) + ".json");
+    }
+
+    private static @Nullable Entry readEntry(@NotNull Path entryPath, @NotNull String url) {
+        if (Files.notExists(entryPath)) return null;
+        try {
+            Entry entry = gson.fromJson(Files.readString(entryPath), Entry.class);
+            // Entries are named after a hash of the URL, so the URL is compared in case of a collision.
+            if (Objects.nonNull(entry) && Objects.equals(entry.url, url) && Objects.nonNull(entry.body)) return entry;
+        } catch (Exception e) {
+            logger.logStackTrace("Failed to read cached response for " + url + "! It will be requested again.", e);
+        }
+        return null;
+    }
+
+    private static void writeEntry(@NotNull Path entryPath, @NotNull Entry entry) {
+        Path temp = null;
+        try {
+            Files.createDirectories(entryPath.getParent());
+            // Unique name, so responses for the same URL written at the same time don't collide.
+            temp = Files.createTempFile(entryPath.getParent(), entryPath.getFileName().toString(), ".tmp");
+            Files.writeString(temp, gson.toJson(entry));
+            Files.move(temp, entryPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.logStackTrace("Failed to cache response for " + entry.url + "!", e);
+        } finally {
+            if (Objects.nonNull(temp)) delete(temp);
+        }
+    }
+
+    /**
+     * Used to remove entries not used for longer than {@link HttpCache#MAX_ENTRY_AGE},
+     * and the least recently used ones when the cache is larger than {@link HttpCache#MAX_CACHE_SIZE}.
+     * Temporary files left by interrupted writes are removed the same way.
+     * @param directory {@link Path} to the directory of the cache.
+     */
+    private static void evict(@NotNull Path directory) {
+        if (Files.notExists(directory)) return;
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(Files::isRegularFile).toList();
+        } catch (IOException e) {
+            logger.logStackTrace("Failed listing cached responses! They will not be evicted in this run.", e);
+            return;
+        }
+
+        Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+        for (Path file: files) {
+            try {
+                attributes.put(file, Files.readAttributes(file, BasicFileAttributes.class));
+            } catch (IOException e) {
+                logger.warn("Failed reading attributes of the cached response \"" + file.getFileName() + "\"!");
+            }
+        }
+        List<Path> recentlyUsed = new ArrayList<>(attributes.keySet());
+        recentlyUsed.sort(Comparator.comparing((Path file) -> attributes.get(file).lastModifiedTime()).reversed());
+
+        FileTime oldest = FileTime.from(Instant.now().minus(MAX_ENTRY_AGE));
+        long size = 0;
+        int removed = 0;
+        for (Path file: recentlyUsed) {
+            size += attributes.get(file).size();
+            if (size <= MAX_CACHE_SIZE && attributes.get(file).lastModifiedTime().compareTo(oldest) >= 0) continue;
+            if (delete(file)) removed++;
+        }
+        if (removed > 0) logger.log("Evicted " + RandomUtils.intGrammar(removed, " cached response.", " cached responses.", true));
+    }
+
+    /**
+     * Used to delete a file of the cache. Failures are only logged, as they don't affect the response.
+     * @return {@code true} if the file has been deleted.
+     */
+    private static boolean delete(@NotNull Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Failed deleting \"" + file.toAbsolutePath() + "\" from the HTTP cache!");
+            return false;
+        }
+    }
+
+    /**
+     * Stored response, with the validators sent by the server.
+     */
+    private static class Entry {
+        private String url;
+        private String etag;
+        private String lastModified;
+        private String body;
+    }
+}
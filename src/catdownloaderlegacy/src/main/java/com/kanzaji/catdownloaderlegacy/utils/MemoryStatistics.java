@@ -0,0 +1,105 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.utils;
+
+import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Locale;
+
+/**
+ * This class holds statistics about the memory usage and garbage collection of the app, read from the JVM management beans.
+ * Statistics are measured since the last call to {@link MemoryStatistics#reset()}, usually the beginning of the synchronization.
+ * @see MemoryStatistics#logSummary()
+ */
+public class MemoryStatistics {
+    private static final LoggerCustom logger = new LoggerCustom("Memory Statistics");
+    private static long collectionsBaseline = 0;
+    private static long collectionTimeBaseline = 0;
+
+    /**
+     * Used to reset the statistics, so following measurements cover only the work done after this call.
+     */
+    public static synchronized void reset() {
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+        collectionsBaseline = getTotalCollections();
+        collectionTimeBaseline = getTotalCollectionTime();
+    }
+
+    /**
+     * @return Amount of garbage collections since the last reset.
+     */
+    public static synchronized long getCollections() {
+        return getTotalCollections() - collectionsBaseline;
+    }
+
+    /**
+     * @return Approximate time spent in garbage collections since the last reset, in milliseconds.
+     */
+    public static synchronized long getCollectionTime() {
+        return getTotalCollectionTime() - collectionTimeBaseline;
+    }
+
+    /**
+     * @return Sum of the peak usage of all heap memory pools since the last reset, in bytes.
+     * @apiNote Pools reach their peaks at different times, so this is an upper bound of the peak heap usage.
+     */
+    public static long getPeakHeap() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter((pool) -> pool.getType() == MemoryType.HEAP)
+            .mapToLong((pool) -> pool.getPeakUsage().getUsed())
+            .sum();
+    }
+
+    /**
+     * @return Maximum amount of heap memory the app can use, in bytes.
+     */
+    public static long getMaxHeap() {
+        return Runtime.getRuntime().maxMemory();
+    }
+
+    /**
+     * Used to print memory statistics to the log file.
+     */
+    public static void logSummary() {
+        logger.log(String.format(Locale.ROOT,
+            "Peak heap usage: %.2fMB out of %.2fMB, Garbage collections: %d (%dms)",
+            getPeakHeap() / (1024D * 1024D),
+            getMaxHeap() / (1024D * 1024D),
+            getCollections(),
+            getCollectionTime()
+        ));
+    }
+
+    private static long getTotalCollections() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong((gc) -> Math.max(gc.getCollectionCount(), 0)).sum();
+    }
+
+    private static long getTotalCollectionTime() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong((gc) -> Math.max(gc.getCollectionTime(), 0)).sum();
+    }
+}
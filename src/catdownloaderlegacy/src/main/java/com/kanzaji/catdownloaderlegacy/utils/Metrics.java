@@ -0,0 +1,341 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.utils;
+
+import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * This class is a small registry of the metrics collected during the synchronization, exported in the OpenMetrics text format.
+ * Metrics are cumulative for the entire lifetime of the app, so in Batch and Server mode they cover all synchronized instances.
+ * <ul>
+ *     <li>With {@code -Metrics:true}, {@link Metrics#write(Path)} is used after every synchronization to save them to the log directory.</li>
+ *     <li>In Server mode, they are also available at the {@code /metrics} endpoint of the {@link com.kanzaji.catdownloaderlegacy.SyncServer}.</li>
+ * </ul>
+ * @see Metrics#render()
+ */
+public class Metrics {
+    private static final LoggerCustom logger = new LoggerCustom("Metrics");
+    private static final List<Family> families = new CopyOnWriteArrayList<>();
+    private static final double[] DURATION_BUCKETS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120, 300};
+    public static final String FILE_NAME = "CDL-Metrics.prom";
+    public static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    public static final Counter SYNCS = new Counter("cdl_syncs", "Synchronizations of the instances, by the exit code.", "code");
+    public static final Histogram SYNC_DURATION = new Histogram("cdl_sync_duration_seconds", "Duration of the synchronization of the instance.", new double[]{1, 5, 10, 30, 60, 120, 300, 600, 1800, 3600});
+    public static final Histogram TASK_DURATION = new Histogram("cdl_file_duration_seconds", "Duration of the verification and download of a single file.", DURATION_BUCKETS, "stage");
+    public static final Counter DOWNLOADED_BYTES = new Counter("cdl_downloaded_bytes", "Bytes downloaded from the mirrors.", "host");
+    public static final Counter DOWNLOAD_FAILURES = new Counter("cdl_download_failures", "Failed attempts to download a file from the mirror.", "host");
+    public static final Counter DOWNLOAD_RETRIES = new Counter("cdl_download_retries", "Attempts to download a file again, after the downloaded file failed the verification.");
+    public static final Counter HTTP_RESPONSES = new Counter("cdl_http_responses", "Responses received from the HTTP servers, by the status code.", "code");
+    public static final Counter CACHE_REQUESTS = new Counter("cdl_cache_requests", "Lookups in the Instance Cache, Fingerprint Index, Metadata Cache and HTTP Cache.", "cache", "result");
+    public static final Counter METADATA_LOOKUPS = new Counter("cdl_metadata_lookups", "Files looked up by their hashes in the metadata APIs.", "source", "result");
+    public static final Counter DIGESTED_BYTES = new Counter("cdl_digested_bytes", "Bytes read to calculate the digests of the files.", "algorithm");
+    public static final Gauge QUEUED_TASKS = new Gauge("cdl_executor_queued_tasks", "Tasks waiting in the queue of the executor.", "stage");
+
+    static {
+        // Series of the same metric have to be grouped together, so all collectors are registered for one metric before the next.
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        for (GarbageCollectorMXBean gc : collectors) {
+            new Callback("cdl_jvm_gc_collections", "counter", "Collections performed by the garbage collector.", "collector", gc.getName(), gc::getCollectionCount);
+        }
+        for (GarbageCollectorMXBean gc : collectors) {
+            new Callback("cdl_jvm_gc_pause_seconds", "counter", "Time spent in the collections performed by the garbage collector.", "collector", gc.getName(), () -> gc.getCollectionTime() / 1000D);
+        }
+    }
+
+    /**
+     * Used to render all metrics in the OpenMetrics text format.
+     * @return {@link String} with the exposition, terminated with {@code # EOF}.
+     */
+    public static @NotNull String render() {
+        StringBuilder output = new StringBuilder();
+        String lastFamily = null;
+        for (Family family : families) {
+            // Callbacks of the same metric are registered for every collector, header is written only once.
+            if (!Objects.equals(family.name, lastFamily)) {
+                output.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+                output.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+                if (family.name.endsWith("_seconds")) output.append("# UNIT ").append(family.name).append(" seconds\n");
+                if (family.name.endsWith("_bytes")) output.append("# UNIT ").append(family.name).append(" bytes\n");
+            }
+            lastFamily = family.name;
+            family.collect(output);
+        }
+        return output.append("# EOF\n").toString();
+    }
+
+    /**
+     * Used to save all metrics to the file in the specified directory. File is replaced atomically, so it's never read partially written.
+     * @param Directory {@link Path} to the directory where the file should be saved.
+     */
+    public static void write(@NotNull Path Directory) {
+        Path file = Directory.resolve(FILE_NAME);
+        Path temp = Directory.resolve(FILE_NAME + ".tmp");
+        try {
+            Files.createDirectories(Directory);
+            Files.writeString(temp, render());
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.log("Metrics have been saved to " + file.toAbsolutePath());
+        } catch (IOException e) {
+            logger.logStackTrace("Failed to save the metrics to " + file.toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Used to get the value of the label for the status code of the HTTP response.
+     * @param StatusCode Status code of the response.
+     * @return {@link String} with the status code, or {@code "error"} if no response has been received.
+     */
+    public static @NotNull String statusLabel(int StatusCode) {
+        return (StatusCode > 0)? String.valueOf(StatusCode): "error";
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value)) return String.valueOf((long) value);
+        return String.valueOf(value);
+    }
+
+    private static void appendLabels(StringBuilder output, String[] names, List<String> values, String extraName, String extraValue) {
+        if (names.length == 0 && Objects.isNull(extraName)) return;
+        output.append('{');
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) output.append(',');
+            output.append(names[i]).append("=\"").append(values.get(i).replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n")).append('"');
+        }
+        if (Objects.nonNull(extraName)) {
+            if (names.length > 0) output.append(',');
+            output.append(extraName).append("=\"").append(extraValue).append('"');
+        }
+        output.append('}');
+    }
+
+    /**
+     * Base of all metrics. Each family holds one series per unique set of the label values.
+     */
+    private static abstract class Family {
+        protected final String name;
+        protected final String type;
+        protected final String help;
+        protected final String[] labels;
+
+        private Family(String name, String type, String help, String... labels) {
+            this.name = name;
+            this.type = type;
+            this.help = help;
+            this.labels = labels;
+            families.add(this);
+        }
+
+        protected List<String> key(String[] values) {
+            if (values.length != this.labels.length) {
+                throw new IllegalArgumentException("Metric " + this.name + " requires " + this.labels.length + " label values, got " + values.length + "!");
+            }
+            return List.of(values);
+        }
+
+        protected abstract void collect(StringBuilder output);
+    }
+
+    /**
+     * Metric which value only increases.
+     */
+    public static class Counter extends Family {
+        private final Map<List<String>, LongAdder> series = new ConcurrentSkipListMap<>(Metrics::compareKeys);
+
+        private Counter(String name, String help, String... labels) {
+            super(name, "counter", help, labels);
+        }
+
+        /**
+         * Used to increase the counter by one.
+         * @param LabelValues Values of the labels, in the order of declaration.
+         */
+        public void inc(String... LabelValues) {
+            add(1, LabelValues);
+        }
+
+        /**
+         * Used to increase the counter by specified amount.
+         * @param Amount Amount to add, ignored when negative.
+         * @param LabelValues Values of the labels, in the order of declaration.
+         */
+        public void add(long Amount, String... LabelValues) {
+            if (Amount < 0) return;
+            this.series.computeIfAbsent(key(LabelValues), (key) -> new LongAdder()).add(Amount);
+        }
+
+        @Override
+        protected void collect(StringBuilder output) {
+            this.series.forEach((key, value) -> {
+                output.append(this.name).append("_total");
+                appendLabels(output, this.labels, key, null, null);
+                output.append(' ').append(value.sum()).append('\n');
+            });
+        }
+    }
+
+    /**
+     * Metric which value can go up and down.
+     */
+    public static class Gauge extends Family {
+        private final Map<List<String>, AtomicLong> series = new ConcurrentSkipListMap<>(Metrics::compareKeys);
+
+        private Gauge(String name, String help, String... labels) {
+            super(name, "gauge", help, labels);
+        }
+
+        /**
+         * Used to set the value of the gauge.
+         * @param Value New value.
+         * @param LabelValues Values of the labels, in the order of declaration.
+         */
+        public void set(long Value, String... LabelValues) {
+            this.series.computeIfAbsent(key(LabelValues), (key) -> new AtomicLong()).set(Value);
+        }
+
+        @Override
+        protected void collect(StringBuilder output) {
+            this.series.forEach((key, value) -> {
+                output.append(this.name);
+                appendLabels(output, this.labels, key, null, null);
+                output.append(' ').append(value.get()).append('\n');
+            });
+        }
+    }
+
+    /**
+     * Metric which counts observations in the buckets with the fixed upper bounds.
+     */
+    public static class Histogram extends Family {
+        private final double[] buckets;
+        private final Map<List<String>, Series> series = new ConcurrentSkipListMap<>(Metrics::compareKeys);
+
+        private Histogram(String name, String help, double[] buckets, String... labels) {
+            super(name, "histogram", help, labels);
+            this.buckets = buckets;
+        }
+
+        /**
+         * Used to record an observation.
+         * @param Value Observed value.
+         * @param LabelValues Values of the labels, in the order of declaration.
+         */
+        public void observe(double Value, String... LabelValues) {
+            Series series = this.series.computeIfAbsent(key(LabelValues), (key) -> new Series(this.buckets.length));
+            int index = Arrays.binarySearch(this.buckets, Value);
+            // Buckets are inclusive of their upper bound, so exact match lands in the found bucket.
+            series.counts[(index >= 0)? index: -index - 1].increment();
+            series.sum.add(Value);
+        }
+
+        /**
+         * Used to record a duration.
+         * @param Nanos Duration in nanoseconds, recorded in seconds.
+         * @param LabelValues Values of the labels, in the order of declaration.
+         */
+        public void observeNanos(long Nanos, String... LabelValues) {
+            observe(Nanos / 1_000_000_000D, LabelValues);
+        }
+
+        @Override
+        protected void collect(StringBuilder output) {
+            this.series.forEach((key, value) -> {
+                long cumulative = 0;
+                for (int i = 0; i <= this.buckets.length; i++) {
+                    cumulative += value.counts[i].sum();
+                    output.append(this.name).append("_bucket");
+                    appendLabels(output, this.labels, key, "le", (i < this.buckets.length)? format(this.buckets[i]): "+Inf");
+                    output.append(' ').append(cumulative).append('\n');
+                }
+                output.append(this.name).append("_count");
+                appendLabels(output, this.labels, key, null, null);
+                output.append(' ').append(cumulative).append('\n');
+                output.append(this.name).append("_sum");
+                appendLabels(output, this.labels, key, null, null);
+                output.append(' ').append(format(value.sum.sum())).append('\n');
+            });
+        }
+
+        private static class Series {
+            private final LongAdder[] counts;
+            private final DoubleAdder sum = new DoubleAdder();
+
+            private Series(int buckets) {
+                // Last bucket is the +Inf one.
+                this.counts = new LongAdder[buckets + 1];
+                for (int i = 0; i < this.counts.length; i++) this.counts[i] = new LongAdder();
+            }
+        }
+    }
+
+    /**
+     * Metric which value is read from the supplier at the time of the rendering. Used for the values collected by the JVM.
+     */
+    private static class Callback extends Family {
+        private final String labelValue;
+        private final DoubleSupplier supplier;
+
+        private Callback(String name, String type, String help, String label, String labelValue, DoubleSupplier supplier) {
+            super(name, type, help, label);
+            this.labelValue = labelValue;
+            this.supplier = supplier;
+        }
+
+        @Override
+        protected void collect(StringBuilder output) {
+            output.append(this.name);
+            if (Objects.equals(this.type, "counter")) output.append("_total");
+            appendLabels(output, this.labels, List.of(this.labelValue), null, null);
+            output.append(' ').append(format(this.supplier.getAsDouble())).append('\n');
+        }
+    }
+
+    private static int compareKeys(List<String> first, List<String> second) {
+        for (int i = 0; i < Math.min(first.size(), second.size()); i++) {
+            int result = first.get(i).compareTo(second.get(i));
+            if (result != 0) return result;
+        }
+        return Integer.compare(first.size(), second.size());
+    }
+}
@@ -0,0 +1,164 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.utils;
+
+import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class holds statistics about the mirrors used for the downloads, gathered across the entire run of the app.
+ * Statistics are kept per host, as mirrors for different files usually share them.
+ * @see MirrorStatistics#order(String[])
+ */
+public class MirrorStatistics {
+    private static final LoggerCustom logger = new LoggerCustom("Mirror Statistics");
+    private static final Map<String, HostStatistics> hosts = new ConcurrentHashMap<>();
+    /**
+     * Weight of the newest sample in the moving averages.
+     */
+    private static final double SAMPLE_WEIGHT = 0.3;
+    /**
+     * Size of the reference transfer used for the score of the mirror.
+     */
+    private static final double REFERENCE_SIZE = 1024 * 1024;
+
+    /**
+     * Used to record the time it took to get the first bytes from the mirror.
+     * @param url {@link String} with URL of the mirror.
+     * @param latencyNanos Time between opening the connection and receiving first bytes, in nanoseconds.
+     */
+    public static void recordLatency(String url, long latencyNanos) {
+        getHost(url).recordLatency(latencyNanos / 1_000_000D);
+    }
+
+    /**
+     * Used to record successful transfer from the mirror.
+     * @param url {@link String} with URL of the mirror.
+     * @param bytes Amount of bytes transferred.
+     * @param transferNanos Time the transfer took, in nanoseconds.
+     */
+    public static void recordTransfer(String url, long bytes, long transferNanos) {
+        Metrics.DOWNLOADED_BYTES.add(bytes, getHostName(url));
+        if (bytes <= 0 || transferNanos <= 0) return;
+        getHost(url).recordThroughput(bytes / (transferNanos / 1_000_000D));
+    }
+
+    /**
+     * Used to record a failure of the mirror.
+     * @param url {@link String} with URL of the mirror.
+     */
+    public static void recordFailure(String url) {
+        Metrics.DOWNLOAD_FAILURES.inc(getHostName(url));
+        getHost(url).recordFailure();
+    }
+
+    /**
+     * Used to get mirrors ordered from the best to the worst one.
+     * Mirrors with fewer failures go first, then mirrors with lower estimated time of a reference transfer.
+     * Mirrors without any statistics are tried before measured ones, so every mirror gets a chance to be measured.
+     * @param urls Array of {@link String} with URLs of the mirrors, in order of preference from the source.
+     * @return New array with URLs in the order they should be tried.
+     */
+    public static String @NotNull [] order(String @NotNull [] urls) {
+        if (urls.length < 2) return urls.clone();
+        String[] ordered = urls.clone();
+        // Stable sort, keeps the order from the source for equal mirrors.
+        Arrays.sort(ordered, Comparator
+            .comparingInt((String url) -> getHost(url).getFailures())
+            .thenComparingDouble((String url) -> getHost(url).getScore())
+        );
+        return ordered;
+    }
+
+    /**
+     * Used to print statistics of all mirrors used in this run to the log file.
+     */
+    public static void logSummary() {
+        if (hosts.isEmpty()) return;
+        logger.log("Mirror statistics:");
+        hosts.forEach((host, statistics) -> logger.log("- " + host + " -> " + statistics));
+    }
+
+    private static @NotNull HostStatistics getHost(String url) {
+        return hosts.computeIfAbsent(getHostName(url), (key) -> new HostStatistics());
+    }
+
+    private static @NotNull String getHostName(String url) {
+        try {
+            return Objects.requireNonNullElse(URI.create(url).getHost(), url);
+        } catch (Exception e) {
+            return url;
+        }
+    }
+
+    /**
+     * Class holding statistics for a single host.
+     */
+    private static class HostStatistics {
+        private double latency = -1;
+        private double throughput = -1;
+        private int failures = 0;
+        private int successes = 0;
+
+        private synchronized void recordLatency(double latencyMillis) {
+            this.latency = (this.latency < 0)? latencyMillis: this.latency * (1 - SAMPLE_WEIGHT) + latencyMillis * SAMPLE_WEIGHT;
+        }
+
+        private synchronized void recordThroughput(double bytesPerMillis) {
+            this.throughput = (this.throughput < 0)? bytesPerMillis: this.throughput * (1 - SAMPLE_WEIGHT) + bytesPerMillis * SAMPLE_WEIGHT;
+            this.successes++;
+        }
+
+        private synchronized void recordFailure() {
+            this.failures++;
+        }
+
+        private synchronized int getFailures() {
+            return this.failures;
+        }
+
+        /**
+         * @return Estimated time in milliseconds to transfer the reference amount of data, or 0 when not measured yet.
+         */
+        private synchronized double getScore() {
+            if (this.latency < 0 && this.throughput < 0) return 0;
+            return Math.max(this.latency, 0) + ((this.throughput > 0)? REFERENCE_SIZE / this.throughput: 0);
+        }
+
+        @Override
+        public synchronized String toString() {
+            return
+                "Latency: " + ((this.latency < 0)? "unknown": String.format(Locale.ROOT, "%.1fms", this.latency)) +
+                ", Throughput: " + ((this.throughput < 0)? "unknown": String.format(Locale.ROOT, "%.2fMB/s", this.throughput * 1000 / REFERENCE_SIZE)) +
+                ", Successful transfers: " + this.successes +
+                ", Failures: " + this.failures;
+        }
+    }
+}
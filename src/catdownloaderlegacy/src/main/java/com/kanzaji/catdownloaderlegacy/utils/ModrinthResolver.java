@@ -0,0 +1,253 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.utils;
+
+import com.kanzaji.catdownloaderlegacy.ArgumentDecoder;
+import com.kanzaji.catdownloaderlegacy.CatDownloader;
+import com.kanzaji.catdownloaderlegacy.data.CDLInstance;
+import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class is used to resolve metadata of the files by their hashes, with the {@code version_files} endpoint of the Modrinth API.
+ * Hashes of all files are sent in a few bulk requests, instead of a request per file.
+ * <ul>
+ *     <li>Download URL from Modrinth is added to the mirrors of the file, or used as the download URL when the file has none.</li>
+ *     <li>Missing hashes and the length of the file are filled from the response.</li>
+ * </ul>
+ * URL of the API can be changed with {@code -ModrinthAPI:}, for example to use a local stub server.
+ * @see ModrinthResolver#resolve(CDLInstance)
+ */
+public class ModrinthResolver {
+    private static final LoggerCustom logger = new LoggerCustom("Modrinth Resolver");
+    private static final ArgumentDecoder ARD = ArgumentDecoder.getInstance();
+    private static final Gson gson = JsonUtils.getCompactGson();
+    /**
+     * Amount of hashes sent in a single request.
+     */
+    private static final int CHUNK_SIZE = 200;
+    /**
+     * Amount of requests sent at once.
+     */
+    private static final int MAX_CONCURRENT_REQUESTS = 4;
+    private static final int REQUEST_TIMEOUT = 15000;
+
+    /**
+     * Used to resolve metadata of all files of the instance with hashes, and merge it into the files.
+     * Failure of the resolution is not fatal, files are left with the data from the manifest.
+     * @param Instance {@link CDLInstance} with the files to resolve.
+     */
+    public static void resolve(@NotNull CDLInstance Instance) {
+        Objects.requireNonNull(Instance);
+        // Files are resolved with the strongest hash they have, so the requests are split by the algorithm.
+        Map<String, List<CDLInstance.ModFile>> sha512 = new LinkedHashMap<>();
+        Map<String, List<CDLInstance.ModFile>> sha1 = new LinkedHashMap<>();
+        for (CDLInstance.ModFile mod: Instance.files) {
+            if (Objects.isNull(mod) || Objects.isNull(mod.hashes)) continue;
+            if (Objects.nonNull(mod.hashes.getSha512())) {
+                sha512.computeIfAbsent(mod.hashes.getSha512(), (key) -> new LinkedList<>()).add(mod);
+            } else if (Objects.nonNull(mod.hashes.getSha1())) {
+                sha1.computeIfAbsent(mod.hashes.getSha1(), (key) -> new LinkedList<>()).add(mod);
+            }
+        }
+        if (sha512.isEmpty() && sha1.isEmpty()) {
+            logger.log("No files with hashes to resolve with the Modrinth API.");
+            return;
+        }
+
+        List<Callable<Map<String, VersionFile>>> requests = new LinkedList<>();
+        chunk(requests, "sha512", sha512.keySet());
+        chunk(requests, "sha1", sha1.keySet());
+        // Files with the same content are looked up only once.
+        logger.log("Resolving metadata of " + RandomUtils.intGrammar(sha512.size() + sha1.size(), " unique hash", " unique hashes", true) + " with " + RandomUtils.intGrammar(requests.size(), " request", " requests", true) + " to " + ARD.getModrinthAPI() + "...");
+
+        long startTime = System.currentTimeMillis();
+        Map<String, VersionFile> resolved = new HashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(requests.size(), MAX_CONCURRENT_REQUESTS), (runnable) -> {
+            Thread thread = new Thread(runnable, "CDL-Modrinth-Resolver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (Future<Map<String, VersionFile>> result: executor.invokeAll(requests)) {
+                try {
+                    resolved.putAll(result.get());
+                } catch (ExecutionException e) {
+                    logger.logStackTrace("Request to the Modrinth API failed! Files from the request are left unresolved.", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Resolution of the metadata has been interrupted!");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int merged = 0;
+        int mirrors = 0;
+        List<Map.Entry<String, List<CDLInstance.ModFile>>> files = new LinkedList<>(sha512.entrySet());
+        files.addAll(sha1.entrySet());
+        for (Map.Entry<String, List<CDLInstance.ModFile>> entry: files) {
+            VersionFile versionFile = resolved.get(entry.getKey());
+            Metrics.METADATA_LOOKUPS.add(entry.getValue().size(), "modrinth", (Objects.isNull(versionFile))? "unresolved": "resolved");
+            if (Objects.isNull(versionFile)) continue;
+            for (CDLInstance.ModFile mod: entry.getValue()) {
+                int result = merge(mod, versionFile);
+                if (result >= 0) merged++;
+                if (result > 0) mirrors++;
+            }
+        }
+        logger.log("Resolved metadata of " + RandomUtils.intGrammar(merged, " file", " files", true) + " in " + (System.currentTimeMillis() - startTime) + "ms. Modrinth was added as a mirror for " + RandomUtils.intGrammar(mirrors, " file.", " files.", true));
+    }
+
+    /**
+     * Used to split the hashes into the requests of {@link ModrinthResolver#CHUNK_SIZE} hashes.
+     */
+    private static void chunk(@NotNull List<Callable<Map<String, VersionFile>>> requests, @NotNull String algorithm, @NotNull Collection<String> hashes) {
+        List<String> chunk = new ArrayList<>(CHUNK_SIZE);
+        for (String hash: hashes) {
+            chunk.add(hash);
+            if (chunk.size() == CHUNK_SIZE) {
+                List<String> full = chunk;
+                requests.add(() -> request(algorithm, full));
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            List<String> last = chunk;
+            requests.add(() -> request(algorithm, last));
+        }
+    }
+
+    /**
+     * Used to send a single request to the {@code version_files} endpoint.
+     * @param algorithm Algorithm of the hashes, {@code sha1} or {@code sha512}.
+     * @param hashes Hex Strings of the hashes.
+     * @return {@link Map} with the file of the version for each resolved hash.
+     * @throws IOException when the request fails.
+     */
+    private static @NotNull Map<String, VersionFile> request(@NotNull String algorithm, @NotNull List<String> hashes) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(ARD.getModrinthAPI() + "/version_files").openConnection();
+        connection.setConnectTimeout(REQUEST_TIMEOUT);
+        connection.setReadTimeout(REQUEST_TIMEOUT);
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json");
+        connection.setRequestProperty("Accept", "application/json");
+        // Modrinth asks for a User-Agent identifying the application.
+        connection.setRequestProperty("User-Agent", "Kanzaji/Cat-Downloader-Legacy/" + CatDownloader.VERSION);
+
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("hashes", hashes);
+        request.put("algorithm", algorithm);
+        try (OutputStream OutputData = connection.getOutputStream()) {
+            OutputData.write(gson.toJson(request).getBytes(StandardCharsets.UTF_8));
+        }
+
+        NetworkingUtils.recordStatus(connection);
+        Map<String, Version> versions;
+        try (InputStream InputData = connection.getInputStream()) {
+            versions = gson.fromJson(new String(InputData.readAllBytes(), StandardCharsets.UTF_8), new TypeToken<Map<String, Version>>() {}.getType());
+        } finally {
+            connection.disconnect();
+        }
+
+        Map<String, VersionFile> resolved = new HashMap<>();
+        if (Objects.isNull(versions)) return resolved;
+        versions.forEach((hash, version) -> {
+            VersionFile file = version.getFile(algorithm, hash);
+            if (Objects.nonNull(file)) resolved.put(hash, file);
+        });
+        return resolved;
+    }
+
+    /**
+     * Used to merge data of the resolved file into the mod file.
+     * @return -1 if the data doesn't match the file, 1 if Modrinth was added as a mirror, 0 otherwise.
+     */
+    private static int merge(CDLInstance.@NotNull ModFile mod, @NotNull VersionFile versionFile) {
+        if (mod.fileLength > 0 && versionFile.size > 0 && mod.fileLength != versionFile.size) {
+            logger.warn("Length of " + mod.fileName + " from the Modrinth API (" + versionFile.size + ") is different than in the manifest (" + mod.fileLength + ")! Resolved data is ignored.");
+            return -1;
+        }
+        if (mod.fileLength <= 0) mod.fileLength = versionFile.size;
+        if (Objects.nonNull(versionFile.hashes)) mod.hashes.fillMissing(versionFile.hashes);
+        if (Objects.isNull(versionFile.url)) return 0;
+
+        if (Objects.isNull(mod.downloadURL)) {
+            mod.downloadURL = versionFile.url;
+            return 0;
+        }
+        if (Arrays.asList(mod.getDownloadURLs()).contains(versionFile.url)) return 0;
+        String[] mirrors = (Objects.isNull(mod.mirrors))? new String[0]: mod.mirrors;
+        mod.mirrors = Arrays.copyOf(mirrors, mirrors.length + 1);
+        mod.mirrors[mirrors.length] = versionFile.url;
+        return 1;
+    }
+
+    /**
+     * Version of the project, as returned by the API. Only the fields used by the resolver are mapped.
+     */
+    private static class Version {
+        private VersionFile[] files;
+
+        /**
+         * @return File of this version with the specified hash, or null if there is none.
+         */
+        private @Nullable VersionFile getFile(@NotNull String algorithm, @NotNull String hash) {
+            if (Objects.isNull(this.files)) return null;
+            for (VersionFile file: this.files) {
+                if (Objects.isNull(file) || Objects.isNull(file.hashes)) continue;
+                String fileHash = (Objects.equals(algorithm, "sha512"))? file.hashes.getSha512(): file.hashes.getSha1();
+                if (hash.equalsIgnoreCase(fileHash)) return file;
+            }
+            return null;
+        }
+    }
+
+    private static class VersionFile {
+        private CDLInstance.Hashes hashes;
+        private String url;
+        private long size;
+    }
+}
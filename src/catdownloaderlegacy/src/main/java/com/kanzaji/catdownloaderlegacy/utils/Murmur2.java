@@ -0,0 +1,115 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.utils;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * This class implements the fingerprint used by CurseForge to identify the files, recorded in the {@code minecraftinstance.json} of the CurseForge App.
+ * Fingerprint is the 32-bit MurmurHash2 (seed 1) of the content of the file, with all whitespace bytes (9, 10, 13 and 32) removed.
+ * <p>
+ * Initial state of MurmurHash2 depends on the length of the hashed data, so the file is read twice: first to count the bytes without whitespace, then to hash them.
+ * Both passes stream the file through a buffer reused by the thread, and the hash is computed without any allocations.
+ * @see Murmur2#fingerprint(Path)
+ */
+public class Murmur2 {
+    /**
+     * Name of the algorithm, accepted by {@link FileVerUtils#verifyHash(Path, String, String)}. Hash is the decimal value of the fingerprint.
+     */
+    public static final String ALGORITHM = "MURMUR2";
+    private static final int M = 0x5bd1e995;
+    private static final int SEED = 1;
+    private static final int BUFFER_SIZE = 64*1024;
+    private static final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    /**
+     * Used to calculate the CurseForge fingerprint of the file.
+     * @param File {@link Path} to the file.
+     * @return Fingerprint as an unsigned 32-bit value.
+     * @throws IOException when IO operation fails.
+     */
+    public static long fingerprint(@NotNull Path File) throws IOException {
+        byte[] Buffer = buffers.get();
+        int length = 0;
+        long bytes = 0;
+        int read;
+
+        try (InputStream InputData = Files.newInputStream(File)) {
+            while ((read = InputData.read(Buffer)) > 0) {
+                SyncLifecycle.checkpoint();
+                bytes += read;
+                for (int i = 0; i < read; i++) {
+                    if (!isWhitespace(Buffer[i])) length++;
+                }
+            }
+        }
+
+        int hash = SEED ^ length;
+        int block = 0;
+        int shift = 0;
+        try (InputStream InputData = Files.newInputStream(File)) {
+            while ((read = InputData.read(Buffer)) > 0) {
+                SyncLifecycle.checkpoint();
+                for (int i = 0; i < read; i++) {
+                    byte value = Buffer[i];
+                    if (isWhitespace(value)) continue;
+                    // Blocks are read as little-endian integers.
+                    block |= (value & 0xFF) << shift;
+                    shift += 8;
+                    if (shift == 32) {
+                        block *= M;
+                        block ^= block >>> 24;
+                        block *= M;
+                        hash *= M;
+                        hash ^= block;
+                        block = 0;
+                        shift = 0;
+                    }
+                }
+            }
+        }
+
+        // Remaining 1-3 bytes are already in place in the partial block.
+        if (shift > 0) {
+            hash ^= block;
+            hash *= M;
+        }
+        hash ^= hash >>> 13;
+        hash *= M;
+        hash ^= hash >>> 15;
+
+        Metrics.DIGESTED_BYTES.add(bytes * 2, ALGORITHM);
+        return Integer.toUnsignedLong(hash);
+    }
+
+    private static boolean isWhitespace(byte value) {
+        return value == 9 || value == 10 || value == 13 || value == 32;
+    }
+}
@@ -28,19 +28,34 @@ import com.kanzaji.catdownloaderlegacy.ArgumentDecoder;
 import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
 import static com.kanzaji.catdownloaderlegacy.utils.FileVerUtils.verifyFile;
 
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * This class holds utility methods related to Networking.
@@ -50,15 +65,52 @@ import java.util.Objects;
  */
 public class NetworkingUtils {
     private static final LoggerCustom logger = new LoggerCustom("Network Utilities");
+    private static final int CONNECT_TIMEOUT = 15000;
+    private static final int READ_TIMEOUT = 30000;
+    private static final int BUFFER_SIZE = 64*1024;
+    /**
+     * Minimal size of the file for the mirrors to be raced against each other.
+     */
+    private static final long RACE_THRESHOLD = 8*1024*1024;
+    private static final int RACE_MIRRORS = 3;
+    /**
+     * Extension of the files with data of the downloads in progress.
+     */
+    public static final String PART_EXTENSION = ".part";
+    private static final ExecutorService transferExecutor = Executors.newCachedThreadPool((runnable) -> {
+        Thread thread = new Thread(runnable, "CDL-Transfer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * Maximal amount of byte-range requests running at once, across all segmented downloads.
+     * Without the limit, every download thread would open its own set of connections for the segments.
+     */
+    private static final int MAX_SEGMENT_TRANSFERS = 16;
+    private static final ThreadPoolExecutor segmentExecutor = new ThreadPoolExecutor(
+        MAX_SEGMENT_TRANSFERS, MAX_SEGMENT_TRANSFERS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), (runnable) -> {
+            Thread thread = new Thread(runnable, "CDL-Segment");
+            thread.setDaemon(true);
+            return thread;
+        }
+    );
+
+    static {
+        segmentExecutor.allowCoreThreadTimeOut(true);
+    }
 
     /**
      * This method is used to check the connection to the specified URL.
      * @param url URL to check connection with.
+     * @param timeout Connect timeout in milliseconds.
      * @return True if connection is successful, false otherwise.
      */
-    public static boolean checkConnection(final String url) {
+    public static boolean checkConnection(final String url, int timeout) {
         try {
-            new URL(url).openConnection().connect();
+            URLConnection connection = new URL(url).openConnection();
+            connection.setConnectTimeout(timeout);
+            connection.setReadTimeout(timeout);
+            connection.connect();
             return true;
         } catch (Exception e) {
             return false;
@@ -73,6 +125,32 @@ public class NetworkingUtils {
      * @apiNote This method does not verify downloaded files. For that purpose, use {@link NetworkingUtils#downloadAndVerify(Path, String, int, String)}
      */
     public static void download(Path File, final String DownloadUrl, @Nullable String FileName) {
+        download(File, new String[]{DownloadUrl}, FileName, -1);
+    }
+
+    /**
+     * Used to download a file from a URL.
+     * @param File Path for the download.
+     * @param DownloadUrl URL to a file.
+     * @apiNote This method does not verify downloaded files. For that purpose, use {@link NetworkingUtils#downloadAndVerify(Path, String, int)}
+     */
+    public static void download(Path File, final String DownloadUrl) {
+        download(File, DownloadUrl, null);
+    }
+
+    /**
+     * Used to download a file from one of the specified mirrors.
+     * Mirrors are tried in the order determined by {@link MirrorStatistics#order(String[])}, and next mirror is used when download from the previous one fails.
+     * When Mirror Racing is enabled and the file is large enough, first bytes are requested from few mirrors at once, and the fastest one is used for the rest of the file.
+     * Files above the Segmented Download threshold are fetched in parallel byte-range segments, if the server supports range requests.
+     * @param File Path for the download.
+     * @param DownloadUrls Array with URLs to the file.
+     * @param FileName Name of the file.
+     * @param FileSize Expected length of the file, or -1 if unknown.
+     * @return {@code true} if file was downloaded from any of the mirrors, otherwise {@code false}.
+     * @apiNote This method does not verify downloaded files. For that purpose, use {@link NetworkingUtils#downloadAndVerify(Path, String[], int, String, String, String)}
+     */
+    public static boolean download(Path File, final String @NotNull [] DownloadUrls, @Nullable String FileName, long FileSize) {
         try {
             if (Objects.isNull(FileName)) {
                 FileName = File.getFileName().toString();
@@ -91,60 +169,504 @@ public class NetworkingUtils {
 
             logger.log("Started downloading " + FileName + " ...");
             if (Files.notExists(FileUtils.getParentFolder(File))) FileUtils.createRequiredPathToAFile(File);
+        } catch (Exception e) {
+            logger.logStackTrace("Failed to prepare download of \"" + File + "\"!", e);
+            return false;
+        }
 
-            long StartTime = System.currentTimeMillis();
-            URL DownloadURL = new URL(DownloadUrl);
-            OutputStream OutputFile = Files.newOutputStream(File, StandardOpenOption.CREATE_NEW);
-            URLConnection MainConnection = DownloadURL.openConnection();
-            InputStream InputData = MainConnection.getInputStream();
+        long StartTime = System.currentTimeMillis();
+        // Data is written to the .part file first, and moved in place only when the transfer is complete.
+        // When the sync is cancelled, .part file is kept, so the next run can resume the download.
+        // Only the .part files written in order are kept, segmented downloads delete theirs on failure.
+        Path Part = Path.of(File + PART_EXTENSION);
+        String[] mirrors = MirrorStatistics.order(DownloadUrls);
+        Set<String> failed = ConcurrentHashMap.newKeySet();
+
+        if (
+            ArgumentDecoder.getInstance().isMirrorRacingActive() &&
+            mirrors.length > 1 &&
+            FileSize >= RACE_THRESHOLD &&
+            Files.notExists(Part)
+        ) {
+            String winner = race(Part, mirrors, FileSize, failed);
+            if (Objects.nonNull(winner) && complete(Part, File)) {
+                logFinished(FileName, winner, StartTime);
+                return true;
+            }
+        }
+
+        // Mirrors that failed in the race are skipped, the ones that only lost it are tried again.
+        String[] fallback = Arrays.stream(mirrors).filter((mirror) -> !failed.contains(mirror)).toArray(String[]::new);
+        for (int i = 0; i < fallback.length && !SyncLifecycle.isCancelled(); i++) {
+            String mirror = fallback[i];
+            try {
+                if (shouldSegment(FileSize) && Files.notExists(Part) && supportsRanges(mirror, FileSize)) {
+                    transferSegmented(Part, mirror, FileSize, null, 0);
+                } else {
+                    transfer(Part, mirror, FileSize);
+                }
+                if (!complete(Part, File)) return false;
+                logFinished(FileName, mirror, StartTime);
+                return true;
+            } catch (Exception e) {
+                if (SyncLifecycle.isCancelled()) {
+                    logger.warn("Download of " + FileName + " has been stopped due to the cancellation of the sync.");
+                    return false;
+                }
+                MirrorStatistics.recordFailure(mirror);
+                logFailure(File, mirror, e);
+                // Data received from this mirror is continued from the next one, falling back to a full download when it doesn't support ranges.
+                if (i + 1 == fallback.length || !isResumable(Part, FileSize)) deletePartial(Part);
+                if (i + 1 < fallback.length) logger.warn("Trying next mirror for " + FileName + "...");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Used to move fully downloaded .part file in place of the destination file.
+     * @param Part Path to the .part file.
+     * @param File Path to the destination file.
+     * @return {@code true} if the file was moved successfully.
+     */
+    private static boolean complete(Path Part, Path File) {
+        try {
+            try {
+                Files.move(Part, File, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(Part, File, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException e) {
+            logger.logStackTrace("Failed to move downloaded data from \"" + Part + "\" to \"" + File + "\"!", e);
+            deletePartial(Part);
+            return false;
+        }
+    }
+
+    /**
+     * Used to transfer the file from specified URL, recording statistics of the mirror.
+     * If the file already contains data from the cancelled download, transfer is resumed with a range request, when the server supports it.
+     * @param File Path for the download.
+     * @param DownloadUrl URL to a file.
+     * @param FileSize Expected length of the file, or -1 if unknown.
+     * @throws IOException when IO Operation fails.
+     */
+    private static void transfer(Path File, String DownloadUrl, long FileSize) throws IOException {
+        long StartTime = System.nanoTime();
+        long existing = (Files.exists(File))? Files.size(File): 0;
+        URLConnection MainConnection = openConnection(DownloadUrl);
+        boolean resume = false;
+        if (existing > 0 && (FileSize < 0 || existing < FileSize) && MainConnection instanceof HttpURLConnection connection) {
+            connection.setRequestProperty("Range", "bytes=" + existing + "-");
+            resume = connection.getResponseCode() == HttpURLConnection.HTTP_PARTIAL;
+            if (resume) logger.log("Resuming download of " + File.getFileName() + " from byte " + existing + "...");
+        }
+        recordStatus(MainConnection);
 
-            byte[] Buffer = new byte[4096];
-            int read;
+        try (
+            InputStream InputData = MainConnection.getInputStream();
+            OutputStream OutputFile = (resume)?
+                Files.newOutputStream(File, StandardOpenOption.APPEND, StandardOpenOption.WRITE):
+                Files.newOutputStream(File, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)
+        ) {
+            byte[] Buffer = new byte[BUFFER_SIZE];
+            int read = InputData.read(Buffer);
+            long FirstBytes = System.nanoTime();
+            MirrorStatistics.recordLatency(DownloadUrl, FirstBytes - StartTime);
 
-            while((read = InputData.read(Buffer)) > 0)
+            long transferred = 0;
+            while (read > 0) {
+                SyncLifecycle.checkpoint();
                 OutputFile.write(Buffer, 0, read);
+                transferred += read;
+                read = InputData.read(Buffer);
+            }
+            MirrorStatistics.recordTransfer(DownloadUrl, transferred, System.nanoTime() - FirstBytes);
+        }
+        checkLength(File, FileSize);
+    }
+
+    /**
+     * Used to race first bytes of the file from few mirrors, and finish the download from the fastest one.
+     * Connections to the mirrors that lost the race are closed as soon as the winner is picked.
+     * @param File Path for the download.
+     * @param Mirrors Array with URLs to the file, ordered by preference.
+     * @param FileSize Expected length of the file.
+     * @param Failed {@link Set} the mirrors that failed are added to, including the winner when the transfer from it fails.
+     * Mirrors that only lost the race are not added.
+     * @return URL of the mirror used for the download, or null when the download didn't succeed.
+     */
+    private static @Nullable String race(Path File, String @NotNull [] Mirrors, long FileSize, @NotNull Set<String> Failed) {
+        int contenders = Math.min(RACE_MIRRORS, Mirrors.length);
+        CompletableFuture<RaceEntry> winner = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(contenders);
+        AtomicReferenceArray<URLConnection> connections = new AtomicReferenceArray<>(contenders);
+
+        for (int i = 0; i < contenders; i++) {
+            String mirror = Mirrors[i];
+            int index = i;
+            transferExecutor.execute(() -> {
+                RaceEntry entry = null;
+                try {
+                    URLConnection connection = openConnection(mirror);
+                    connections.set(index, connection);
+                    if (winner.isDone()) {
+                        disconnect(connection);
+                        return;
+                    }
+                    entry = new RaceEntry(mirror, connection);
+                    if (!winner.complete(entry)) entry.close();
+                } catch (Exception e) {
+                    if (Objects.nonNull(entry)) entry.close();
+                    // Connections of the losing mirrors are closed by the winner, it's not a failure of the mirror.
+                    if (winner.isDone()) return;
+                    Failed.add(mirror);
+                    MirrorStatistics.recordFailure(mirror);
+                    logFailure(File, mirror, e);
+                    if (remaining.decrementAndGet() == 0) winner.complete(null);
+                }
+            });
+        }
 
+        RaceEntry entry;
+        try {
+            entry = winner.get();
+        } catch (Exception e) {
+            // Late contenders close their connections, as the future can't be completed anymore.
+            winner.cancel(false);
+            for (int i = 0; i < contenders; i++) disconnect(connections.get(i));
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+            return null;
+        }
+        if (Objects.isNull(entry)) return null;
+        for (int i = 0; i < contenders; i++) {
+            if (connections.get(i) != entry.connection) disconnect(connections.get(i));
+        }
+
+        logger.log("Mirror " + entry.url + " won the race for " + File.getFileName() + " (First bytes after " + entry.latency / 1_000_000 + "ms)");
+        if (shouldSegment(FileSize) && entry.acceptsRanges && entry.contentLength == FileSize && entry.read > 0) {
+            // Rest of the file is fetched in segments, first bytes from the race are reused.
+            entry.close();
+            try {
+                transferSegmented(File, entry.url, FileSize, entry.firstBytes, entry.read);
+                return entry.url;
+            } catch (Exception e) {
+                if (SyncLifecycle.isCancelled()) return null;
+                Failed.add(entry.url);
+                MirrorStatistics.recordFailure(entry.url);
+                logFailure(File, entry.url, e);
+                deletePartial(File);
+                return null;
+            }
+        }
+
+        try (
+            InputStream InputData = entry.inputData;
+            OutputStream OutputFile = Files.newOutputStream(File, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)
+        ) {
+            long FirstBytes = System.nanoTime() - entry.latency;
+            byte[] Buffer = entry.firstBytes;
+            int read = entry.read;
+            long transferred = 0;
+            while (read > 0) {
+                SyncLifecycle.checkpoint();
+                OutputFile.write(Buffer, 0, read);
+                transferred += read;
+                read = InputData.read(Buffer);
+            }
+            MirrorStatistics.recordTransfer(entry.url, transferred, System.nanoTime() - FirstBytes);
             OutputFile.close();
-            InputData.close();
+            checkLength(File, FileSize);
+            return entry.url;
+        } catch (Exception e) {
+            if (SyncLifecycle.isCancelled()) return null;
+            Failed.add(entry.url);
+            MirrorStatistics.recordFailure(entry.url);
+            logFailure(File, entry.url, e);
+            deletePartial(File);
+            return null;
+        }
+    }
 
-            float ElapsedTime = (float) (System.currentTimeMillis() - StartTime) / 1000F;
-            logger.log("Finished downloading " + FileName + " (Took " + ElapsedTime + "s)");
-        } catch(Exception e) {
-            if (Objects.equals(e.getClass(), UnknownHostException.class)) {
-                logger.critical("Couldn't find specified host (" + e.getMessage() + ") for the download of \"" + File + "\"!");
-            } else {
-                logger.logStackTrace("Failed to download \"" + File + "\" with an exception!", e);
+    /**
+     * Connection to a mirror taking part in the race, holding the first bytes received from it.
+     */
+    private static class RaceEntry {
+        private final String url;
+        private final URLConnection connection;
+        private final InputStream inputData;
+        private final byte[] firstBytes = new byte[BUFFER_SIZE];
+        private final int read;
+        private final long latency;
+        private final boolean acceptsRanges;
+        private final long contentLength;
+
+        private RaceEntry(String url, URLConnection connection) throws IOException {
+            this.url = url;
+            this.connection = connection;
+            long StartTime = System.nanoTime();
+            recordStatus(connection);
+            this.inputData = connection.getInputStream();
+            this.acceptsRanges = "bytes".equalsIgnoreCase(connection.getHeaderField("Accept-Ranges"));
+            this.contentLength = connection.getContentLengthLong();
+            try {
+                this.read = this.inputData.read(this.firstBytes);
+            } catch (IOException e) {
+                this.inputData.close();
+                throw e;
             }
+            this.latency = System.nanoTime() - StartTime;
+            MirrorStatistics.recordLatency(url, this.latency);
+        }
+
+        private void close() {
+            try {
+                this.inputData.close();
+            } catch (IOException ignored) {}
+            disconnect(this.connection);
         }
     }
 
     /**
-     * Used to download a file from a URL.
+     * Used to close the connection from any thread, interrupting the connect or read in progress on it.
+     * @param Connection {@link URLConnection} to close, ignored when null or not an HTTP connection.
+     */
+    private static void disconnect(@Nullable URLConnection Connection) {
+        if (Connection instanceof HttpURLConnection connection) connection.disconnect();
+    }
+
+    /**
+     * Used to check if file of specified size should be downloaded in segments.
+     * @param FileSize Expected length of the file, or -1 if unknown.
+     * @return {@code true} if file is above the threshold and more than one segment is configured.
+     */
+    private static boolean shouldSegment(long FileSize) {
+        ArgumentDecoder ARD = ArgumentDecoder.getInstance();
+        return ARD.getDownloadSegments() > 1 && FileSize >= ARD.getSegmentedDownloadThreshold() * 1024L * 1024L;
+    }
+
+    /**
+     * Used to check if the server supports byte-range requests for the specified file.
+     * @param DownloadUrl URL to a file.
+     * @param FileSize Expected length of the file.
+     * @return {@code true} if server advertises {@code Accept-Ranges: bytes} and reports expected length of the file.
+     */
+    private static boolean supportsRanges(String DownloadUrl, long FileSize) {
+        try {
+            if (!(openConnection(DownloadUrl) instanceof HttpURLConnection connection)) return false;
+            connection.setRequestMethod("HEAD");
+            recordStatus(connection);
+            try {
+                return
+                    connection.getResponseCode() == HttpURLConnection.HTTP_OK &&
+                    "bytes".equalsIgnoreCase(connection.getHeaderField("Accept-Ranges")) &&
+                    connection.getContentLengthLong() == FileSize;
+            } finally {
+                connection.disconnect();
+            }
+        } catch (Exception e) {
+            logger.logStackTrace("Failed to check if " + DownloadUrl + " supports range requests!", e);
+            return false;
+        }
+    }
+
+    /**
+     * Used to download a file in byte-range segments fetched in parallel, each one written in place with positional writes.
      * @param File Path for the download.
+     * @param DownloadUrl URL to a file. Server has to support range requests.
+     * @param FileSize Expected length of the file.
+     * @param Head @Nullable first bytes of the file, already received from the server.
+     * @param HeadLength Amount of bytes in the {@code Head} array.
+     * @throws IOException when any of the segments fails.
+     * @apiNote Digests of the file are calculated after the download, reading the file in order.
+     * Segments leave gaps in the file when they fail, so the file is deleted instead of being kept for the resume, which only appends to the existing data.
+     */
+    private static void transferSegmented(Path File, String DownloadUrl, long FileSize, byte @Nullable [] Head, int HeadLength) throws IOException {
+        try {
+            transferSegments(File, DownloadUrl, FileSize, Head, HeadLength);
+        } catch (IOException | RuntimeException e) {
+            deletePartial(File);
+            throw e;
+        }
+    }
+
+    /**
+     * Used internally by {@link NetworkingUtils#transferSegmented(Path, String, long, byte[], int)} to download the segments.
+     */
+    private static void transferSegments(Path File, String DownloadUrl, long FileSize, byte @Nullable [] Head, int HeadLength) throws IOException {
+        long StartTime = System.nanoTime();
+        long deadline = SyncLifecycle.getFileDeadline();
+        long offset = (Objects.isNull(Head))? 0: HeadLength;
+        int segments = ArgumentDecoder.getInstance().getDownloadSegments();
+        long segmentSize = Math.max(1, (FileSize - offset + segments - 1) / segments);
+        logger.log("Downloading " + File.getFileName() + " in " + RandomUtils.intGrammar((int) Math.min(segments, (FileSize - offset + segmentSize - 1) / segmentSize), " segment", " segments", true) + "...");
+
+        try (FileChannel channel = FileChannel.open(File, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            if (Objects.nonNull(Head)) writeFully(channel, ByteBuffer.wrap(Head, 0, HeadLength), 0);
+
+            List<Future<Long>> futures = new LinkedList<>();
+            for (long start = offset; start < FileSize; start += segmentSize) {
+                long segmentStart = start;
+                long segmentEnd = Math.min(FileSize, start + segmentSize) - 1;
+                // Segments wait in the queue when other downloads use all connections for the segments.
+                futures.add(segmentExecutor.submit(() -> transferRange(channel, DownloadUrl, segmentStart, segmentEnd, deadline)));
+            }
+
+            HashSet<Exception> exceptions = new HashSet<>();
+            long transferred = offset;
+            for (Future<Long> future: futures) {
+                try {
+                    transferred += future.get();
+                } catch (ExecutionException e) {
+                    exceptions.add((e.getCause() instanceof Exception cause)? cause: e);
+                    futures.forEach((segment) -> segment.cancel(true));
+                } catch (CancellationException ignored) {
+                } catch (InterruptedException e) {
+                    futures.forEach((segment) -> segment.cancel(true));
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Segmented download of \"" + File + "\" was interrupted!");
+                }
+            }
+
+            if (!exceptions.isEmpty()) {
+                IOException exception = new IOException("Segmented download of \"" + File + "\" failed!");
+                exceptions.forEach(exception::addSuppressed);
+                throw exception;
+            }
+            MirrorStatistics.recordTransfer(DownloadUrl, transferred, System.nanoTime() - StartTime);
+        }
+    }
+
+    /**
+     * Used to download a single byte-range of the file, writing it to the channel at its position.
+     * @param Channel {@link FileChannel} of the downloaded file.
      * @param DownloadUrl URL to a file.
-     * @apiNote This method does not verify downloaded files. For that purpose, use {@link NetworkingUtils#downloadAndVerify(Path, String, int)}
+     * @param Start First byte of the range.
+     * @param End Last byte of the range, inclusive.
+     * @param Deadline Per-file deadline of the download, in {@link System#nanoTime()} units, or 0 if there is none.
+     * @return Amount of bytes transferred.
+     * @throws IOException when server doesn't respect the range or the transfer fails.
      */
-    public static void download(Path File, final String DownloadUrl) {
-        download(File, DownloadUrl, null);
+    private static long transferRange(FileChannel Channel, String DownloadUrl, long Start, long End, long Deadline) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) openConnection(DownloadUrl);
+        connection.setRequestProperty("Range", "bytes=" + Start + "-" + End);
+        try {
+            recordStatus(connection);
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_PARTIAL) {
+                throw new IOException("Server responded with " + connection.getResponseCode() + " to the range request (" + Start + "-" + End + ")!");
+            }
+            long position = Start;
+            try (InputStream InputData = connection.getInputStream()) {
+                byte[] Buffer = new byte[BUFFER_SIZE];
+                int read;
+                while (position <= End && (read = InputData.read(Buffer, 0, (int) Math.min(Buffer.length, End - position + 1))) > 0) {
+                    SyncLifecycle.checkpoint(Deadline);
+                    writeFully(Channel, ByteBuffer.wrap(Buffer, 0, read), position);
+                    position += read;
+                }
+            }
+            if (position != End + 1) {
+                throw new IOException("Range " + Start + "-" + End + " ended prematurely at byte " + position + "!");
+            }
+            return position - Start;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static void writeFully(FileChannel Channel, ByteBuffer Buffer, long Position) throws IOException {
+        while (Buffer.hasRemaining()) {
+            Position += Channel.write(Buffer, Position);
+        }
+    }
+
+    /**
+     * Used to count the status code of the response in the {@link Metrics}. Sends the request if it wasn't sent yet.
+     * @param Connection {@link URLConnection} to record the response of. Ignored when it's not an HTTP connection.
+     */
+    public static void recordStatus(URLConnection Connection) {
+        if (!(Connection instanceof HttpURLConnection connection)) return;
+        try {
+            Metrics.HTTP_RESPONSES.inc(Metrics.statusLabel(connection.getResponseCode()));
+        } catch (IOException e) {
+            // The same exception is thrown again when the data is requested, so it's handled by the caller there.
+            Metrics.HTTP_RESPONSES.inc("error");
+        }
+    }
+
+    private static @NotNull URLConnection openConnection(String DownloadUrl) throws IOException {
+        URLConnection connection = new URL(DownloadUrl).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT);
+        connection.setReadTimeout(READ_TIMEOUT);
+        return connection;
+    }
+
+    private static void logFinished(String FileName, String Mirror, long StartTime) {
+        float ElapsedTime = (float) (System.currentTimeMillis() - StartTime) / 1000F;
+        logger.log("Finished downloading " + FileName + " from " + Mirror + " (Took " + ElapsedTime + "s)");
+    }
+
+    private static void logFailure(Path File, String Mirror, Exception e) {
+        if (e instanceof UnknownHostException) {
+            logger.critical("Couldn't find specified host (" + e.getMessage() + ") for the download of \"" + File + "\"!");
+        } else {
+            logger.logStackTrace("Failed to download \"" + File + "\" from " + Mirror + " with an exception!", e);
+        }
+    }
+
+    /**
+     * Used to check if the partially downloaded file can be continued with a range request.
+     * @param Part Path to the .part file.
+     * @param FileSize Expected length of the file, or -1 if unknown.
+     * @return {@code true} if the file exists and isn't longer than expected.
+     */
+    private static boolean isResumable(Path Part, long FileSize) {
+        try {
+            return Files.exists(Part) && (FileSize < 0 || Files.size(Part) <= FileSize);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Used to check if the transfer delivered the entire file, as some servers close the connection early without an error.
+     * @param File Path to the downloaded file.
+     * @param FileSize Expected length of the file, or -1 if unknown.
+     * @throws IOException when the file has a different length than expected.
+     */
+    private static void checkLength(Path File, long FileSize) throws IOException {
+        if (FileSize < 0) return;
+        long length = Files.size(File);
+        if (length != FileSize) throw new IOException("Transfer ended after " + length + " bytes out of " + FileSize + "!");
+    }
+
+    private static void deletePartial(Path File) {
+        try {
+            Files.deleteIfExists(File);
+        } catch (IOException e) {
+            logger.logStackTrace("Failed to delete partially downloaded \"" + File + "\"!", e);
+        }
     }
 
     /**
      * Used to automatically download, verify, and if verification fails, re-download specified file.
      * @param File Destination of the downloaded file.
-     * @param DownloadURL String with URL to the file.
+     * @param DownloadURLs Array with URLs to the file, first one being the primary source.
      * @param FileSize Expected FileSize.
      * @param FileName @Nullable String with the name for the downloaded file.
      * @throws IOException when IO Operation fails.
      * @throws NoSuchAlgorithmException when Hash Verification complains about Algorithm.
      * @throws InterruptedException when Thread is interrupted.
      */
-    public static boolean downloadAndVerify(Path File, final String DownloadURL, final int FileSize, @Nullable String FileName, String Hash, String Algorithm)
+    public static boolean downloadAndVerify(Path File, final String @NotNull [] DownloadURLs, final long FileSize, @Nullable String FileName, String Hash, String Algorithm)
         throws IOException, NoSuchAlgorithmException, InterruptedException
     {
         Objects.requireNonNull(File);
-        Objects.requireNonNull(DownloadURL);
+        Objects.requireNonNull(DownloadURLs);
 
-        download(File, DownloadURL, FileName);
+        download(File, DownloadURLs, FileName, FileSize);
+        SyncLifecycle.checkpoint();
 
         if (Objects.isNull(FileName)) {
             FileName = File.getFileName().toString();
@@ -152,11 +674,11 @@ public class NetworkingUtils {
 
         logger.log("Verifying " + FileName + " after download...");
         if ((Objects.isNull(Hash) || Objects.isNull(Algorithm))?
-                !FileVerUtils.verifyFile(File, FileSize, DownloadURL):
+                !FileVerUtils.verifyFile(File, FileSize, DownloadURLs[0]):
                 !FileVerUtils.verifyFile(File, FileSize, Hash, Algorithm)
         ) {
             logger.error("Verification of the " + FileName + " failed! Trying to re-download the file...");
-            if(NetworkingUtils.reDownload(File, FileSize, DownloadURL, FileName, Hash, Algorithm)) {
+            if(NetworkingUtils.reDownload(File, FileSize, DownloadURLs, FileName, Hash, Algorithm)) {
                 logger.log("Re-download of " + FileName + " was successful!");
             } else {
                 logger.critical("Re-download of " + FileName + " after " + ArgumentDecoder.getInstance().getDownloadAttempts() + " attempts failed!");
@@ -178,7 +700,24 @@ public class NetworkingUtils {
      * @throws NoSuchAlgorithmException when Hash Verification complains about Algorithm.
      * @throws InterruptedException when Thread is interrupted.
      */
-    public static boolean downloadAndVerify(Path File, final String DownloadURL, final int FileSize, @Nullable String FileName)
+    public static boolean downloadAndVerify(Path File, final String DownloadURL, final long FileSize, @Nullable String FileName, String Hash, String Algorithm)
+        throws IOException, NoSuchAlgorithmException, InterruptedException
+    {
+        Objects.requireNonNull(DownloadURL);
+        return downloadAndVerify(File, new String[]{DownloadURL}, FileSize, FileName, Hash, Algorithm);
+    }
+
+    /**
+     * Used to automatically download, verify, and if verification fails, re-download specified file.
+     * @param File Destination of the downloaded file.
+     * @param DownloadURL String with URL to the file.
+     * @param FileSize Expected FileSize.
+     * @param FileName @Nullable String with the name for the downloaded file.
+     * @throws IOException when IO Operation fails.
+     * @throws NoSuchAlgorithmException when Hash Verification complains about Algorithm.
+     * @throws InterruptedException when Thread is interrupted.
+     */
+    public static boolean downloadAndVerify(Path File, final String DownloadURL, final long FileSize, @Nullable String FileName)
             throws IOException, NoSuchAlgorithmException, InterruptedException
     {
         return downloadAndVerify(File, DownloadURL, FileSize, FileName, null, null);
@@ -193,17 +732,17 @@ public class NetworkingUtils {
      * @throws NoSuchAlgorithmException when Hash Verification complains about Algorithm.
      * @throws InterruptedException when Thread is interrupted.
      */
-    public static boolean downloadAndVerify(Path File, final String DownloadURL, final int FileSize) throws IOException, NoSuchAlgorithmException, InterruptedException {
+    public static boolean downloadAndVerify(Path File, final String DownloadURL, final long FileSize) throws IOException, NoSuchAlgorithmException, InterruptedException {
         return downloadAndVerify(File, DownloadURL, FileSize, null, null, null);
     }
 
     /**
      * Used to automatically delete, re-download and verify a file. Each attempt waits 500ms x attempt before requesting data from the server.
      * @param file Path to a file to re-download.
-     * @param downloadUrl DownloadURl of a file.
+     * @param downloadUrls Array with URLs of a file, first one being the primary source.
      * @param fileName A name of the file.
      * @param fileSize Expected length of the file.
-     * @param Hash Hash for the file verification. If null, Hash will be calculated from the DownloadURL
+     * @param Hash Hash for the file verification. If null, Hash will be calculated from the primary DownloadURL
      * @param Algorithm Algorithm for the specified Hash value.
      * @return Boolean with the result of re-download.
      * @throws IOException when IO operation fails.
@@ -211,28 +750,31 @@ public class NetworkingUtils {
      * @throws InterruptedException when thread is interrupted.
      * @apiNote The number of attempts for re-downloading a file is defined in the arguments (Default: 5)
      */
-    public static boolean reDownload(Path file, Number fileSize, String downloadUrl, @Nullable String fileName, @Nullable String Hash, @Nullable String Algorithm)
+    public static boolean reDownload(Path file, Number fileSize, String @NotNull [] downloadUrls, @Nullable String fileName, @Nullable String Hash, @Nullable String Algorithm)
         throws IOException, NoSuchAlgorithmException, InterruptedException
     {
         boolean hashVerification = Objects.nonNull(Hash) && Objects.nonNull(Algorithm);
         if (Objects.isNull(fileName)) fileName = file.getFileName().toString();
 
         for (int i = 0; i < ArgumentDecoder.getInstance().getDownloadAttempts(); i++) {
+            SyncLifecycle.checkpoint();
             // Waiting a while, in case server has some small issue and requires a bit of time, Each attempt increases the time to wait.
             //noinspection BusyWait
             Thread.sleep(2500L * i);
+            if (i > 0) Metrics.DOWNLOAD_RETRIES.inc();
 
             if (Files.deleteIfExists(file)) {
                 logger.log("Deleted corrupted " + fileName + ". Re-download attempt: " + (i+1));
             }
 
-            download(file, downloadUrl, fileName);
+            download(file, downloadUrls, fileName, fileSize.longValue());
+            SyncLifecycle.checkpoint();
             if (hashVerification) {
                 if (verifyFile(file, fileSize, Hash, Algorithm)) {
                     return true;
                 }
             } else {
-                if (verifyFile(file, fileSize, downloadUrl)) {
+                if (verifyFile(file, fileSize, downloadUrls[0])) {
                     return true;
                 }
             }
@@ -240,6 +782,26 @@ public class NetworkingUtils {
         return false;
     }
 
+    /**
+     * Used to automatically delete, re-download and verify a file. Each attempt waits 500ms x attempt before requesting data from the server.
+     * @param file Path to a file to re-download.
+     * @param downloadUrl DownloadURl of a file.
+     * @param fileName A name of the file.
+     * @param fileSize Expected length of the file.
+     * @param Hash Hash for the file verification. If null, Hash will be calculated from the DownloadURL
+     * @param Algorithm Algorithm for the specified Hash value.
+     * @return Boolean with the result of re-download.
+     * @throws IOException when IO operation fails.
+     * @throws NoSuchAlgorithmException when Hash Verification complains about algorithm.
+     * @throws InterruptedException when thread is interrupted.
+     * @apiNote The number of attempts for re-downloading a file is defined in the arguments (Default: 5)
+     */
+    public static boolean reDownload(Path file, Number fileSize, String downloadUrl, @Nullable String fileName, @Nullable String Hash, @Nullable String Algorithm)
+        throws IOException, NoSuchAlgorithmException, InterruptedException
+    {
+        return reDownload(file, fileSize, new String[]{downloadUrl}, fileName, Hash, Algorithm);
+    }
+
     /**
      * Used to automatically delete, re-download and verify a file. Each attempt waits 500ms x attempt before requesting data from the server.
      * @param file Path to a file to re-download.
@@ -25,9 +25,9 @@
 package com.kanzaji.catdownloaderlegacy.utils;
 
 import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+import com.kanzaji.catdownloaderlegacy.utils.JsonUtils;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 
 import org.jetbrains.annotations.NotNull;
 
@@ -42,7 +42,7 @@ import java.util.concurrent.TimeoutException;
  * @see RandomUtils#closeTheApp(int)
  */
 public class RandomUtils {
-    private static final Gson gson = new GsonBuilder().setPrettyPrinting().setLenient().create();
+    private static final Gson gson = JsonUtils.getGson();
     private static final LoggerCustom logger = new LoggerCustom("Random Utilities");
 
     /**
@@ -65,6 +65,8 @@ public class RandomUtils {
      * Used to close the app, and print to the log file GitHub information.
      */
     public static void closeTheApp(int exitCode) {
+        // Releases the shutdown hook, if the app is closed during the shutdown.
+        SyncLifecycle.finish();
         if (logger.isInitialized()) {
             logger.log("Cat-Downloader Legacy is created and maintained by Kanzaji! Find the source code and issue tracker here:");
             logger.log("https://github.com/Kanzaji/Cat-Downloader-Legacy");
@@ -126,24 +128,4 @@ public class RandomUtils {
         }
         return StringToEdit.substring(i);
     }
-
-    public static void runGC() {
-        runGC(true);
-    }
-
-    public static void runGCL() {
-        runGC(false);
-    }
-
-    public static void runGC(boolean skipLog) {
-        if (skipLog) {
-            System.gc();
-            return;
-        }
-
-        Runtime run = Runtime.getRuntime();
-        long memory = run.totalMemory() - run.freeMemory();
-        System.gc();
-        logger.log(("GC Manual Trigger! " + (float)(memory - run.totalMemory() + run.freeMemory())/(1024L*1024L)) + " MegaBytes were cleared up.");
-    }
 }
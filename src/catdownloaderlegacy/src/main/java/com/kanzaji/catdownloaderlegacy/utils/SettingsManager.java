@@ -27,6 +27,7 @@ package com.kanzaji.catdownloaderlegacy.utils;
 import com.kanzaji.catdownloaderlegacy.ArgumentDecoder;
 import com.kanzaji.catdownloaderlegacy.data.Settings;
 import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+import com.kanzaji.catdownloaderlegacy.utils.JsonUtils;
 import static com.kanzaji.catdownloaderlegacy.utils.RandomUtils.checkIfJsonObject;
 
 import org.jetbrains.annotations.ApiStatus;
@@ -34,7 +35,6 @@ import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -70,7 +70,7 @@ import java.io.IOException;
  */
 public class SettingsManager {
     private static final LoggerCustom logger = new LoggerCustom("SettingsManager");
-    private static final Gson gson = new GsonBuilder().setPrettyPrinting().setLenient().create();
+    private static final Gson gson = JsonUtils.getGson();
     private static final ArgumentDecoder ARD = ArgumentDecoder.getInstance();
     private static final Path SettingsFile = Path.of(ARD.getSettingsPath(),"Cat-Downloader-Legacy-Settings.json5");
     private static boolean SettingsInitialized = false;
@@ -0,0 +1,126 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.utils;
+
+import com.kanzaji.catdownloaderlegacy.ArgumentDecoder;
+import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class holds utility methods related to the type of the storage the working directory is on.
+ * <h3>Available profiles:</h3>
+ * <ul>
+ *     <li><b>ssd</b> - Files are verified with all threads, starting from the largest file.</li>
+ *     <li><b>hdd</b> - Files are verified by few threads, in the order of their location on the disk, to minimise seeks of the disk head.</li>
+ *     <li><b>network</b> - Files are verified with all threads, as reads are limited by the latency instead of the disk.</li>
+ * </ul>
+ * @see StorageProfile#detect(Path)
+ */
+public class StorageProfile {
+    private static final LoggerCustom logger = new LoggerCustom("Storage Profile");
+    private static final ArgumentDecoder ARD = ArgumentDecoder.getInstance();
+    private static final Set<String> NETWORK_FILE_SYSTEMS = Set.of(
+        "nfs", "nfs4", "cifs", "smb", "smbfs", "smb2", "smb3", "9p", "afs", "ceph", "glusterfs", "davfs",
+        "fuse.sshfs", "fuse.glusterfs", "fuse.rclone", "fuse.s3fs"
+    );
+    /**
+     * Verification threads used for the HDD profile. Two readers allow to hash one file while the next one is read.
+     */
+    private static final int HDD_VERIFICATION_THREADS = 2;
+    private static final Map<String, String> detectedProfiles = new ConcurrentHashMap<>();
+
+    /**
+     * Used to get the storage profile of the specified directory. Profile from the arguments is used, unless it's set to "auto".
+     * Detected profiles are cached for each file store.
+     * @param workPath Path to the working directory.
+     * @return One of {@code ssd}, {@code hdd} or {@code network}.
+     * @apiNote Detection of rotational disks is available only on Linux. Other systems default to {@code ssd}, unless the profile is specified in the arguments.
+     */
+    public static @NotNull String detect(@NotNull Path workPath) {
+        if (!Objects.equals(ARD.getStorageProfile(), "auto")) return ARD.getStorageProfile();
+        try {
+            FileStore store = Files.getFileStore(workPath.toAbsolutePath());
+            return detectedProfiles.computeIfAbsent(store.name() + ":" + store.type(), (key) -> {
+                String profile = detect(store);
+                logger.log("Detected storage profile of \"" + store.name() + "\" (" + store.type() + "): " + profile);
+                return profile;
+            });
+        } catch (Exception e) {
+            logger.logStackTrace("Failed detecting storage profile of the working directory! SSD profile will be used.", e);
+            return "ssd";
+        }
+    }
+
+    private static @NotNull String detect(@NotNull FileStore store) {
+        String type = store.type().toLowerCase(Locale.ROOT);
+        if (NETWORK_FILE_SYSTEMS.contains(type)) return "network";
+        if (!store.name().startsWith("/dev/")) return "ssd";
+
+        try {
+            // Device mapper and partitions are resolved to the block device, to read the rotational flag of the disk.
+            String device = Path.of(store.name()).toRealPath().getFileName().toString();
+            Path block = Path.of("/sys/class/block", device).toRealPath();
+            Path rotational = block.resolve("queue/rotational");
+            if (Files.notExists(rotational)) rotational = block.getParent().resolve("queue/rotational");
+            if (Files.exists(rotational) && Objects.equals(Files.readString(rotational).trim(), "1")) return "hdd";
+        } catch (Exception e) {
+            logger.warn("Failed reading rotational flag of \"" + store.name() + "\"! SSD profile will be used.");
+        }
+        return "ssd";
+    }
+
+    /**
+     * Used to get amount of the files verified at once for specified profile. Verification threads from the arguments are used, when specified.
+     * @param profile Storage profile of the working directory.
+     * @return Amount of the verification tasks to run at once.
+     */
+    public static int getVerificationThreads(@NotNull String profile) {
+        if (ARD.getVerificationThreads() > 0) return ARD.getVerificationThreads();
+        return (Objects.equals(profile, "hdd"))? Math.min(HDD_VERIFICATION_THREADS, ARD.getThreads()): ARD.getThreads();
+    }
+
+    /**
+     * Used to get a key approximating the location of the file on the disk. Files are usually allocated in the order of their inode numbers.
+     * @param file Path to the file.
+     * @return Inode number of the file, or {@link Long#MAX_VALUE} if the file doesn't exist or the system doesn't support it.
+     */
+    public static long getLocationKey(@NotNull Path file) {
+        try {
+            return (long) Files.getAttribute(file, "unix:ino");
+        } catch (Exception e) {
+            return Long.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.utils;
+
+import com.kanzaji.catdownloaderlegacy.ArgumentDecoder;
+import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.InterruptedIOException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * This class is used to manage the lifecycle of the synchronization process.
+ * It handles cancellation of the sync (by the user with Ctrl-C, or by the deadlines from the configuration) and makes sure in-flight work stops cooperatively,
+ * so the main thread gets a chance to save the progress and clean up the working directory.
+ * @see SyncLifecycle#checkpoint()
+ * @see SyncLifecycle#awaitCompletion(CompletionService, Set, Consumer, String)
+ */
+public class SyncLifecycle {
+    private static final LoggerCustom logger = new LoggerCustom("Sync Lifecycle");
+    /**
+     * Time the shutdown hook waits for the main thread to save the progress, in seconds.
+     */
+    public static final int SHUTDOWN_GRACE_PERIOD = 15;
+    private static final Set<ExecutorService> executors = ConcurrentHashMap.newKeySet();
+    private static final ThreadLocal<Long> fileDeadline = new ThreadLocal<>();
+    private static final CountDownLatch finished = new CountDownLatch(1);
+    private static final CountDownLatch shutdownRequested = new CountDownLatch(1);
+    private static volatile boolean active = false;
+    private static volatile boolean cancelled = false;
+    private static volatile String cancelReason = null;
+    private static volatile long syncDeadline = 0;
+    private static Thread shutdownHook = null;
+
+    /**
+     * Used to mark the beginning of the synchronization. Registers the shutdown hook and starts the deadline of this synchronization, if configured.
+     */
+    public static synchronized void begin() {
+        active = true;
+        int timeout = ArgumentDecoder.getInstance().getSyncTimeout();
+        syncDeadline = (timeout > 0)? System.nanoTime() + TimeUnit.MINUTES.toNanos(timeout): 0;
+        if (Objects.nonNull(shutdownHook)) return;
+
+        shutdownHook = new Thread(() -> {
+            if (!active) return;
+            shutdownRequested.countDown();
+            cancel("Shutdown requested");
+            try {
+                // Main thread saves the progress and marks the lifecycle as finished. This hook can't call System.exit, it would block forever.
+                if (!finished.await(SHUTDOWN_GRACE_PERIOD, TimeUnit.SECONDS)) {
+                    logger.critical("Synchronization didn't stop in " + SHUTDOWN_GRACE_PERIOD + "s after the shutdown request! Progress might not be saved.");
+                }
+            } catch (InterruptedException ignored) {}
+        }, "CDL-Shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Used to mark the synchronization as finished, releasing the shutdown hook.
+     * @apiNote Has to be called before {@link System#exit(int)}, as exit called during the shutdown blocks until all hooks finish.
+     */
+    public static void finish() {
+        active = false;
+        finished.countDown();
+    }
+
+    /**
+     * Used to cancel the synchronization. In-flight tasks stop at their next {@link SyncLifecycle#checkpoint()}, and all registered executors are interrupted.
+     * @param reason {@link String} with the reason of the cancellation.
+     */
+    public static void cancel(String reason) {
+        if (cancelled) return;
+        cancelReason = reason;
+        cancelled = true;
+        logger.warn("Synchronization has been cancelled! Reason: " + reason);
+        executors.forEach(ExecutorService::shutdownNow);
+    }
+
+    /**
+     * Used to clear the cancellation of the previous synchronization, so the next one can be started in the same run of the app.
+     * Executors shut down by the cancellation are forgotten. Cancellation caused by the shutdown request is never cleared.
+     * @return {@code false} if shutdown of the app has been requested, {@code true} otherwise.
+     */
+    public static synchronized boolean reset() {
+        if (shutdownRequested.getCount() == 0) return false;
+        cancelled = false;
+        cancelReason = null;
+        executors.removeIf(ExecutorService::isShutdown);
+        return true;
+    }
+
+    /**
+     * @return {@code true} if shutdown of the app has been requested.
+     */
+    public static boolean isShutdownRequested() {
+        return shutdownRequested.getCount() == 0;
+    }
+
+    /**
+     * Used to wait until the shutdown of the app is requested (by the user with Ctrl-C, or by the system).
+     * @throws InterruptedException when current thread is interrupted while waiting.
+     */
+    public static void awaitShutdown() throws InterruptedException {
+        shutdownRequested.await();
+    }
+
+    /**
+     * @return {@code true} if synchronization has been cancelled.
+     */
+    public static boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return {@link String} with the reason of the cancellation, or null if sync wasn't cancelled.
+     */
+    public static @Nullable String getCancelReason() {
+        return cancelReason;
+    }
+
+    /**
+     * Used to register an executor, that should be interrupted when the synchronization is cancelled.
+     * @param executor {@link ExecutorService} to register.
+     * @return The same executor, for easier use.
+     */
+    public static @NotNull ExecutorService register(@NotNull ExecutorService executor) {
+        Objects.requireNonNull(executor);
+        executors.add(executor);
+        if (cancelled) executor.shutdownNow();
+        return executor;
+    }
+
+    /**
+     * Used to start the per-file deadline for the current thread, if configured.
+     */
+    public static void startFile() {
+        int timeout = ArgumentDecoder.getInstance().getFileTimeout();
+        if (timeout > 0) fileDeadline.set(System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout));
+    }
+
+    /**
+     * Used to clear the per-file deadline of the current thread.
+     */
+    public static void endFile() {
+        fileDeadline.remove();
+    }
+
+    /**
+     * @return Per-file deadline of the current thread in {@link System#nanoTime()} units, or 0 if there is none.
+     * @apiNote Used to pass the deadline to the helper threads, as it's not inherited by them.
+     */
+    public static long getFileDeadline() {
+        Long deadline = fileDeadline.get();
+        return (Objects.isNull(deadline))? 0: deadline;
+    }
+
+    /**
+     * Used to cooperatively check if the current work should stop.
+     * @throws InterruptedIOException when sync is cancelled, the thread is interrupted or per-file deadline of the current thread passed.
+     */
+    public static void checkpoint() throws InterruptedIOException {
+        checkpoint(getFileDeadline());
+    }
+
+    /**
+     * Used to cooperatively check if the current work should stop.
+     * @param deadline Deadline in {@link System#nanoTime()} units, or 0 if there is none.
+     * @throws InterruptedIOException when sync is cancelled, the thread is interrupted or specified deadline passed.
+     */
+    public static void checkpoint(long deadline) throws InterruptedIOException {
+        if (cancelled) throw new InterruptedIOException("Synchronization has been cancelled!");
+        if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("Thread has been interrupted!");
+        if (deadline != 0 && System.nanoTime() - deadline > 0) throw new InterruptedIOException("Time limit for the file has been exceeded!");
+    }
+
+    /**
+     * Used to wait for the tasks submitted to the passed {@link CompletionService}, handling each of them as soon as it finishes.
+     * Handled tasks are removed from the pending set, so their results are not retained until the entire batch finishes.
+     * Respects the global deadline and the cancellation of the synchronization.
+     * Doesn't shut down the executor running the tasks, so it can be shared between multiple instances.
+     * @param service {@link CompletionService} the tasks were submitted to.
+     * @param pending {@link Set} with {@link Future} objects of the submitted tasks.
+     * @param handler {@link Consumer} handling a finished task.
+     * @param msg Message to log at the Critical level when global deadline passes.
+     * @throws InterruptedException when current thread is interrupted while waiting.
+     * @throws TimeoutException when global deadline passes.
+     * @throws CancellationException when synchronization is cancelled.
+     */
+    public static <T> void awaitCompletion(@NotNull CompletionService<T> service, @NotNull Set<Future<T>> pending, @NotNull Consumer<Future<T>> handler, String msg) throws InterruptedException, TimeoutException {
+        Objects.requireNonNull(service);
+        Objects.requireNonNull(pending);
+        Objects.requireNonNull(handler);
+        while (!pending.isEmpty()) {
+            if (cancelled) {
+                pending.forEach((task) -> task.cancel(true));
+                throw new CancellationException(cancelReason);
+            }
+            if (syncDeadline != 0 && System.nanoTime() - syncDeadline > 0) {
+                logger.critical(msg);
+                cancel("Time limit for the synchronization has been exceeded");
+                pending.forEach((task) -> task.cancel(true));
+                throw new TimeoutException(msg);
+            }
+            Future<T> done = service.poll(1, TimeUnit.SECONDS);
+            if (Objects.isNull(done) || !pending.remove(done)) continue;
+            handler.accept(done);
+        }
+        if (cancelled) throw new CancellationException(cancelReason);
+    }
+}
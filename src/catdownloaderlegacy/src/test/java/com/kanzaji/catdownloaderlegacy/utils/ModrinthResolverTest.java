@@ -0,0 +1,222 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+package com.kanzaji.catdownloaderlegacy.utils;
+
+import com.kanzaji.catdownloaderlegacy.ArgumentDecoder;
+import com.kanzaji.catdownloaderlegacy.data.CDLInstance;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the {@link ModrinthResolver}, against a local stub of the {@code version_files} endpoint.
+ */
+public class ModrinthResolverTest {
+    private static final Gson gson = new Gson();
+    private final List<List<String>> requests = Collections.synchronizedList(new LinkedList<>());
+    private final Map<String, JsonObject> versions = new HashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private volatile int status = 200;
+    private volatile long delay = 0;
+    private HttpServer server;
+
+    @Before
+    public void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/version_files", this::handle);
+        server.start();
+        ArgumentDecoder.getInstance().decodeArguments(new String[] {"-ModrinthAPI:http://127.0.0.1:" + server.getAddress().getPort() + "/"});
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            JsonObject body = gson.fromJson(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8), JsonObject.class);
+            List<String> hashes = new LinkedList<>();
+            body.getAsJsonArray("hashes").forEach((hash) -> hashes.add(hash.getAsString()));
+            requests.add(hashes);
+            if (delay > 0) Thread.sleep(delay);
+
+            JsonObject response = new JsonObject();
+            for (String hash: hashes) {
+                if (versions.containsKey(hash)) response.add(hash, versions.get(hash));
+            }
+            byte[] bytes = ((status == 200)? response.toString(): "{\"error\":\"stub\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private static String sha512(int seed) {
+        return String.format("%0128x", seed);
+    }
+
+    private static String sha1(int seed) {
+        return String.format("%040x", seed);
+    }
+
+    private static CDLInstance.ModFile mod(int seed, String url, long length) {
+        CDLInstance.Hashes hashes = new CDLInstance.Hashes();
+        hashes.setSha512(sha512(seed));
+        return new CDLInstance.ModFile("mod-" + seed + ".jar", url, length, hashes, "mods/mod-" + seed + ".jar");
+    }
+
+    private void addVersion(int seed, String url, long size) {
+        JsonObject hashes = new JsonObject();
+        hashes.addProperty("sha512", sha512(seed));
+        hashes.addProperty("sha1", sha1(seed));
+        JsonObject file = new JsonObject();
+        file.add("hashes", hashes);
+        file.addProperty("url", url);
+        file.addProperty("size", size);
+        JsonArray files = new JsonArray();
+        files.add(file);
+        JsonObject version = new JsonObject();
+        version.add("files", files);
+        versions.put(sha512(seed), version);
+    }
+
+    private static CDLInstance instance(CDLInstance.ModFile... files) {
+        CDLInstance instance = CDLInstance.create();
+        instance.files = files;
+        return instance;
+    }
+
+    @Test
+    public void splitsHashesIntoChunksAndSendsDuplicatesOnce() {
+        List<CDLInstance.ModFile> files = new LinkedList<>();
+        for (int i = 0; i < 450; i++) files.add(mod(i, "https://example.com/" + i, 10));
+        // Files with the same content as the ones above.
+        for (int i = 0; i < 50; i++) files.add(mod(i, "https://example.com/copy/" + i, 10));
+
+        ModrinthResolver.resolve(instance(files.toArray(new CDLInstance.ModFile[0])));
+
+        List<Integer> sizes = new LinkedList<>();
+        Set<String> sent = new HashSet<>();
+        int total = 0;
+        for (List<String> request: requests) {
+            sizes.add(request.size());
+            sent.addAll(request);
+            total += request.size();
+        }
+        Collections.sort(sizes);
+        assertEquals(List.of(50, 200, 200), sizes);
+        assertEquals(450, total);
+        assertEquals(450, sent.size());
+    }
+
+    @Test
+    public void limitsConcurrentRequests() {
+        delay = 300;
+        List<CDLInstance.ModFile> files = new LinkedList<>();
+        for (int i = 0; i < 1200; i++) files.add(mod(i, "https://example.com/" + i, 10));
+
+        ModrinthResolver.resolve(instance(files.toArray(new CDLInstance.ModFile[0])));
+
+        assertEquals(6, requests.size());
+        assertEquals(4, peakInFlight.get());
+    }
+
+    @Test
+    public void mergesMirrorsHashesAndSize() {
+        addVersion(1, "https://cdn.modrinth.com/1.jar", 100);
+        addVersion(2, "https://cdn.modrinth.com/2.jar", 200);
+        addVersion(3, "https://cdn.modrinth.com/3.jar", 300);
+        CDLInstance.ModFile withURL = mod(1, "https://example.com/1.jar", 0);
+        CDLInstance.ModFile withoutURL = mod(2, null, 200);
+        CDLInstance.ModFile wrongLength = mod(3, "https://example.com/3.jar", 333);
+        String wrongLengthBefore = wrongLength.toString();
+
+        ModrinthResolver.resolve(instance(withURL, withoutURL, wrongLength));
+
+        assertEquals(100, withURL.fileLength);
+        assertEquals(sha1(1), withURL.hashes.getSha1());
+        assertEquals("https://example.com/1.jar", withURL.downloadURL);
+        assertArrayEquals(new String[] {"https://cdn.modrinth.com/1.jar"}, withURL.mirrors);
+
+        assertEquals("https://cdn.modrinth.com/2.jar", withoutURL.downloadURL);
+        assertNull(withoutURL.mirrors);
+        assertEquals(sha1(2), withoutURL.hashes.getSha1());
+
+        assertEquals(wrongLengthBefore, wrongLength.toString());
+    }
+
+    @Test
+    public void leavesFilesUnchangedWhenEntriesAreMissing() {
+        addVersion(1, "https://cdn.modrinth.com/1.jar", 100);
+        CDLInstance.ModFile missing = mod(2, "https://example.com/2.jar", 0);
+        String before = missing.toString();
+
+        ModrinthResolver.resolve(instance(missing));
+
+        assertEquals(1, requests.size());
+        assertEquals(before, missing.toString());
+    }
+
+    @Test
+    public void leavesFilesUnchangedOnHttpErrors() {
+        status = 500;
+        addVersion(1, "https://cdn.modrinth.com/1.jar", 100);
+        CDLInstance.ModFile mod = mod(1, "https://example.com/1.jar", 0);
+        String before = mod.toString();
+
+        ModrinthResolver.resolve(instance(mod));
+
+        assertEquals(1, requests.size());
+        assertEquals(before, mod.toString());
+    }
+}
@@ -31,6 +31,7 @@ import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 public class CDLUpdater {
     private static final LoggerCustom logger = new LoggerCustom("CDLUpdater Sub App");
@@ -38,6 +39,7 @@ public class CDLUpdater {
     private static Path newApp = null;
     private static Path log = null;
     private static String java = null;
+    private static long parentPid = -1;
     public static void main(String[] arguments) {
         for (String fullArgument : arguments) {
             String[] splitArgument = fullArgument.split(":", 2);
@@ -56,6 +58,9 @@ public class CDLUpdater {
                 case "oldapp" -> oldApp = pathOfValue;
                 case "newapp" -> newApp = pathOfValue;
                 case "java" -> java = value;
+                case "parentpid" -> {
+                    try {parentPid = Long.parseLong(value);} catch (NumberFormatException ignored) {}
+                }
                 default -> {
                     return;
                 }
@@ -69,7 +74,7 @@ public class CDLUpdater {
         }
 
         try {
-            Thread.sleep(250);
+            waitForParent();
             if (Objects.isNull(oldApp) || Objects.isNull(newApp) || Objects.isNull(java)) throw new NullPointerException("At least one of required arguments is null!");
 
             logger.log("Old App Path: " + oldApp.toAbsolutePath());
@@ -104,4 +109,21 @@ public class CDLUpdater {
             System.exit(1);
         }
     }
+
+    /**
+     * This method is used to wait for the main app to close, so its file is no longer in use.
+     * Falls back to a short sleep if the PID of the main app is unknown.
+     */
+    private static void waitForParent() throws Exception {
+        if (parentPid < 0) {
+            Thread.sleep(250);
+            return;
+        }
+
+        var parent = ProcessHandle.of(parentPid);
+        if (parent.isPresent() && parent.get().isAlive()) {
+            logger.log("Waiting for the main app (PID " + parentPid + ") to close...");
+            parent.get().onExit().get(30, TimeUnit.SECONDS);
+        }
+    }
 }